@@ -24,12 +24,42 @@ java {
   }
 }
 
+// The Vector API triangle kernel is compiled against the jdk.incubator.vector module. At runtime, the
+// library only uses it when the module is present, and falls back to a scalar loop otherwise.
+// javac always warns about incubating modules, and that warning has no -Xlint key to disable it.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach {
+  options.compilerArgs.addAll(vectorModule)
+}
+
 tasks.named<Test>("test") {
   useJUnitPlatform()
+  jvmArgs(vectorModule)
+}
+
+// Allocation tests only assert on the scalar kernels: whether vector temporaries are eliminated
+// depends on JIT inlining decisions.
+val scalarTest by tasks.registering(Test::class) {
+  description = "Runs the allocation tests with the Vector API kernel disabled."
+  group = "verification"
+  useJUnitPlatform()
+  testClassesDirs = sourceSets.test.get().output.classesDirs
+  classpath = sourceSets.test.get().runtimeClasspath
+  jvmArgs(vectorModule)
+  systemProperty("com.ggalmazor.ltdownsampling.vector", "false")
+  filter {
+    includeTestsMatching("*DownsamplingWorkspaceTest")
+  }
+}
+
+tasks.named("check") {
+  dependsOn(scalarTest)
 }
 
 tasks.javadoc {
   source = sourceSets.main.get().allJava
+  (options as StandardJavadocDocletOptions).addStringOption("-add-modules", "jdk.incubator.vector")
 }
 
 mavenPublishing {
@@ -81,4 +111,5 @@ jmh {
   fork = 2
   benchmarkMode = listOf("avgt")
   timeUnit = "ms"
+  jvmArgsAppend = vectorModule
 }
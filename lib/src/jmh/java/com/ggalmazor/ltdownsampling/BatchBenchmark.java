@@ -0,0 +1,81 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares downsampling a batch of {@code count} random walks, whose lengths are log-uniformly
+ * spread between 100 and 100,000 points, with {@link Downsampler#indicesAll} against one request
+ * per series, either in a loop or from a parallel stream on the common pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class BatchBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"1000"})
+  private int count;
+
+  @Param({"500"})
+  private int desiredBuckets;
+
+  private List<DoubleColumns> batch;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    batch = new ArrayList<>(count);
+    for (int series = 0; series < count; series++) {
+      int size = (int) Math.pow(10, 2 + 3 * random.nextDouble()) + desiredBuckets + 2;
+      double[] xs = new double[size];
+      double[] ys = new double[size];
+      double value = 0;
+      for (int i = 0; i < size; i++) {
+        value += random.nextGaussian();
+        xs[i] = i;
+        ys[i] = value;
+      }
+      batch.add(new DoubleColumns(xs, ys));
+    }
+  }
+
+  @Benchmark
+  public void loop(Blackhole bh) {
+    for (DoubleColumns series : batch) {
+      bh.consume(LTThreeBuckets.indices(series.xs(), series.ys(), 0, series.size(), desiredBuckets));
+    }
+  }
+
+  @Benchmark
+  public List<int[]> parallelStream() {
+    return batch.parallelStream()
+        .map(series -> LTThreeBuckets.indices(series.xs(), series.ys(), 0, series.size(), desiredBuckets))
+        .collect(Collectors.toList());
+  }
+
+  @Benchmark
+  public List<int[]> indicesAll() {
+    return Downsampler.create().indicesAll(batch, desiredBuckets);
+  }
+}
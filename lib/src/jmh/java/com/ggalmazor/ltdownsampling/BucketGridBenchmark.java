@@ -0,0 +1,83 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a pan step over a series of {@code size} points: every invocation moves a viewport of
+ * {@code viewport} points by 1% of its width and downsamples it to {@code pixels} buckets, either
+ * from a {@link BucketGrid} or with {@link BucketizationStrategy#FIXED} buckets over the slice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class BucketGridBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"10000000"})
+  private int size;
+
+  @Param({"1000000"})
+  private int viewport;
+
+  @Param({"1000"})
+  private int pixels;
+
+  private double[] xs;
+  private double[] ys;
+  private Downsampler fixed;
+  private BucketGrid grid;
+  private int step;
+  private int from;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[size];
+    ys = new double[size];
+    double value = 0;
+    for (int i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = value;
+    }
+    fixed = Downsampler.create().withStrategy(BucketizationStrategy.FIXED);
+    grid = Downsampler.create().newBucketGrid(xs, ys, 0, (double) viewport / pixels, 16);
+    step = viewport / 100;
+  }
+
+  @Benchmark
+  public DoubleColumns gridPan() {
+    pan();
+    return grid.query(xs[from], xs[from + viewport - 1]);
+  }
+
+  @Benchmark
+  public DoubleColumns fixedSlicePan() {
+    pan();
+    return fixed.sorted(xs, ys, from, viewport, pixels);
+  }
+
+  private void pan() {
+    from += step;
+    if (from + viewport > size) {
+      from = 0;
+    }
+  }
+}
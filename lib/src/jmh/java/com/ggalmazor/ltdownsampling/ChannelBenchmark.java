@@ -0,0 +1,81 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares downsampling {@code channels} random walks that share one x column with a single
+ * multi-channel request against one request per channel, with {@code FIXED} buckets, so that
+ * every separate request also bucketizes the x column again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ChannelBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"1000000"})
+  private int size;
+
+  @Param({"4"})
+  private int channelCount;
+
+  @Param({"1000"})
+  private int desiredBuckets;
+
+  private Downsampler downsampler;
+  private double[] xs;
+  private double[][] channels;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    downsampler = Downsampler.create().withStrategy(BucketizationStrategy.FIXED);
+    xs = new double[size];
+    channels = new double[channelCount][size];
+    for (int i = 0; i < size; i++) {
+      xs[i] = i + random.nextDouble();
+    }
+    for (double[] ys : channels) {
+      double value = 0;
+      for (int i = 0; i < size; i++) {
+        value += random.nextGaussian();
+        ys[i] = value;
+      }
+    }
+  }
+
+  @Benchmark
+  public void separate(Blackhole bh) {
+    for (double[] ys : channels) {
+      bh.consume(downsampler.indices(xs, ys, 0, size, desiredBuckets));
+    }
+  }
+
+  @Benchmark
+  public int[][] independent() {
+    return downsampler.channelIndices(xs, channels, 0, size, desiredBuckets);
+  }
+
+  @Benchmark
+  public int[] shared() {
+    return downsampler.sharedIndices(xs, channels, 0, size, desiredBuckets);
+  }
+}
@@ -0,0 +1,70 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Downsampling a series of {@code size} points into {@code desiredBuckets} buckets with a
+ * prebuilt {@link HullIndex}, versus scanning every bucket, plus the cost of building the index.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class HullIndexBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"10000000"})
+  private int size;
+
+  @Param({"100", "1000", "10000"})
+  private int desiredBuckets;
+
+  private double[] xs;
+  private double[] ys;
+  private HullIndex index;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[size];
+    ys = new double[size];
+    double value = 0;
+    for (int i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = value;
+    }
+    index = Downsampler.create().newHullIndex(xs, ys);
+  }
+
+  @Benchmark
+  public int[] indexed() {
+    return index.indices(desiredBuckets);
+  }
+
+  @Benchmark
+  public int[] scanned() {
+    return LTThreeBuckets.indices(xs, ys, 0, size, desiredBuckets);
+  }
+
+  @Benchmark
+  public HullIndex build() {
+    return Downsampler.create().newHullIndex(xs, ys);
+  }
+}
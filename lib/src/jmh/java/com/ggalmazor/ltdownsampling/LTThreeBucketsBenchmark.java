@@ -4,6 +4,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
@@ -37,22 +39,165 @@ public class LTThreeBucketsBenchmark {
   private int desiredBuckets;
 
   private List<DoublePoint> data;
+  private List<ObjectPoint> objectData;
+  private List<Row> rows;
+  private double[] xs;
+  private double[] ys;
+  private DownsamplingWorkspace workspace;
+  private double[] outXs;
+  private double[] outYs;
+  private Collector<DoublePoint, ?, List<DoublePoint>> collector;
 
   @Setup(Level.Trial)
   public void setup() {
     data = generateTestData(dataSize);
+    objectData = new ArrayList<>(dataSize);
+    rows = new ArrayList<>(dataSize);
+    xs = new double[dataSize];
+    ys = new double[dataSize];
+    for (int i = 0; i < dataSize; i++) {
+      DoublePoint point = data.get(i);
+      objectData.add(new ObjectPoint(point.x(), point.y()));
+      rows.add(new Row((long) point.x(), point.y()));
+      xs[i] = point.x();
+      ys[i] = point.y();
+    }
+    workspace = Downsampler.create().newWorkspace();
+    outXs = new double[desiredBuckets + 2];
+    outYs = new double[desiredBuckets + 2];
+    collector = Downsampler.create().collector(desiredBuckets);
   }
 
+  /**
+   * {@link DoublePoint} input: struct-of-arrays extraction plus the index-range kernel.
+   */
   @Benchmark
   public void downsample(Blackhole bh) {
     bh.consume(LTThreeBuckets.sorted(data, desiredBuckets));
   }
 
+  /**
+   * Same series through a non-{@link DoublePoint} type, which follows the {@code Bucket} /
+   * {@code Triangle} object path (subList views and accessor calls per candidate).
+   */
+  @Benchmark
+  public void downsampleObjects(Blackhole bh) {
+    bh.consume(LTThreeBuckets.sorted(objectData, desiredBuckets));
+  }
+
+  /**
+   * Same series as domain objects that don't implement {@link Point}, read through accessors
+   * into primitive columns.
+   */
+  @Benchmark
+  public void downsampleRows(Blackhole bh) {
+    bh.consume(LTThreeBuckets.sorted(rows, row -> row.timestamp(), Row::value, desiredBuckets));
+  }
+
+  /**
+   * Baseline of {@link #downsampleRows}: wrapping every row in a {@link Point} adapter.
+   */
+  @Benchmark
+  public void downsampleWrappedRows(Blackhole bh) {
+    List<RowPoint> wrapped = new ArrayList<>(rows.size());
+    for (Row row : rows) {
+      wrapped.add(new RowPoint(row));
+    }
+    bh.consume(LTThreeBuckets.sorted(wrapped, desiredBuckets));
+  }
+
+  /**
+   * Same series as primitive columns: no extraction and no {@link Point} objects.
+   */
+  @Benchmark
+  public void downsampleColumns(Blackhole bh) {
+    bh.consume(LTThreeBuckets.sorted(xs, ys, 0, dataSize, desiredBuckets));
+  }
+
+  /**
+   * Same series as primitive columns, also returning the statistics of every bucket computed in
+   * the same pass.
+   */
+  @Benchmark
+  public void downsampleColumnsSummarized(Blackhole bh) {
+    bh.consume(LTThreeBuckets.summarized(xs, ys, 0, dataSize, desiredBuckets));
+  }
+
+  /**
+   * Baseline of {@link #downsampleColumnsSummarized}: downsampling, then scanning every bucket a
+   * second time for its statistics.
+   */
+  @Benchmark
+  public void downsampleColumnsThenScan(Blackhole bh) {
+    bh.consume(LTThreeBuckets.sorted(xs, ys, 0, dataSize, desiredBuckets));
+    BucketPlan plan = BucketPlan.dynamic(dataSize, desiredBuckets);
+    BucketStatistics statistics = BucketStatistics.of(plan.bucketCount());
+    for (int bucket = 0; bucket < plan.bucketCount(); bucket++) {
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      double sum = 0;
+      for (int i = plan.start(bucket); i < plan.end(bucket); i++) {
+        min = Math.min(min, ys[i]);
+        max = Math.max(max, ys[i]);
+        sum += ys[i];
+      }
+      statistics.set(bucket, plan.end(bucket) - plan.start(bucket), min, max, sum);
+    }
+    bh.consume(statistics);
+  }
+
+  /**
+   * Same series as primitive columns through a reused {@link DownsamplingWorkspace}, writing into
+   * preallocated output arrays. Run with {@code -prof gc} to check the steady-state allocation.
+   */
+  @Benchmark
+  public int downsampleColumnsWorkspace() {
+    return workspace.sorted(xs, ys, 0, dataSize, desiredBuckets, outXs, outYs);
+  }
+
+  /**
+   * Same series produced by a stream, collected into a list and then downsampled.
+   */
+  @Benchmark
+  public void downsampleStreamToList(Blackhole bh) {
+    bh.consume(LTThreeBuckets.sorted(IntStream.range(0, dataSize).mapToObj(this::point).toList(), desiredBuckets));
+  }
+
+  /**
+   * Same series produced by a stream, downsampled by the collector without an intermediate list.
+   * Run with {@code -prof gc} to compare the allocation with {@link #downsampleStreamToList}.
+   */
+  @Benchmark
+  public void downsampleStreamCollector(Blackhole bh) {
+    bh.consume(IntStream.range(0, dataSize).mapToObj(this::point).collect(collector));
+  }
+
   @Benchmark
   public void bucketize(Blackhole bh) {
     bh.consume(OnePassBucketizer.bucketize(data, data.size(), desiredBuckets));
   }
 
+  /**
+   * Fixed-span buckets of the {@link Point} list, as {@code subList} views.
+   */
+  @Benchmark
+  public void bucketizeFixed(Blackhole bh) {
+    bh.consume(OnePassBucketizer.bucketize(data, data.size(), desiredBuckets, BucketizationStrategy.FIXED));
+  }
+
+  /**
+   * Fixed-span boundaries of the primitive x column, which search window starts when windows are
+   * large enough.
+   */
+  @Benchmark
+  public int[] fixedBoundaries() {
+    return OnePassBucketizer.boundaries(xs, 0, dataSize, desiredBuckets, BucketizationStrategy.FIXED);
+  }
+
+  private DoublePoint point(int index) {
+    return new DoublePoint(xs[index], ys[index]);
+  }
+
   private List<DoublePoint> generateTestData(int size) {
     Random random = new Random(SEED);
     List<DoublePoint> points = new ArrayList<>(size);
@@ -65,4 +210,22 @@ public class LTThreeBucketsBenchmark {
     }
     return points;
   }
+
+  private record ObjectPoint(double x, double y) implements Point {
+  }
+
+  private record Row(long timestamp, double value) {
+  }
+
+  private record RowPoint(Row row) implements Point {
+    @Override
+    public double x() {
+      return row.timestamp();
+    }
+
+    @Override
+    public double y() {
+      return row.value();
+    }
+  }
 }
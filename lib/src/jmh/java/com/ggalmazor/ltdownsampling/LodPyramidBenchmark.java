@@ -0,0 +1,73 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a zoom step over a series of {@code size} points: downsampling the viewport covering a
+ * {@code 1/zoom} of the series to {@code pixels} buckets, either from a {@link LodPyramid} or by
+ * downsampling the raw slice of the viewport.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class LodPyramidBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"10000000"})
+  private int size;
+
+  @Param({"1", "10"})
+  private int zoom;
+
+  @Param({"1000"})
+  private int pixels;
+
+  private double[] xs;
+  private double[] ys;
+  private LodPyramid pyramid;
+  private int from;
+  private int length;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[size];
+    ys = new double[size];
+    double value = 0;
+    for (int i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = value;
+    }
+    pyramid = Downsampler.create().newPyramid(xs, ys);
+    length = size / zoom;
+    from = (size - length) / 2;
+  }
+
+  @Benchmark
+  public DoubleColumns pyramidQuery() {
+    return pyramid.query(xs[from], xs[from + length - 1], pixels);
+  }
+
+  @Benchmark
+  public DoubleColumns rawSlice() {
+    return LTThreeBuckets.sorted(xs, ys, from, length, pixels);
+  }
+}
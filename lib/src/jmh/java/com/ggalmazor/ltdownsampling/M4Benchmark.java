@@ -0,0 +1,68 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link M4} aggregation into {@code pixels} columns with LTTB into as many buckets, with
+ * both bucketization strategies, on a random walk of {@code size} points.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class M4Benchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"10000000"})
+  private int size;
+
+  @Param({"1000", "4000"})
+  private int pixels;
+
+  private double[] xs;
+  private double[] ys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[size];
+    ys = new double[size];
+    double value = 0;
+    for (int i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = value;
+    }
+  }
+
+  @Benchmark
+  public int[] m4() {
+    return M4.indices(xs, ys, 0, size, pixels);
+  }
+
+  @Benchmark
+  public int[] lttbDynamic() {
+    return LTThreeBuckets.indices(xs, ys, 0, size, pixels);
+  }
+
+  @Benchmark
+  public int[] lttbFixed() {
+    return LTThreeBuckets.indices(xs, ys, 0, size, pixels, BucketizationStrategy.FIXED);
+  }
+}
@@ -0,0 +1,78 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how few-bucket downsampling of a large series scales with the number of threads.
+ *
+ * <p>Each call runs on a {@link ForkJoinPool} of {@code threads} workers, configured through
+ * {@link Downsampler#withExecutor(ForkJoinPool)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ParallelScalingBenchmark {
+
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"20000000"})
+  private int dataSize;
+
+  @Param({"200"})
+  private int desiredBuckets;
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  private int threads;
+
+  private double[] xs;
+  private double[] ys;
+  private ForkJoinPool pool;
+  private Downsampler downsampler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[dataSize];
+    ys = new double[dataSize];
+    for (int i = 0; i < dataSize; i++) {
+      xs[i] = i;
+      ys[i] = 100.0 + (0.001 * i) + (Math.sin(i * 0.01) * 10) + (random.nextDouble() * 5 - 2.5);
+    }
+    pool = new ForkJoinPool(threads);
+    downsampler = Downsampler.create().withExecutor(pool);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public int[] independent() {
+    return downsampler.indices(xs, ys, 0, dataSize, desiredBuckets);
+  }
+
+  @Benchmark
+  public int[] exact() {
+    return downsampler.withSelectionMode(SelectionMode.EXACT).indices(xs, ys, 0, dataSize, desiredBuckets);
+  }
+}
@@ -0,0 +1,92 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a live-chart tick over a sliding window of {@code windowSize} points: appending
+ * {@code tickSize} points and downsampling the window again, either with a
+ * {@link RollingDownsampler} or by downsampling the whole window from scratch.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class RollingDownsamplerBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"100000", "1000000"})
+  private int windowSize;
+
+  @Param({"10"})
+  private int tickSize;
+
+  @Param({"300"})
+  private int desiredBuckets;
+
+  private RollingDownsampler rolling;
+  private double[] xs;
+  private double[] ys;
+  private double[] windowXs;
+  private double[] windowYs;
+  private Random random;
+  private long next;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    random = new Random(SEED);
+    rolling = RollingDownsampler.create(windowSize, desiredBuckets);
+    // Ring holding the window for the full recompute, copied in order on every tick
+    xs = new double[windowSize];
+    ys = new double[windowSize];
+    windowXs = new double[windowSize];
+    windowYs = new double[windowSize];
+    for (next = 0; next < windowSize; next++) {
+      double y = nextValue();
+      rolling.accept(next, y);
+      xs[(int) (next % windowSize)] = next;
+      ys[(int) (next % windowSize)] = y;
+    }
+  }
+
+  @Benchmark
+  public DoubleColumns rollingTick() {
+    for (int i = 0; i < tickSize; i++, next++) {
+      rolling.accept(next, nextValue());
+    }
+    return rolling.snapshot();
+  }
+
+  @Benchmark
+  public DoubleColumns fullRecompute() {
+    for (int i = 0; i < tickSize; i++, next++) {
+      xs[(int) (next % windowSize)] = next;
+      ys[(int) (next % windowSize)] = nextValue();
+    }
+    int start = (int) (next % windowSize);
+    System.arraycopy(xs, start, windowXs, 0, windowSize - start);
+    System.arraycopy(xs, 0, windowXs, windowSize - start, start);
+    System.arraycopy(ys, start, windowYs, 0, windowSize - start);
+    System.arraycopy(ys, 0, windowYs, windowSize - start, start);
+    return LTThreeBuckets.sorted(windowXs, windowYs, 0, windowSize, desiredBuckets, BucketizationStrategy.FIXED);
+  }
+
+  private double nextValue() {
+    return Math.sin(next * 0.001) * 10 + random.nextDouble();
+  }
+}
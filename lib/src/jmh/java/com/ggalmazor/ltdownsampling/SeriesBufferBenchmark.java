@@ -0,0 +1,94 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ingesting and downsampling a series of {@code size} points held in a {@link SeriesBuffer}, versus
+ * the same series held in a lock-guarded {@code ArrayList<DoublePoint>}. Run with {@code -prof gc}
+ * to compare the memory allocated per point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class SeriesBufferBenchmark {
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"1000000"})
+  private int size;
+
+  @Param({"1000"})
+  private int desiredBuckets;
+
+  private double[] xs;
+  private double[] ys;
+  private SeriesBuffer buffer;
+  private List<DoublePoint> list;
+  private Downsampler downsampler;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[size];
+    ys = new double[size];
+    double value = 0;
+    for (int i = 0; i < size; i++) {
+      value += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = value;
+    }
+    buffer = appendBuffer();
+    list = appendLockedList();
+    downsampler = Downsampler.create();
+  }
+
+  @Benchmark
+  public SeriesBuffer appendBuffer() {
+    SeriesBuffer output = SeriesBuffer.create();
+    for (int i = 0; i < size; i++) {
+      output.append(xs[i], ys[i]);
+    }
+    return output;
+  }
+
+  @Benchmark
+  public List<DoublePoint> appendLockedList() {
+    List<DoublePoint> output = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      synchronized (output) {
+        output.add(new DoublePoint(xs[i], ys[i]));
+      }
+    }
+    return output;
+  }
+
+  @Benchmark
+  public DoubleColumns downsampleSnapshot() {
+    return downsampler.sorted(buffer.snapshot(), desiredBuckets);
+  }
+
+  @Benchmark
+  public List<DoublePoint> downsampleLockedList() {
+    synchronized (list) {
+      return downsampler.sorted(list, desiredBuckets);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and Vector API implementations of the max-area search over a single bucket.
+ *
+ * <p>5,000 candidates per bucket matches the 500,000 points / 100 buckets case of
+ * {@link LTThreeBucketsBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(2)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class TriangleKernelBenchmark {
+
+  private static final long SEED = 0xDEADBEEFL;
+
+  @Param({"100", "5000", "100000"})
+  private int bucketSize;
+
+  private double[] xs;
+  private double[] ys;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(SEED);
+    xs = new double[bucketSize];
+    ys = new double[bucketSize];
+    for (int i = 0; i < bucketSize; i++) {
+      xs[i] = i;
+      ys[i] = 100.0 + (Math.sin(i * 0.01) * 10) + (random.nextDouble() * 5 - 2.5);
+    }
+  }
+
+  @Benchmark
+  public int scalar() {
+    return TriangleKernel.scalarMaxAreaIndex(xs, ys, 0, bucketSize, -1, 100, bucketSize, 100);
+  }
+
+  @Benchmark
+  public int vector() {
+    return VectorTriangleKernel.maxAreaIndex(xs, ys, 0, bucketSize, -1, 100, bucketSize, 100);
+  }
+}
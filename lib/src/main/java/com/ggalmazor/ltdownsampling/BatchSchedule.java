@@ -0,0 +1,109 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Splits a batch of series into tasks of comparable work, to be run together on one
+ * {@link TaskRunner}.
+ *
+ * <p>The work of every series is estimated with {@link ParallelismPolicy#estimatedWork}, and the
+ * batch aims at {@value #TASKS_PER_THREAD} tasks per thread, so that threads finishing early can
+ * take more. Series lighter than that grain are packed with their neighbours into tasks that run
+ * in a single thread. Series heavier than the grain get a task of their own, which splits them
+ * across the runner: on a {@link java.util.concurrent.ForkJoinPool}, their pieces are stolen by
+ * the threads working on the rest of the batch instead of oversubscribing the pool. Tasks are
+ * sorted from the heaviest to the lightest, so the longest series never start last.
+ */
+final class BatchSchedule {
+
+  /**
+   * Number of tasks the work of a batch is spread into per thread.
+   */
+  static final int TASKS_PER_THREAD = 4;
+
+  /**
+   * Minimum estimated work, in points, of a task.
+   */
+  static final long MIN_GRAIN = 1L << 14;
+
+  private final int[][] tasks;
+  private final boolean[] split;
+
+  private BatchSchedule(int[][] tasks, boolean[] split) {
+    this.tasks = tasks;
+    this.split = split;
+  }
+
+  /**
+   * Returns the schedule of a batch of series with the provided estimated {@code work}, to be run
+   * by up to {@code parallelism} threads.
+   */
+  static BatchSchedule of(long[] work, int parallelism) {
+    long total = 0;
+    for (long seriesWork : work) {
+      total += seriesWork;
+    }
+    long grain = Math.max(MIN_GRAIN, total / ((long) TASKS_PER_THREAD * parallelism));
+
+    List<int[]> tasks = new ArrayList<>();
+    List<Long> taskWork = new ArrayList<>();
+    int groupStart = 0;
+    long groupWork = 0;
+    for (int series = 0; series < work.length; series++) {
+      if (work[series] > grain) {
+        tasks.add(new int[]{series});
+        taskWork.add(work[series]);
+        groupStart = series + 1;
+        continue;
+      }
+      groupWork += work[series];
+      // Groups of light series close as soon as they reach the grain, or before the next heavy one
+      if (groupWork >= grain || series + 1 == work.length || work[series + 1] > grain) {
+        int[] group = new int[series + 1 - groupStart];
+        for (int i = 0; i < group.length; i++) {
+          group[i] = groupStart + i;
+        }
+        tasks.add(group);
+        taskWork.add(groupWork);
+        groupStart = series + 1;
+        groupWork = 0;
+      }
+    }
+
+    Integer[] order = new Integer[tasks.size()];
+    Arrays.setAll(order, task -> task);
+    Arrays.sort(order, Comparator.comparing((Integer task) -> taskWork.get(task)).reversed());
+    int[][] sorted = new int[order.length][];
+    boolean[] split = new boolean[order.length];
+    for (int i = 0; i < order.length; i++) {
+      sorted[i] = tasks.get(order[i]);
+      split[i] = sorted[i].length == 1 && work[sorted[i][0]] > grain;
+    }
+    return new BatchSchedule(sorted, split);
+  }
+
+  /**
+   * Returns the number of tasks of the batch.
+   */
+  int taskCount() {
+    return tasks.length;
+  }
+
+  /**
+   * Returns the positions in the batch of the series of the task at {@code task}.
+   */
+  int[] task(int task) {
+    return tasks[task];
+  }
+
+  /**
+   * Returns whether the single series of the task at {@code task} is heavy enough to be split
+   * across the runner of the batch.
+   */
+  boolean isSplit(int task) {
+    return split[task];
+  }
+}
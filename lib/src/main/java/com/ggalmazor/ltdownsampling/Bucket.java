@@ -12,13 +12,15 @@ import java.util.List;
  */
 class Bucket<T extends Point> {
   private final List<T> data;
+  private final int offset;
   private final T first;
   private final T last;
   private final Point center;
   private final T result;
 
-  private Bucket(List<T> data, T first, T last, Point center, T result) {
+  private Bucket(List<T> data, int offset, T first, T last, Point center, T result) {
     this.data = data;
+    this.offset = offset;
     this.first = first;
     this.last = last;
     this.center = center;
@@ -29,25 +31,27 @@ class Bucket<T extends Point> {
    * Utility factory that takes a list of {@link Point} points and returns a {@link Bucket}.
    *
    * @param points the input list of points in the bucket being built
+   * @param offset the index of the first point of the bucket in the input series
    * @param <U>    the type of the {@link Point} points in the bucket being built
    * @return the bucket
    */
-  static <U extends Point> Bucket<U> of(List<U> points) {
+  static <U extends Point> Bucket<U> of(List<U> points, int offset) {
     U first = points.getFirst();
     U last = points.getLast();
     DoublePoint center = centerBetween(first, last);
-    return new Bucket<>(points, first, last, center, first);
+    return new Bucket<>(points, offset, first, last, center, first);
   }
 
   /**
    * Utility factory that returns a {@link Bucket} with a single {@link Point} point in it.
    *
-   * @param point the input point in the bucket being built
-   * @param <U>   the type of the {@link Point} point in the bucket being built
+   * @param point  the input point in the bucket being built
+   * @param offset the index of the point in the input series
+   * @param <U>    the type of the {@link Point} point in the bucket being built
    * @return the bucket
    */
-  static <U extends Point> Bucket<U> of(U point) {
-    return new Bucket<>(Collections.singletonList(point), point, point, point, point);
+  static <U extends Point> Bucket<U> of(U point, int offset) {
+    return new Bucket<>(Collections.singletonList(point), offset, point, point, point, point);
   }
 
   /**
@@ -59,6 +63,18 @@ class Bucket<T extends Point> {
     return result;
   }
 
+  /**
+   * Returns the index of the first point of this bucket in the input series.
+   *
+   * <p>Points of a bucket are contiguous in the input series, so the point at position
+   * {@code i} of {@link #points()} sits at index {@code getOffset() + i} of the input.
+   *
+   * @return the index of the first point of this bucket in the input series
+   */
+  int getOffset() {
+    return offset;
+  }
+
   /**
    * Returns the first {@link Point} point in this bucket.
    *
@@ -86,6 +102,34 @@ class Bucket<T extends Point> {
     return center;
   }
 
+  /**
+   * Returns the point of this bucket at the provided index of the input series.
+   *
+   * @param index the index of the point in the input series
+   * @return the point at the provided index
+   */
+  T get(int index) {
+    return data.get(index - offset);
+  }
+
+  /**
+   * Returns the average of the points in this bucket.
+   *
+   * <p>Computed on each call. Used as the right anchor of triangles in
+   * {@link SelectionMode#EXACT} mode.
+   *
+   * @return the {@link Point} whose coordinates are the averages of the points in this bucket
+   */
+  Point getAverage() {
+    double sumX = 0;
+    double sumY = 0;
+    for (T point : data) {
+      sumX += point.x();
+      sumY += point.y();
+    }
+    return new DoublePoint(sumX / data.size(), sumY / data.size());
+  }
+
   /**
    * Returns a read-only view of the points in this bucket.
    *
@@ -0,0 +1,265 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fixed-width buckets of a series snapped to a global grid, whose selections are cached by tiles
+ * so that panning a chart reuses the work of previous frames.
+ *
+ * <p>{@link BucketizationStrategy#FIXED} buckets are relative to the slice being downsampled, so
+ * panning by a fraction of a bucket moves every boundary and changes every selection. Grid
+ * buckets instead span {@code [origin + k * bucketWidth, origin + (k + 1) * bucketWidth)} for
+ * every integer {@code k}, regardless of the viewport. Each non-empty bucket selects a single
+ * point with the anchors of {@link SelectionMode#INDEPENDENT} mode, taken from its non-empty
+ * neighbours, so its selection never depends on the viewport either.
+ *
+ * <p>Selections are computed by tiles of {@value #TILE_BUCKETS} consecutive buckets, and the
+ * most recently used tiles are kept in a bounded cache. A pan only computes the tiles that come
+ * into view:
+ *
+ * <pre>{@code
+ * BucketGrid grid = Downsampler.create().newBucketGrid(xs, ys, 0, zoomLevelBucketWidth, 64);
+ * DoubleColumns frame = grid.query(viewportStart, viewportEnd);
+ * DoubleColumns panned = grid.query(viewportStart + delta, viewportEnd + delta); // mostly cached
+ * }</pre>
+ *
+ * <p>Grids can be queried from several threads at the same time. The arrays of the series are not
+ * copied, and must not be modified afterwards.
+ *
+ * @see Downsampler#newBucketGrid(double[], double[], double, double, int)
+ */
+public final class BucketGrid {
+  static final int TILE_BUCKETS = 256;
+
+  private final Downsampler downsampler;
+  private final double[] xs;
+  private final double[] ys;
+  private final double origin;
+  private final double bucketWidth;
+  // Selected positions of every cached tile, in access order. Guards the counters too.
+  private final Map<Long, int[]> tiles;
+  private long hits;
+  private long misses;
+
+  BucketGrid(Downsampler downsampler, double[] xs, double[] ys, double origin, double bucketWidth, int maxTiles) {
+    if (xs.length != ys.length) {
+      throw new IllegalArgumentException(
+          "xs and ys must have the same length, got " + xs.length + " and " + ys.length);
+    }
+    if (!Double.isFinite(origin) || !Double.isFinite(bucketWidth) || bucketWidth <= 0) {
+      throw new IllegalArgumentException(
+          "Grids need a finite origin and a positive bucket width, got " + origin + " and " + bucketWidth);
+    }
+    if (maxTiles < 1) {
+      throw new IllegalArgumentException("Grids must cache at least 1 tile, got " + maxTiles);
+    }
+    this.downsampler = downsampler;
+    this.xs = xs;
+    this.ys = ys;
+    this.origin = origin;
+    this.bucketWidth = bucketWidth;
+    this.tiles = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+        return size() > maxTiles;
+      }
+    };
+  }
+
+  /**
+   * Returns the selected points of the grid buckets between {@code minX} and {@code maxX}, one per
+   * non-empty bucket.
+   *
+   * <p>The output also includes the selections of the closest non-empty buckets beyond both
+   * edges of the viewport, so that lines can be drawn up to them. Only the tiles holding points
+   * of the viewport or of those two buckets are computed, so gaps in the series cost nothing.
+   *
+   * @param minX the x value of the left edge of the viewport
+   * @param maxX the x value of the right edge of the viewport
+   * @return the coordinates of the selected points
+   * @throws IllegalArgumentException when {@code minX} is greater than {@code maxX}
+   */
+  public DoubleColumns query(double minX, double maxX) {
+    if (!(minX <= maxX)) {
+      throw new IllegalArgumentException("Viewports must satisfy minX <= maxX, got " + minX + " and " + maxX);
+    }
+    if (xs.length == 0) {
+      return new DoubleColumns(new double[0], new double[0]);
+    }
+
+    long firstBucket = firstVisibleBucket(minX);
+    long lastBucket = lastVisibleBucket(maxX);
+    double from = edge(firstBucket);
+    double to = edge(lastBucket + 1);
+    int[] positions = new int[0];
+    int size = 0;
+    long lastTile = Math.floorDiv(lastBucket, TILE_BUCKETS);
+    long tile = Math.floorDiv(firstBucket, TILE_BUCKETS);
+    while (tile <= lastTile) {
+      // Gaps in the series are skipped up to the tile of the next point
+      int start = lowerBound(edge(tile * TILE_BUCKETS));
+      if (start == xs.length) {
+        break;
+      }
+      long nextTile = Math.floorDiv(bucketOf(xs[start]), TILE_BUCKETS);
+      if (nextTile > tile) {
+        tile = nextTile;
+        continue;
+      }
+      int[] selected = tile(tile++);
+      if (size + selected.length > positions.length) {
+        positions = Arrays.copyOf(positions, Math.max(2 * positions.length, size + selected.length));
+      }
+      for (int position : selected) {
+        if (xs[position] >= from && xs[position] < to) {
+          positions[size++] = position;
+        }
+      }
+    }
+    return DoubleColumns.gather(xs, ys, Arrays.copyOf(positions, size));
+  }
+
+  /**
+   * Returns the number of tiles that queries found in the cache.
+   *
+   * @return the number of cache hits
+   */
+  public long hitCount() {
+    synchronized (tiles) {
+      return hits;
+    }
+  }
+
+  /**
+   * Returns the number of tiles that queries had to compute, because they were never cached or
+   * were evicted.
+   *
+   * @return the number of cache misses
+   */
+  public long missCount() {
+    synchronized (tiles) {
+      return misses;
+    }
+  }
+
+  /**
+   * Returns the first bucket of a query from {@code minX}: the closest non-empty bucket before the
+   * one holding it, if any.
+   */
+  private long firstVisibleBucket(double minX) {
+    if (minX > xs[xs.length - 1]) {
+      return bucketOf(xs[xs.length - 1]);
+    }
+    long bucket = bucketOf(Math.max(minX, xs[0]));
+    int start = lowerBound(edge(bucket));
+    return start > 0 ? bucketOf(xs[start - 1]) : bucket;
+  }
+
+  /**
+   * Returns the last bucket of a query up to {@code maxX}: the closest non-empty bucket after the
+   * one holding it, if any.
+   */
+  private long lastVisibleBucket(double maxX) {
+    if (maxX < xs[0]) {
+      return bucketOf(xs[0]);
+    }
+    long bucket = bucketOf(Math.min(maxX, xs[xs.length - 1]));
+    int end = lowerBound(edge(bucket + 1));
+    return end < xs.length ? bucketOf(xs[end]) : bucket;
+  }
+
+  private int[] tile(long tile) {
+    synchronized (tiles) {
+      int[] selected = tiles.get(tile);
+      if (selected != null) {
+        hits++;
+        return selected;
+      }
+      misses++;
+    }
+    // Concurrent misses of the same tile compute the same selections, so either result can be kept
+    int[] selected = computeTile(tile);
+    if (selected.length == 0) {
+      return selected;
+    }
+    synchronized (tiles) {
+      tiles.put(tile, selected);
+    }
+    return selected;
+  }
+
+  /**
+   * Selects the points of the non-empty buckets of a tile. The closest non-empty buckets at both
+   * sides of the tile are bucketized along with it, so that its first and last buckets get the
+   * same anchors as any other.
+   */
+  private int[] computeTile(long tile) {
+    long firstBucket = tile * TILE_BUCKETS;
+    int[] bounds = new int[TILE_BUCKETS + 3];
+    int count = 0;
+    int start = lowerBound(edge(firstBucket));
+    boolean previous = start > 0;
+    if (previous) {
+      bounds[count++] = lowerBound(edge(bucketOf(xs[start - 1])));
+    }
+    for (int bucket = 1; bucket <= TILE_BUCKETS; bucket++) {
+      int end = lowerBound(edge(firstBucket + bucket));
+      if (end > start) {
+        bounds[count++] = start;
+      }
+      start = end;
+    }
+    int buckets = count - (previous ? 1 : 0);
+    if (buckets == 0) {
+      return new int[0];
+    }
+    bounds[count++] = start;
+    boolean next = start < xs.length;
+    if (next) {
+      bounds[count++] = lowerBound(edge(bucketOf(xs[start]) + 1));
+    }
+
+    int first = previous ? bounds[0] : 0;
+    int last = bounds[count - 1] - 1;
+    TaskRunner runner = downsampler.runnerFor(bounds[count - 1] - first, count - 1);
+    int[] selected = TriangleKernel.select(xs, ys, first, last, Arrays.copyOf(bounds, count), runner);
+    int skipped = previous ? 2 : 1;
+    return Arrays.copyOfRange(selected, skipped, skipped + buckets);
+  }
+
+  private double edge(long bucket) {
+    return origin + bucket * bucketWidth;
+  }
+
+  /**
+   * Returns the bucket holding {@code x}: the last one whose left edge is not greater than it.
+   */
+  private long bucketOf(double x) {
+    long bucket = (long) Math.floor((x - origin) / bucketWidth);
+    // The division may round across an edge
+    if (edge(bucket) > x) {
+      return bucket - 1;
+    }
+    return edge(bucket + 1) <= x ? bucket + 1 : bucket;
+  }
+
+  /**
+   * Returns the position of the first point whose x value is not lower than {@code x}, or
+   * {@code xs.length} if there is none.
+   */
+  private int lowerBound(double x) {
+    int low = 0;
+    int high = xs.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (xs[middle] < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,196 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The bucketization of a series, described by the boundaries of its middle buckets.
+ *
+ * <p>A plan applies to any series of {@link #size()} points. Its first and last points are
+ * excluded from the middle buckets, and middle bucket {@code k} spans the positions
+ * {@code [start(k), end(k))} relative to the start of the series. Plans are immutable, so they
+ * can be computed once, cached, and reused across calls and threads:
+ *
+ * <pre>{@code
+ * BucketPlan plan = BucketPlan.dynamic(series.size(), 200); // computed once
+ * List<DoublePoint> output = LTThreeBuckets.sorted(series, plan);
+ * }</pre>
+ *
+ * <p>A plan only holds index ranges. A {@link BucketizationStrategy#FIXED} plan splits other
+ * series of the same size by the positions it computed from the original x values, which matches
+ * their x-spans only when they share those x values (e.g. a common timestamp column).
+ */
+public final class BucketPlan {
+  private final int size;
+  private final int[] bounds;
+
+  private BucketPlan(int size, int[] bounds) {
+    this.size = size;
+    this.bounds = bounds;
+  }
+
+  /**
+   * Returns the {@link BucketizationStrategy#DYNAMIC} plan of a series of {@code size} points.
+   *
+   * <p>Computed in {@code O(desiredBuckets)} time without reading any point.
+   *
+   * @param size           the number of points of the series
+   * @param desiredBuckets the desired number of buckets
+   * @return the bucket plan
+   * @throws IllegalArgumentException when the series can't be split into {@code desiredBuckets}
+   *     buckets
+   */
+  public static BucketPlan dynamic(int size, int desiredBuckets) {
+    return new BucketPlan(size, OnePassBucketizer.boundariesByCount(0, size, desiredBuckets));
+  }
+
+  /**
+   * Returns the {@link BucketizationStrategy#DYNAMIC} plan of a series of {@code size} points,
+   * laid out as in the reference LTTB algorithm. This is the layout
+   * {@link SelectionMode#EXACT} downsamplers use, which spreads the remainder of the split along
+   * the series instead of giving it to the first buckets.
+   *
+   * <p>Computed in {@code O(desiredBuckets)} time without reading any point.
+   *
+   * @param size           the number of points of the series
+   * @param desiredBuckets the desired number of buckets
+   * @return the bucket plan
+   * @throws IllegalArgumentException when the series can't be split into {@code desiredBuckets}
+   *     buckets
+   */
+  public static BucketPlan reference(int size, int desiredBuckets) {
+    return new BucketPlan(size, OnePassBucketizer.boundariesByReference(0, size, desiredBuckets));
+  }
+
+  /**
+   * Returns the plan of the series held in the {@code xs} array from {@code offset} (inclusive) to
+   * {@code offset + length} (exclusive), using the specified {@link BucketizationStrategy}.
+   *
+   * <p>With {@link BucketizationStrategy#FIXED}, empty x-intervals are skipped, and the plan may
+   * have fewer than {@code desiredBuckets} buckets.
+   *
+   * @param xs             the x values of the series
+   * @param offset         the index of the first point of the series in {@code xs}
+   * @param length         the number of points of the series
+   * @param desiredBuckets the desired number of buckets
+   * @param strategy       the bucketization strategy to use
+   * @return the bucket plan
+   */
+  public static BucketPlan of(
+      double[] xs, int offset, int length, int desiredBuckets, BucketizationStrategy strategy) {
+    if (strategy == BucketizationStrategy.DYNAMIC) {
+      return dynamic(length, desiredBuckets);
+    }
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy);
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] -= offset;
+    }
+    return new BucketPlan(length, bounds);
+  }
+
+  /**
+   * Returns the plan of the provided {@code input} list, using the specified
+   * {@link BucketizationStrategy}.
+   *
+   * @param input          the input list of points, sorted by {@link Point#x()}
+   * @param desiredBuckets the desired number of buckets
+   * @param strategy       the bucketization strategy to use
+   * @return the bucket plan
+   */
+  public static BucketPlan of(List<? extends Point> input, int desiredBuckets, BucketizationStrategy strategy) {
+    if (strategy == BucketizationStrategy.DYNAMIC) {
+      return dynamic(input.size(), desiredBuckets);
+    }
+    double[] xs = new double[input.size()];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = input.get(i).x();
+    }
+    return new BucketPlan(xs.length, OnePassBucketizer.boundaries(xs, 0, xs.length, desiredBuckets, strategy));
+  }
+
+  /**
+   * Returns the number of points of the series this plan applies to.
+   *
+   * @return the number of points of the series
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of middle buckets. Downsampling with this plan selects
+   * {@code bucketCount() + 2} points.
+   *
+   * @return the number of middle buckets
+   */
+  public int bucketCount() {
+    return bounds.length - 1;
+  }
+
+  /**
+   * Returns the position of the first point of the middle bucket at {@code bucket}, relative to
+   * the start of the series.
+   *
+   * @param bucket the index of the middle bucket
+   * @return the position of the first point of the bucket
+   */
+  public int start(int bucket) {
+    return bounds[Objects.checkIndex(bucket, bounds.length - 1)];
+  }
+
+  /**
+   * Returns the position after the last point of the middle bucket at {@code bucket}, relative to
+   * the start of the series.
+   *
+   * @param bucket the index of the middle bucket
+   * @return the position after the last point of the bucket
+   */
+  public int end(int bucket) {
+    return bounds[Objects.checkIndex(bucket, bounds.length - 1) + 1];
+  }
+
+  /**
+   * Returns a copy of the boundaries of the middle buckets: middle bucket {@code k} spans the
+   * positions {@code [boundaries[k], boundaries[k + 1])}.
+   *
+   * @return the boundaries of the middle buckets
+   */
+  public int[] boundaries() {
+    return bounds.clone();
+  }
+
+  /**
+   * Returns the boundaries shifted to a series starting at {@code offset}, without copying them
+   * when {@code offset} is {@code 0}. The returned array must not be modified.
+   */
+  int[] boundaries(int offset) {
+    return offset == 0 ? bounds : boundaries(offset, new int[bounds.length]);
+  }
+
+  /**
+   * Writes the boundaries shifted to a series starting at {@code offset} into the first
+   * {@code bucketCount() + 1} elements of {@code target}, and returns it.
+   */
+  int[] boundaries(int offset, int[] target) {
+    for (int i = 0; i < bounds.length; i++) {
+      target[i] = bounds[i] + offset;
+    }
+    return target;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof BucketPlan that && size == that.size && Arrays.equals(bounds, that.bounds);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * size + Arrays.hashCode(bounds);
+  }
+
+  @Override
+  public String toString() {
+    return "BucketPlan[size=" + size + ", boundaries=" + Arrays.toString(bounds) + "]";
+  }
+}
@@ -0,0 +1,100 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Columnar aggregate statistics of the y values of the buckets of a downsampled series, as
+ * returned by {@link LTThreeBuckets#summarized}.
+ *
+ * <p>Position {@code i} of each array describes the bucket of the {@code i}-th downsampled point,
+ * so positions {@code 0} and {@code size() - 1} describe the single first and last points of the
+ * series. NaN values are ignored by {@link #mins()} and {@link #maxs()}, but make their
+ * {@link #sums()} NaN. The arrays are neither copied on construction nor on access.
+ *
+ * @param counts the number of points of every bucket
+ * @param mins   the lowest y value of every bucket
+ * @param maxs   the highest y value of every bucket
+ * @param sums   the sum of the y values of every bucket
+ */
+public record BucketStatistics(int[] counts, double[] mins, double[] maxs, double[] sums) {
+
+  /**
+   * Validates that all columns are present and have the same length.
+   *
+   * @param counts the number of points of every bucket
+   * @param mins   the lowest y value of every bucket
+   * @param maxs   the highest y value of every bucket
+   * @param sums   the sum of the y values of every bucket
+   */
+  public BucketStatistics {
+    Objects.requireNonNull(counts, "counts");
+    Objects.requireNonNull(mins, "mins");
+    Objects.requireNonNull(maxs, "maxs");
+    Objects.requireNonNull(sums, "sums");
+    if (mins.length != counts.length || maxs.length != counts.length || sums.length != counts.length) {
+      throw new IllegalArgumentException("Columns must have the same length, got " + counts.length + " counts, "
+          + mins.length + " mins, " + maxs.length + " maxs and " + sums.length + " sums");
+    }
+  }
+
+  /**
+   * Returns empty statistics of {@code size} buckets, to be filled by the selection kernels.
+   */
+  static BucketStatistics of(int size) {
+    return new BucketStatistics(new int[size], new double[size], new double[size], new double[size]);
+  }
+
+  /**
+   * Returns the number of buckets described by these statistics.
+   *
+   * @return the number of buckets
+   */
+  public int size() {
+    return counts.length;
+  }
+
+  /**
+   * Returns the mean y value of the bucket at {@code bucket}.
+   *
+   * @param bucket the index of the bucket
+   * @return the mean y value of the bucket
+   */
+  public double mean(int bucket) {
+    return sums[bucket] / counts[bucket];
+  }
+
+  /**
+   * Writes the statistics of the single point with the provided {@code y} value at {@code bucket}.
+   */
+  void setPoint(int bucket, double y) {
+    set(bucket, 1, y, y, y);
+  }
+
+  void set(int bucket, int count, double min, double max, double sum) {
+    counts[bucket] = count;
+    mins[bucket] = min;
+    maxs[bucket] = max;
+    sums[bucket] = sum;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof BucketStatistics that
+        && Arrays.equals(counts, that.counts)
+        && Arrays.equals(mins, that.mins)
+        && Arrays.equals(maxs, that.maxs)
+        && Arrays.equals(sums, that.sums);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(Arrays.hashCode(counts), Arrays.hashCode(mins), Arrays.hashCode(maxs), Arrays.hashCode(sums));
+  }
+
+  @Override
+  public String toString() {
+    return "BucketStatistics[counts=" + Arrays.toString(counts) + ", mins=" + Arrays.toString(mins)
+        + ", maxs=" + Arrays.toString(maxs) + ", sums=" + Arrays.toString(sums) + "]";
+  }
+}
@@ -0,0 +1,96 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Columnar coordinates of several y channels sharing one x column, as returned by
+ * {@link LTThreeBuckets#sharedSorted}.
+ *
+ * <p>Position {@code i} of {@code xs} and of every channel holds the coordinates of the
+ * {@code i}-th point. The arrays are neither copied on construction nor on access.
+ *
+ * @param xs the x (horizontal / time) values
+ * @param ys the y (vertical / value) values of every channel
+ */
+public record ChannelColumns(double[] xs, double[][] ys) {
+
+  /**
+   * Validates that all columns are present and have the same length.
+   *
+   * @param xs the x (horizontal / time) values
+   * @param ys the y (vertical / value) values of every channel
+   */
+  public ChannelColumns {
+    Objects.requireNonNull(xs, "xs");
+    Objects.requireNonNull(ys, "ys");
+    for (int channel = 0; channel < ys.length; channel++) {
+      Objects.requireNonNull(ys[channel], "ys[" + channel + "]");
+      if (ys[channel].length != xs.length) {
+        throw new IllegalArgumentException("Columns must have the same length, got " + xs.length
+            + " xs and " + ys[channel].length + " ys in channel " + channel);
+      }
+    }
+  }
+
+  /**
+   * Builds a {@link ChannelColumns} instance by gathering the coordinates at the provided
+   * {@code indices} of the {@code xs} array and of every channel.
+   */
+  static ChannelColumns gather(double[] xs, double[][] channels, int[] indices) {
+    double[] selectedXs = new double[indices.length];
+    double[][] selectedYs = new double[channels.length][indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      selectedXs[i] = xs[indices[i]];
+      for (int channel = 0; channel < channels.length; channel++) {
+        selectedYs[channel][i] = channels[channel][indices[i]];
+      }
+    }
+    return new ChannelColumns(selectedXs, selectedYs);
+  }
+
+  /**
+   * Returns the number of points in these columns.
+   *
+   * @return the number of points in these columns
+   */
+  public int size() {
+    return xs.length;
+  }
+
+  /**
+   * Returns the number of y channels in these columns.
+   *
+   * @return the number of y channels
+   */
+  public int channelCount() {
+    return ys.length;
+  }
+
+  /**
+   * Returns the points of the channel at {@code channel} as {@link DoubleColumns}.
+   *
+   * @param channel the index of the channel
+   * @return the coordinates of the channel, sharing the arrays of these columns
+   */
+  public DoubleColumns channel(int channel) {
+    return new DoubleColumns(xs, ys[channel]);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ChannelColumns that
+        && Arrays.equals(xs, that.xs)
+        && Arrays.deepEquals(ys, that.ys);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(xs) + Arrays.deepHashCode(ys);
+  }
+
+  @Override
+  public String toString() {
+    return "ChannelColumns[xs=" + Arrays.toString(xs) + ", ys=" + Arrays.deepToString(ys) + "]";
+  }
+}
@@ -0,0 +1,230 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+
+/**
+ * Triangle selection over several y channels that share one x column and one set of bucket
+ * boundaries.
+ *
+ * <p>Every bucket is resolved for all the channels at once, one channel after the other, so the
+ * x values of the bucket are read from memory once and stay cached for the rest of the channels.
+ * Channels are either selected independently, producing the same points {@link TriangleKernel}
+ * selects for each of them, or share one selection, made of the candidate with the largest sum
+ * of areas across channels. Both use the Vector API kernel when it is available.
+ *
+ * <p>When the {@link TaskRunner} is parallel, buckets are resolved concurrently. Single large
+ * buckets are only split across threads by independent selections.
+ */
+final class ChannelKernel {
+
+  /**
+   * Number of candidates whose areas are added up at once by shared selections.
+   */
+  static final int BLOCK = 1024;
+
+  private ChannelKernel() {}
+
+  /**
+   * Returns the indices of the points selected independently from every channel of the series
+   * delimited by {@code first} and {@code last}, whose middle buckets are described by
+   * {@code bounds}.
+   *
+   * <p>Row {@code c} of the result holds the same indices {@link TriangleKernel} selects from the
+   * channel at {@code c}.
+   */
+  static int[][] selectIndependent(
+      double[] xs, double[][] channels, int first, int last, int[] bounds, SelectionMode mode, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    if (mode == SelectionMode.EXACT && runner.isParallel()) {
+      // Every channel chains its own anchors, so each one runs its own speculative chunks
+      int[][] selected = new int[channels.length][];
+      for (int channel = 0; channel < channels.length; channel++) {
+        selected[channel] = TriangleKernel.selectExact(xs, channels[channel], first, last, bounds, runner);
+      }
+      return selected;
+    }
+
+    int[][] selected = new int[channels.length][buckets + 2];
+    for (int[] indices : selected) {
+      indices[0] = first;
+      indices[buckets + 1] = last;
+    }
+    if (mode == SelectionMode.EXACT) {
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        selectInBucket(xs, channels, first, last, bounds, buckets, bucket, mode, selected, runner);
+      }
+      return selected;
+    }
+
+    // Disjoint columns of the selected arrays are written by each bucket
+    runner.forEach(
+        buckets, bucket -> selectInBucket(xs, channels, first, last, bounds, buckets, bucket, mode, selected, runner));
+    return selected;
+  }
+
+  /**
+   * Returns the indices of the points selected from the series delimited by {@code first} and
+   * {@code last}, whose middle buckets are described by {@code bounds}, with one selection shared
+   * by all channels.
+   *
+   * <p>The point of every bucket is the one with the largest sum of the areas of its triangles in
+   * all channels. Channels with wider y ranges weigh more in that sum.
+   */
+  static int[] selectShared(
+      double[] xs, double[][] channels, int first, int last, int[] bounds, SelectionMode mode, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    if (mode == SelectionMode.EXACT) {
+      return ExactSelection.select(
+          buckets,
+          first,
+          last,
+          () -> {
+            double[] scratch = scratch(channels);
+            return (bucket, anchor) ->
+                sharedInBucket(xs, channels, last, bounds, buckets, bucket, anchor, mode, scratch);
+          },
+          bucket -> bounds[bucket],
+          runner
+      );
+    }
+
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    // Buckets are resolved in contiguous chunks, each one with its own scratch space
+    int chunks = Math.min(buckets, runner.isParallel() ? 2 * runner.parallelism() : 1);
+    runner.forEach(chunks, chunk -> {
+      double[] scratch = scratch(channels);
+      int end = (int) ((long) buckets * (chunk + 1) / chunks);
+      for (int bucket = (int) ((long) buckets * chunk / chunks); bucket < end; bucket++) {
+        int anchor = bucket == 0 ? first : bounds[bucket - 1];
+        selected[bucket + 1] = sharedInBucket(xs, channels, last, bounds, buckets, bucket, anchor, mode, scratch);
+      }
+    });
+    return selected;
+  }
+
+  /**
+   * Selects the point of every channel in the middle bucket at {@code bucket}, writing them into
+   * position {@code bucket + 1} of the rows of {@code selected}.
+   *
+   * <p>In {@link SelectionMode#EXACT} mode, the triangles are anchored on the points already
+   * selected at position {@code bucket}, and on the average of the bucket at the right.
+   * Otherwise, they are anchored on the first point of the bucket at the left, and on the center
+   * of the bucket at the right.
+   */
+  private static void selectInBucket(
+      double[] xs,
+      double[][] channels,
+      int first,
+      int last,
+      int[] bounds,
+      int buckets,
+      int bucket,
+      SelectionMode mode,
+      int[][] selected,
+      TaskRunner runner) {
+    double rx = rightAnchor(xs, last, bounds, buckets, bucket, mode);
+    // Channels are searched one after the other while the x values of the bucket are still cached
+    for (int channel = 0; channel < channels.length; channel++) {
+      double[] ys = channels[channel];
+      int anchor = mode == SelectionMode.EXACT ? selected[channel][bucket] : bucket == 0 ? first : bounds[bucket - 1];
+      double ry = rightAnchor(ys, last, bounds, buckets, bucket, mode);
+      selected[channel][bucket + 1] = TriangleKernel.maxAreaIndex(
+          xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, runner);
+    }
+  }
+
+  /**
+   * Selects the point of the middle bucket at {@code bucket} with the largest sum of the areas of
+   * the triangles it forms in every channel with the point at {@code anchor} and the right anchor
+   * of {@code mode}, using the provided {@link #scratch} space.
+   */
+  private static int sharedInBucket(
+      double[] xs,
+      double[][] channels,
+      int last,
+      int[] bounds,
+      int buckets,
+      int bucket,
+      int anchor,
+      SelectionMode mode,
+      double[] scratch) {
+    int from = bounds[bucket];
+    int to = bounds[bucket + 1];
+    double lx = xs[anchor];
+    double rx = rightAnchor(xs, last, bounds, buckets, bucket, mode);
+    for (int channel = 0; channel < channels.length; channel++) {
+      scratch[BLOCK + channel] = rightAnchor(channels[channel], last, bounds, buckets, bucket, mode);
+    }
+
+    // The areas of every channel are added up block by block, in a row of the size of a block
+    int bestIndex = -1;
+    double bestArea = -1.0;
+    for (int blockFrom = from; blockFrom < to; blockFrom += BLOCK) {
+      int blockTo = Math.min(blockFrom + BLOCK, to);
+      Arrays.fill(scratch, 0, blockTo - blockFrom, 0.0);
+      for (int channel = 0; channel < channels.length; channel++) {
+        double[] ys = channels[channel];
+        double ry = scratch[BLOCK + channel];
+        if (TriangleKernel.VECTORIZED && blockTo - blockFrom >= VectorTriangleKernel.MIN_LENGTH) {
+          VectorTriangleKernel.addAreas(xs, ys, blockFrom, blockTo, lx, ys[anchor], rx, ry, scratch);
+        } else {
+          scalarAddAreas(xs, ys, blockFrom, blockTo, lx, ys[anchor], rx, ry, scratch);
+        }
+      }
+      for (int i = 0; i < blockTo - blockFrom; i++) {
+        if (scratch[i] > bestArea) {
+          bestArea = scratch[i];
+          bestIndex = blockFrom + i;
+        }
+      }
+    }
+
+    if (bestIndex < 0) {
+      throw new IllegalStateException("Can't obtain max area triangle");
+    }
+    return bestIndex;
+  }
+
+  /**
+   * Returns new scratch space for shared selections over the provided {@code channels}: the added
+   * areas of a block of candidates, followed by the y coordinate of the right anchor of every
+   * channel. It is allocated once per task, and reused by every bucket the task resolves.
+   */
+  private static double[] scratch(double[][] channels) {
+    return new double[BLOCK + channels.length];
+  }
+
+  /**
+   * Scalar implementation of {@link VectorTriangleKernel#addAreas}.
+   */
+  static void scalarAddAreas(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry, double[] areas) {
+    for (int i = from; i < to; i++) {
+      areas[i - from] += Math.abs(lx * (ys[i] - ry) + xs[i] * (ry - ly) + rx * (ly - ys[i])) / 2.0;
+    }
+  }
+
+  /**
+   * Returns the coordinate in {@code values} of the right anchor of the middle bucket at
+   * {@code bucket}: the last point for the last bucket, and otherwise the average of the next
+   * bucket in {@link SelectionMode#EXACT} mode, or the center of its first and last points.
+   */
+  private static double rightAnchor(
+      double[] values, int last, int[] bounds, int buckets, int bucket, SelectionMode mode) {
+    if (bucket == buckets - 1) {
+      return values[last];
+    }
+    int rightFirst = bounds[bucket + 1];
+    int rightEnd = bounds[bucket + 2];
+    if (mode != SelectionMode.EXACT) {
+      return (values[rightFirst] + values[rightEnd - 1]) / 2.0;
+    }
+    double sum = 0;
+    for (int i = rightFirst; i < rightEnd; i++) {
+      sum += values[i];
+    }
+    return sum / (rightEnd - rightFirst);
+  }
+}
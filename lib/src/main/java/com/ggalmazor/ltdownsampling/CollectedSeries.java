@@ -0,0 +1,116 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Growable columns of the points of a series, filled one point at a time by the stream and
+ * reactive integrations of {@link Downsampler}.
+ *
+ * <p>Coordinates are stored in primitive columns, ready for the index-range kernel. References
+ * are only kept for points that aren't {@link DoublePoint} instances: {@link DoublePoint} is a
+ * record, so the selected ones are recreated from their coordinates, and the collected ones can
+ * be reclaimed as soon as they are added. Series of other points keep both their references and
+ * their coordinates.
+ *
+ * @param <T> the type of the {@link Point} points of the series
+ */
+final class CollectedSeries<T extends Point> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private double[] xs = new double[INITIAL_CAPACITY];
+  private double[] ys = new double[INITIAL_CAPACITY];
+  // Allocated with the first point that isn't a DoublePoint. Null elements are DoublePoint ones
+  private Object[] points;
+  private int size;
+
+  /**
+   * Appends the provided {@code point} to the series.
+   */
+  void add(T point) {
+    ensureCapacity(size + 1);
+    xs[size] = point.x();
+    ys[size] = point.y();
+    if (!(point instanceof DoublePoint)) {
+      if (points == null) {
+        points = new Object[xs.length];
+      }
+      points[size] = point;
+    }
+    size++;
+  }
+
+  /**
+   * Appends the points of the {@code other} series, which follow the points of this one, and
+   * returns this series.
+   */
+  CollectedSeries<T> addAll(CollectedSeries<T> other) {
+    ensureCapacity(size + other.size);
+    System.arraycopy(other.xs, 0, xs, size, other.size);
+    System.arraycopy(other.ys, 0, ys, size, other.size);
+    if (other.points != null) {
+      if (points == null) {
+        points = new Object[xs.length];
+      }
+      System.arraycopy(other.points, 0, points, size, other.size);
+    }
+    size += other.size;
+    return this;
+  }
+
+  /**
+   * Returns the number of points in the series.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the points selected by the {@code downsampler} from this series.
+   */
+  List<T> downsample(Downsampler downsampler, int desiredBuckets) {
+    return gather(downsampler.indices(xs, ys, 0, size, desiredBuckets));
+  }
+
+  /**
+   * Returns all the points of this series.
+   */
+  List<T> points() {
+    int[] all = new int[size];
+    Arrays.setAll(all, i -> i);
+    return gather(all);
+  }
+
+  /**
+   * Removes all the points of this series, keeping its capacity.
+   */
+  void clear() {
+    if (points != null) {
+      Arrays.fill(points, 0, size, null);
+    }
+    size = 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<T> gather(int[] indices) {
+    List<T> output = new ArrayList<>(indices.length);
+    for (int index : indices) {
+      Object point = points == null ? null : points[index];
+      // Null references only stand for DoublePoint instances, which are instances of T
+      output.add(point == null ? (T) new DoublePoint(xs[index], ys[index]) : (T) point);
+    }
+    return output;
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > xs.length) {
+      int newCapacity = Math.max(capacity, xs.length + (xs.length >> 1));
+      xs = Arrays.copyOf(xs, newCapacity);
+      ys = Arrays.copyOf(ys, newCapacity);
+      if (points != null) {
+        points = Arrays.copyOf(points, newCapacity);
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Columnar {@code (x, y)} coordinates, as returned by the primitive-array overloads of
+ * {@link LTThreeBuckets#sorted}.
+ *
+ * <p>Both arrays have the same length. Position {@code i} of each array holds the coordinates of
+ * the {@code i}-th point. The arrays are neither copied on construction nor on access.
+ *
+ * @param xs the x (horizontal / time) values
+ * @param ys the y (vertical / value) values
+ */
+public record DoubleColumns(double[] xs, double[] ys) {
+
+  /**
+   * Validates that both columns are present and have the same length.
+   *
+   * @param xs the x (horizontal / time) values
+   * @param ys the y (vertical / value) values
+   */
+  public DoubleColumns {
+    Objects.requireNonNull(xs, "xs");
+    Objects.requireNonNull(ys, "ys");
+    if (xs.length != ys.length) {
+      throw new IllegalArgumentException(
+          "Columns must have the same length, got " + xs.length + " xs and " + ys.length + " ys");
+    }
+  }
+
+  /**
+   * Extracts the coordinates of every element of the provided {@code input} list into new
+   * columns, reading them with the provided accessors.
+   *
+   * <p>Useful to downsample a list of domain objects several times, or with the primitive-array
+   * methods of {@link LTThreeBuckets}, without wrapping each element in a {@link Point}. Elements
+   * are read in iteration order, once each.
+   *
+   * @param input the input list
+   * @param x     returns the x (horizontal / time) value of an element
+   * @param y     returns the y (vertical / value) value of an element
+   * @param <T>   the type of the elements in the input list
+   * @return the coordinates of the elements, at their positions in the input list
+   */
+  public static <T> DoubleColumns from(List<T> input, ToDoubleFunction<? super T> x, ToDoubleFunction<? super T> y) {
+    Objects.requireNonNull(x, "x");
+    Objects.requireNonNull(y, "y");
+    int size = input.size();
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    int i = 0;
+    for (T element : input) {
+      xs[i] = x.applyAsDouble(element);
+      ys[i] = y.applyAsDouble(element);
+      i++;
+    }
+    return new DoubleColumns(xs, ys);
+  }
+
+  /**
+   * Builds a {@link DoubleColumns} instance by gathering the coordinates at the provided
+   * {@code indices} of the {@code xs} and {@code ys} arrays.
+   */
+  static DoubleColumns gather(double[] xs, double[] ys, int[] indices) {
+    double[] selectedXs = new double[indices.length];
+    double[] selectedYs = new double[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      selectedXs[i] = xs[indices[i]];
+      selectedYs[i] = ys[indices[i]];
+    }
+    return new DoubleColumns(selectedXs, selectedYs);
+  }
+
+  /**
+   * Builds a {@link DoubleColumns} instance by gathering the coordinates at the provided
+   * {@code positions} of the {@code series}.
+   */
+  static DoubleColumns gather(PositionalSeries series, long[] positions) {
+    double[] selectedXs = new double[positions.length];
+    double[] selectedYs = new double[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      selectedXs[i] = series.x(positions[i]);
+      selectedYs[i] = series.y(positions[i]);
+    }
+    return new DoubleColumns(selectedXs, selectedYs);
+  }
+
+  /**
+   * Returns a {@link PositionalSeries} view of these columns.
+   */
+  PositionalSeries positional() {
+    return new PositionalSeries() {
+      @Override
+      public long size() {
+        return xs.length;
+      }
+
+      @Override
+      public double x(long position) {
+        return xs[(int) position];
+      }
+
+      @Override
+      public double y(long position) {
+        return ys[(int) position];
+      }
+    };
+  }
+
+  /**
+   * Returns the number of points in these columns.
+   *
+   * @return the number of points in these columns
+   */
+  public int size() {
+    return xs.length;
+  }
+
+  /**
+   * Returns the point at the provided {@code index} as a {@link DoublePoint}.
+   *
+   * @param index the position of the point
+   * @return the point at the provided {@code index}
+   */
+  public DoublePoint get(int index) {
+    return new DoublePoint(xs[index], ys[index]);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof DoubleColumns that
+        && Arrays.equals(xs, that.xs)
+        && Arrays.equals(ys, that.ys);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(xs) + Arrays.hashCode(ys);
+  }
+
+  @Override
+  public String toString() {
+    return "DoubleColumns[xs=" + Arrays.toString(xs) + ", ys=" + Arrays.toString(ys) + "]";
+  }
+}
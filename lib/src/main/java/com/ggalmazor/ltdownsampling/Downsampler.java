@@ -0,0 +1,1179 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collector;
+
+/**
+ * A configurable Largest-Triangle Three-Buckets downsampler.
+ *
+ * <p>The static methods of {@link LTThreeBuckets} use the default configuration: the
+ * {@link BucketizationStrategy#DYNAMIC} strategy, the {@link SelectionMode#INDEPENDENT} mode,
+ * the {@link ParallelismPolicy#costBased()} policy, and the common {@link ForkJoinPool}. Use this
+ * class to change any of them, for instance to keep downsampling work away from the common pool:
+ *
+ * <pre>{@code
+ * Downsampler downsampler = Downsampler.create()
+ *     .withExecutor(Executors.newVirtualThreadPerTaskExecutor(), 8)
+ *     .withParallelismPolicy(ParallelismPolicy.costBased(1_000_000));
+ * List<DoublePoint> output = downsampler.sorted(input, 200);
+ * }</pre>
+ *
+ * <p>Instances are immutable and thread-safe: every {@code with} method returns a new instance.
+ * None of the methods in this class will mutate input lists, arrays, or their elements.
+ */
+public final class Downsampler {
+  private static final Downsampler DEFAULT = new Downsampler(
+      BucketizationStrategy.DYNAMIC,
+      SelectionMode.INDEPENDENT,
+      ParallelismPolicy.costBased(),
+      null,
+      0
+  );
+
+  private final BucketizationStrategy strategy;
+  private final SelectionMode mode;
+  private final ParallelismPolicy policy;
+  private final Executor executor;
+  private final int parallelism;
+
+  private Downsampler(
+      BucketizationStrategy strategy,
+      SelectionMode mode,
+      ParallelismPolicy policy,
+      Executor executor,
+      int parallelism) {
+    this.strategy = strategy;
+    this.mode = mode;
+    this.policy = policy;
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Returns a downsampler with the default configuration.
+   *
+   * @return a downsampler with the default configuration
+   */
+  public static Downsampler create() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns a copy of this downsampler that uses the provided {@link BucketizationStrategy}.
+   *
+   * @param strategy the bucketization strategy to use
+   * @return a new downsampler
+   */
+  public Downsampler withStrategy(BucketizationStrategy strategy) {
+    return new Downsampler(Objects.requireNonNull(strategy, "strategy"), mode, policy, executor, parallelism);
+  }
+
+  /**
+   * Returns a copy of this downsampler that uses the provided {@link SelectionMode}.
+   *
+   * @param mode the selection mode to use
+   * @return a new downsampler
+   */
+  public Downsampler withSelectionMode(SelectionMode mode) {
+    return new Downsampler(strategy, Objects.requireNonNull(mode, "mode"), policy, executor, parallelism);
+  }
+
+  /**
+   * Returns a copy of this downsampler that uses the provided {@link ParallelismPolicy} to
+   * decide whether each request runs in parallel.
+   *
+   * @param policy the parallelism policy to use
+   * @return a new downsampler
+   */
+  public Downsampler withParallelismPolicy(ParallelismPolicy policy) {
+    return new Downsampler(strategy, mode, Objects.requireNonNull(policy, "policy"), executor, parallelism);
+  }
+
+  /**
+   * Returns a copy of this downsampler that runs parallel requests on the provided
+   * {@link ForkJoinPool}, using as many threads as its {@link ForkJoinPool#getParallelism()}.
+   *
+   * @param pool the pool that runs parallel requests
+   * @return a new downsampler
+   */
+  public Downsampler withExecutor(ForkJoinPool pool) {
+    return withExecutor(pool, pool.getParallelism());
+  }
+
+  /**
+   * Returns a copy of this downsampler that runs parallel requests on the provided
+   * {@link Executor}, using up to {@code parallelism} threads at the same time, the calling
+   * thread included.
+   *
+   * <p>Any executor is supported, including virtual-thread and bounded thread-pool executors. The
+   * calling thread takes part in the work and never waits for tasks that haven't started, so a
+   * saturated executor slows requests down without blocking them. A {@code parallelism} of
+   * {@code 1} runs every request in the calling thread.
+   *
+   * @param executor    the executor that runs parallel requests
+   * @param parallelism the maximum number of threads working on a request
+   * @return a new downsampler
+   * @throws IllegalArgumentException when {@code parallelism} is lower than 1
+   */
+  public Downsampler withExecutor(Executor executor, int parallelism) {
+    Objects.requireNonNull(executor, "executor");
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+    }
+    return new Downsampler(strategy, mode, policy, executor, parallelism);
+  }
+
+  /**
+   * Returns a downsampled version of the provided {@code input} list.
+   *
+   * <p>The input list must be sorted by {@link Point#x()}. See
+   * {@link LTThreeBuckets#sorted(List, int, BucketizationStrategy, SelectionMode)} for details on
+   * the output.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output list
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the downsampled output list
+   */
+  public <T extends Point> List<T> sorted(List<T> input, int desiredBuckets) {
+    return sorted(input, input.size(), desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of the provided {@code input} list, split into the buckets
+   * described by the provided {@link BucketPlan}. The {@link BucketizationStrategy} of this
+   * downsampler is not used.
+   *
+   * @param input the input list of {@link Point} points to downsample
+   * @param plan  the bucket plan of the input list
+   * @param <T>   the type of the {@link Point} elements in the input list
+   * @return the downsampled output list, with {@code plan.bucketCount() + 2} points
+   * @throws IllegalArgumentException when the size of the input list doesn't match the plan
+   */
+  public <T extends Point> List<T> sorted(List<T> input, BucketPlan plan) {
+    checkSize(input.size(), plan);
+    TaskRunner runner = runnerFor(plan.size(), plan.bucketCount());
+    if (isDoublePoints(input)) {
+      DoubleColumns columns = coordinates(input);
+      return gather(input, select(columns.xs(), columns.ys(), 0, input.size() - 1, plan.boundaries(0), runner));
+    }
+    return sortedBuckets(OnePassBucketizer.bucketize(input, plan), runner);
+  }
+
+  /**
+   * Shared entry point of the {@code sorted} methods that take a list of points. As in
+   * {@link OnePassBucketizer#bucketize}, {@code inputSize} bounds the middle buckets of the
+   * {@link BucketizationStrategy#DYNAMIC} strategy, while the last point of the input list is
+   * always the last point of the output.
+   */
+  <T extends Point> List<T> sorted(List<T> input, int inputSize, int desiredBuckets) {
+    TaskRunner runner = runnerFor(input.size(), desiredBuckets);
+
+    // Struct-of-arrays fast path: one extraction pass, then the index-range kernel
+    if (isDoublePoints(input)) {
+      DoubleColumns columns = coordinates(input);
+      int bucketizedSize = strategy == BucketizationStrategy.DYNAMIC ? inputSize : input.size();
+      int[] bounds =
+          OnePassBucketizer.boundaries(columns.xs(), 0, bucketizedSize, desiredBuckets, strategy, mode, runner);
+      return gather(input, select(columns.xs(), columns.ys(), 0, input.size() - 1, bounds, runner));
+    }
+
+    return sortedBuckets(OnePassBucketizer.bucketize(input, inputSize, desiredBuckets, strategy, mode), runner);
+  }
+
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive).
+   *
+   * <p>The series must be sorted by x value. See
+   * {@link LTThreeBuckets#sorted(double[], double[], int, int, int)} for details on the output.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public DoubleColumns sorted(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    return DoubleColumns.gather(xs, ys, indices(xs, ys, offset, length, desiredBuckets));
+  }
+
+  /**
+   * Returns a downsampled version of the series of {@code plan.size()} points held in the parallel
+   * {@code xs} and {@code ys} arrays from {@code offset}, split into the buckets described by the
+   * provided {@link BucketPlan}. The {@link BucketizationStrategy} of this downsampler is not
+   * used.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @return the coordinates of the downsampled output, with {@code plan.bucketCount() + 2} points
+   */
+  public DoubleColumns sorted(double[] xs, double[] ys, int offset, BucketPlan plan) {
+    return DoubleColumns.gather(xs, ys, indices(xs, ys, offset, plan));
+  }
+
+  /**
+   * Returns a downsampled version of the series stored in {@link java.lang.foreign.MemorySegment}
+   * memory, reading the coordinates in place.
+   *
+   * <p>The series must be sorted by x value. Only the coordinates of the selected points are copied
+   * to the heap.
+   *
+   * @param series         the input series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public DoubleColumns sorted(SegmentSeries series, int desiredBuckets) {
+    return DoubleColumns.gather(series, indices(series, desiredBuckets));
+  }
+
+  /**
+   * Returns a downsampled version of a {@link SeriesBuffer.Snapshot}, reading the coordinates in
+   * place.
+   *
+   * <p>Only the coordinates of the selected points are copied.
+   *
+   * @param snapshot       the input series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public DoubleColumns sorted(SeriesBuffer.Snapshot snapshot, int desiredBuckets) {
+    return DoubleColumns.gather(snapshot, indices(snapshot, desiredBuckets));
+  }
+
+  /**
+   * Returns a downsampled version of the provided {@code input} list of elements of any type,
+   * reading their coordinates with the provided accessors.
+   *
+   * <p>The input list must be sorted by x value. The coordinates are extracted once into
+   * primitive columns, so no {@link Point} is allocated per element, and the selected elements
+   * are the same ones {@link #sorted(List, int)} would return for points with those coordinates.
+   *
+   * @param input          the input list of elements to downsample
+   * @param x              returns the x (horizontal / time) value of an element
+   * @param y              returns the y (vertical / value) value of an element
+   * @param desiredBuckets the desired number of buckets for the downsampled output list
+   * @param <T>            the type of the elements in the input list
+   * @return the downsampled output list
+   */
+  public <T> List<T> sorted(
+      List<T> input, ToDoubleFunction<? super T> x, ToDoubleFunction<? super T> y, int desiredBuckets) {
+    return gather(input, indices(input, x, y, desiredBuckets));
+  }
+
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), together with
+   * the statistics of the bucket of every selected point.
+   *
+   * <p>The points are the same ones {@link #sorted(double[], double[], int, int, int)} returns.
+   * The count, lowest, highest and sum of the y values of every bucket are accumulated by the loop
+   * that searches its max-area point, so the series is only read once. Sums computed with the
+   * Vector API kernel add the values in a different order than the scalar loop, and may differ
+   * from it by rounding errors.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output and the statistics of their buckets
+   */
+  public SummarizedColumns summarized(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, runner);
+    int last = offset + length - 1;
+    BucketStatistics statistics = BucketStatistics.of(bounds.length + 1);
+    int[] selected = TriangleKernel.selectSummarized(xs, ys, offset, last, bounds, mode, statistics, runner);
+    statistics.setPoint(0, ys[offset]);
+    statistics.setPoint(bounds.length, ys[last]);
+    return new SummarizedColumns(DoubleColumns.gather(xs, ys, selected), statistics);
+  }
+
+  /**
+   * Returns a downsampled version of every channel of a multi-channel series, made of one
+   * {@code xs} column shared by several {@code channels} of y values, from {@code offset}
+   * (inclusive) to {@code offset + length} (exclusive).
+   *
+   * <p>Each channel gets the same points {@link #sorted(double[], double[], int, int, int)} would
+   * return for it, but the series is bucketized once and every bucket is scanned once for all
+   * the channels. See {@link #sharedSorted} to select the same points in every channel.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output of every channel, in channel order
+   * @throws IllegalArgumentException when there are no channels
+   */
+  public List<DoubleColumns> channelSorted(
+      double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    int[][] selected = channelIndices(xs, channels, offset, length, desiredBuckets);
+    List<DoubleColumns> results = new ArrayList<>(channels.length);
+    for (int channel = 0; channel < channels.length; channel++) {
+      results.add(DoubleColumns.gather(xs, channels[channel], selected[channel]));
+    }
+    return results;
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of every channel of
+   * a multi-channel series. See {@link #channelSorted} for details.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points of every channel, in channel order
+   * @throws IllegalArgumentException when there are no channels
+   */
+  public int[][] channelIndices(double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    checkChannels(xs, channels, offset, length);
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, runner);
+    return ChannelKernel.selectIndependent(xs, channels, offset, offset + length - 1, bounds, mode, runner);
+  }
+
+  /**
+   * Returns a downsampled version of a multi-channel series, made of one {@code xs} column shared
+   * by several {@code channels} of y values, with the same points selected in every channel.
+   *
+   * <p>The point of every bucket is the one whose triangles have the largest sum of areas across
+   * all channels, so that the output keeps one x column, as OHLC bars or latency percentiles
+   * need. Channels with wider y ranges weigh more in that sum: scale them to comparable ranges
+   * when they should weigh the same.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output, sharing one x column
+   * @throws IllegalArgumentException when there are no channels
+   */
+  public ChannelColumns sharedSorted(double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    return ChannelColumns.gather(xs, channels, sharedIndices(xs, channels, offset, length, desiredBuckets));
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of a multi-channel
+   * series, with the same points selected in every channel. See {@link #sharedSorted} for details.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points in the input arrays
+   * @throws IllegalArgumentException when there are no channels
+   */
+  public int[] sharedIndices(double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    checkChannels(xs, channels, offset, length);
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, runner);
+    return ChannelKernel.selectShared(xs, channels, offset, offset + length - 1, bounds, mode, runner);
+  }
+
+  /**
+   * Returns a downsampled version of every series of a batch, in the iteration order of the
+   * provided collection.
+   *
+   * <p>Each series gets the same points {@link #sorted(double[], double[], int, int, int)} would
+   * return for it, but the whole batch is scheduled on this downsampler's executor at once. See
+   * {@link #indicesAll(Collection, int)} for details.
+   *
+   * @param series         the series to downsample, each one sorted by x value
+   * @param desiredBuckets the desired number of buckets for every downsampled output
+   * @return the coordinates of the downsampled output of every series, in iteration order
+   */
+  public List<DoubleColumns> sortedAll(Collection<DoubleColumns> series, int desiredBuckets) {
+    DoubleColumns[] inputs = series.toArray(new DoubleColumns[0]);
+    List<int[]> selected = indicesAll(Arrays.asList(inputs), desiredBuckets);
+    List<DoubleColumns> results = new ArrayList<>(inputs.length);
+    for (int i = 0; i < inputs.length; i++) {
+      results.add(DoubleColumns.gather(inputs[i].xs(), inputs[i].ys(), selected.get(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of every series of
+   * a batch, in the iteration order of the provided collection.
+   *
+   * <p>The {@link ParallelismPolicy} decides whether the batch runs in parallel from its total
+   * number of points and buckets, so batches of many small series are parallel too. The batch is
+   * then split into tasks of comparable estimated work: light series are grouped, and heavy ones
+   * are split across the executor, whose threads steal their pieces when they run out of tasks.
+   * The latency of a batch tracks its total work rather than its longest series, and the
+   * executor never receives more than one batch worth of threads.
+   *
+   * @param series         the series to downsample, each one sorted by x value
+   * @param desiredBuckets the desired number of buckets for every downsampled output
+   * @return the ascending positions of the selected points of every series, in iteration order
+   * @throws IllegalArgumentException when a series can't be split into {@code desiredBuckets}
+   *     buckets, as with {@link #indices(double[], double[], int, int, int)}
+   */
+  public List<int[]> indicesAll(Collection<DoubleColumns> series, int desiredBuckets) {
+    DoubleColumns[] inputs = series.toArray(new DoubleColumns[0]);
+    long[] work = new long[inputs.length];
+    long points = 0;
+    for (int i = 0; i < inputs.length; i++) {
+      work[i] = ParallelismPolicy.estimatedWork(inputs[i].size(), desiredBuckets);
+      points += inputs[i].size();
+    }
+    TaskRunner runner = runnerFor(
+        (int) Math.min(points, Integer.MAX_VALUE),
+        (int) Math.min((long) desiredBuckets * inputs.length, Integer.MAX_VALUE)
+    );
+
+    int[][] selected = new int[inputs.length][];
+    BatchSchedule schedule = BatchSchedule.of(work, runner.parallelism());
+    runner.forEach(schedule.taskCount(), task -> {
+      TaskRunner seriesRunner = schedule.isSplit(task) ? runner : TaskRunner.SEQUENTIAL;
+      for (int i : schedule.task(task)) {
+        double[] xs = inputs[i].xs();
+        int[] bounds = OnePassBucketizer.boundaries(xs, 0, xs.length, desiredBuckets, strategy, mode, seriesRunner);
+        selected[i] = select(xs, inputs[i].ys(), 0, xs.length - 1, bounds, seriesRunner);
+      }
+    });
+    return Arrays.asList(selected);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version.
+   *
+   * <p>The selected points are the same ones {@link #sorted(List, int)} would return, in the
+   * same order.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   */
+  public <T extends Point> int[] indices(List<T> input, int desiredBuckets) {
+    TaskRunner runner = runnerFor(input.size(), desiredBuckets);
+    if (isDoublePoints(input)) {
+      DoubleColumns columns = coordinates(input);
+      int[] bounds =
+          OnePassBucketizer.boundaries(columns.xs(), 0, input.size(), desiredBuckets, strategy, mode, runner);
+      return select(columns.xs(), columns.ys(), 0, input.size() - 1, bounds, runner);
+    }
+    return selectIndices(OnePassBucketizer.bucketize(input, input.size(), desiredBuckets, strategy, mode), runner);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version, split into the buckets described by the provided {@link BucketPlan}.
+   *
+   * @param input the input list of {@link Point} points to downsample
+   * @param plan  the bucket plan of the input list
+   * @param <T>   the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   * @throws IllegalArgumentException when the size of the input list doesn't match the plan
+   */
+  public <T extends Point> int[] indices(List<T> input, BucketPlan plan) {
+    checkSize(input.size(), plan);
+    TaskRunner runner = runnerFor(plan.size(), plan.bucketCount());
+    if (isDoublePoints(input)) {
+      DoubleColumns columns = coordinates(input);
+      return select(columns.xs(), columns.ys(), 0, input.size() - 1, plan.boundaries(0), runner);
+    }
+    return selectIndices(OnePassBucketizer.bucketize(input, plan), runner);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive).
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public int[] indices(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, runner);
+    return select(xs, ys, offset, offset + length - 1, bounds, runner);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series of {@code plan.size()} points starting at {@code offset},
+   * split into the buckets described by the provided {@link BucketPlan}.
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public int[] indices(double[] xs, double[] ys, int offset, BucketPlan plan) {
+    Objects.checkFromIndexSize(offset, plan.size(), xs.length);
+    Objects.checkFromIndexSize(offset, plan.size(), ys.length);
+    TaskRunner runner = runnerFor(plan.size(), plan.bucketCount());
+    return select(xs, ys, offset, offset + plan.size() - 1, plan.boundaries(offset), runner);
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of the series stored
+   * in {@link java.lang.foreign.MemorySegment} memory.
+   *
+   * <p>The selected points are the same ones {@link #indices(double[], double[], int, int, int)}
+   * would select from the same coordinates held in arrays. Series over segments that other threads
+   * can't access are downsampled in the calling thread, regardless of the
+   * {@link ParallelismPolicy}.
+   *
+   * @param series         the input series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points in the series
+   */
+  public long[] indices(SegmentSeries series, int desiredBuckets) {
+    TaskRunner runner = series.isShared()
+        ? runnerFor((int) Math.min(series.size(), Integer.MAX_VALUE), desiredBuckets)
+        : TaskRunner.SEQUENTIAL;
+    return SegmentKernel.select(series, desiredBuckets, strategy, mode, runner);
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of a
+   * {@link SeriesBuffer.Snapshot}.
+   *
+   * <p>The selected points are the same ones {@link #indices(double[], double[], int, int, int)}
+   * would select from the same coordinates held in arrays.
+   *
+   * @param snapshot       the input series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points in the snapshot
+   */
+  public long[] indices(SeriesBuffer.Snapshot snapshot, int desiredBuckets) {
+    TaskRunner runner = runnerFor((int) Math.min(snapshot.size(), Integer.MAX_VALUE), desiredBuckets);
+    return SegmentKernel.select(snapshot, desiredBuckets, strategy, mode, runner);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the elements that make up its
+   * downsampled version, reading their coordinates with the provided accessors.
+   *
+   * <p>The selected elements are the same ones
+   * {@link #sorted(List, ToDoubleFunction, ToDoubleFunction, int)} would return, in the same
+   * order.
+   *
+   * @param input          the input list of elements, sorted by x value
+   * @param x              returns the x (horizontal / time) value of an element
+   * @param y              returns the y (vertical / value) value of an element
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param <T>            the type of the elements in the input list
+   * @return the ascending positions of the selected elements in the input list
+   */
+  public <T> int[] indices(
+      List<T> input, ToDoubleFunction<? super T> x, ToDoubleFunction<? super T> y, int desiredBuckets) {
+    DoubleColumns columns = DoubleColumns.from(input, x, y);
+    return indices(columns.xs(), columns.ys(), 0, columns.size(), desiredBuckets);
+  }
+
+  /**
+   * Buffer-reusing counterpart of {@link #indices(double[], double[], int, int, int)}, used by
+   * {@link DownsamplingWorkspace}. Writes the selected positions into {@code selected}, using
+   * {@code bounds} as scratch space, and returns how many were written.
+   *
+   * <p>Both arrays must hold at least {@code desiredBuckets + 2} elements.
+   */
+  int indices(double[] xs, double[] ys, int offset, int length, int desiredBuckets, int[] bounds, int[] selected) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int buckets = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, bounds, runner);
+    return select(xs, ys, offset, offset + length - 1, bounds, buckets, selected, runner);
+  }
+
+  /**
+   * Buffer-reusing counterpart of {@link #indices(double[], double[], int, BucketPlan)}, used by
+   * {@link DownsamplingWorkspace}. Writes the selected positions into {@code selected}, using
+   * {@code bounds} as scratch space, and returns how many were written.
+   *
+   * <p>Both arrays must hold at least {@code plan.bucketCount() + 2} elements.
+   */
+  int indices(double[] xs, double[] ys, int offset, BucketPlan plan, int[] bounds, int[] selected) {
+    Objects.checkFromIndexSize(offset, plan.size(), xs.length);
+    Objects.checkFromIndexSize(offset, plan.size(), ys.length);
+    int buckets = plan.bucketCount();
+    TaskRunner runner = runnerFor(plan.size(), buckets);
+    return select(xs, ys, offset, offset + plan.size() - 1, plan.boundaries(offset, bounds), buckets, selected, runner);
+  }
+
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), using the
+   * two-stage MinMaxLTTB algorithm. See
+   * {@link #minMaxIndices(double[], double[], int, int, int, int)} for details.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param ratio          the number of preselected points per bucket, usually between 4 and 8
+   * @return the coordinates of the downsampled output
+   * @throws IllegalArgumentException when {@code ratio} is lower than 2
+   */
+  public DoubleColumns minMaxSorted(double[] xs, double[] ys, int offset, int length, int desiredBuckets, int ratio) {
+    return DoubleColumns.gather(xs, ys, minMaxIndices(xs, ys, offset, length, desiredBuckets, ratio));
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * MinMaxLTTB downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive).
+   *
+   * <p>The middle points are first split into {@code ratio * desiredBuckets / 2} partitions with
+   * the configured {@link BucketizationStrategy}, and only the points with the lowest and highest
+   * y values of each partition are kept. The partitions are scanned in parallel when the
+   * {@link ParallelismPolicy} allows it. The survivors are then downsampled as
+   * {@link #indices(double[], double[], int, int, int)} does, so that the cost of LTTB no longer
+   * depends on the length of the series. Extreme values are always among the candidates, and the
+   * output is usually very close to the one of plain LTTB. Series of at most
+   * {@code ratio * desiredBuckets + 2} points are downsampled with plain LTTB.
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param ratio          the number of preselected points per bucket, usually between 4 and 8
+   * @return the ascending positions of the selected points in the input arrays
+   * @throws IllegalArgumentException when {@code ratio} is lower than 2
+   */
+  public int[] minMaxIndices(double[] xs, double[] ys, int offset, int length, int desiredBuckets, int ratio) {
+    if (ratio < 2) {
+      throw new IllegalArgumentException("MinMaxLTTB needs at least 2 points per bucket, got " + ratio);
+    }
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    long partitions = (long) ratio * desiredBuckets / 2;
+    if (length <= 2 * partitions + 2) {
+      return indices(xs, ys, offset, length, desiredBuckets);
+    }
+
+    TaskRunner runner = runnerFor(length, (int) partitions);
+    int[] survivors = MinMaxPreselection.survivors(xs, ys, offset, length, (int) partitions, strategy, runner);
+    DoubleColumns preselected = DoubleColumns.gather(xs, ys, survivors);
+    int[] selected = indices(preselected.xs(), preselected.ys(), 0, survivors.length, desiredBuckets);
+    for (int i = 0; i < selected.length; i++) {
+      selected[i] = survivors[selected[i]];
+    }
+    return selected;
+  }
+
+  /**
+   * Returns the M4 aggregation of the provided {@code input} list. See
+   * {@link #m4Indices(double[], double[], int, int, int)} for details.
+   *
+   * @param input  the input list of {@link Point} points, sorted by {@link Point#x()}
+   * @param pixels the width of the chart, used as the number of columns
+   * @param <T>    the type of the {@link Point} elements in the input list
+   * @return the downsampled output list, with up to {@code 4 * pixels + 2} points
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public <T extends Point> List<T> m4Sorted(List<T> input, int pixels) {
+    return gather(input, m4Indices(input, pixels));
+  }
+
+  /**
+   * Returns the M4 aggregation of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive). See
+   * {@link #m4Indices(double[], double[], int, int, int)} for details.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param length the number of points in the series
+   * @param pixels the width of the chart, used as the number of columns
+   * @return the coordinates of the downsampled output, with up to {@code 4 * pixels + 2} points
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public DoubleColumns m4Sorted(double[] xs, double[] ys, int offset, int length, int pixels) {
+    return DoubleColumns.gather(xs, ys, m4Indices(xs, ys, offset, length, pixels));
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points of its M4 aggregation.
+   * See {@link #m4Indices(double[], double[], int, int, int)} for details.
+   *
+   * @param input  the input list of {@link Point} points, sorted by {@link Point#x()}
+   * @param pixels the width of the chart, used as the number of columns
+   * @param <T>    the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public <T extends Point> int[] m4Indices(List<T> input, int pixels) {
+    DoubleColumns columns = DoubleColumns.from(input, Point::x, Point::y);
+    return m4Indices(columns.xs(), columns.ys(), 0, input.size(), pixels);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points of the
+   * {@link M4} aggregation of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive).
+   *
+   * <p>Columns always span equal x-intervals, so the {@link BucketizationStrategy} and
+   * {@link SelectionMode} of this configuration are not used. Columns are scanned in parallel when
+   * the {@link ParallelismPolicy} allows it. Positions are absolute indices in the input arrays,
+   * not relative to {@code offset}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param length the number of points in the series
+   * @param pixels the width of the chart, used as the number of columns
+   * @return the ascending positions of the selected points in the input arrays
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public int[] m4Indices(double[] xs, double[] ys, int offset, int length, int pixels) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    if (pixels < 1) {
+      throw new IllegalArgumentException("M4 needs at least 1 pixel, got " + pixels);
+    }
+    if (length <= 2) {
+      int[] all = new int[length];
+      for (int i = 0; i < length; i++) {
+        all[i] = offset + i;
+      }
+      return all;
+    }
+    return M4.select(xs, ys, offset, length, pixels, runnerFor(length, pixels));
+  }
+
+  /**
+   * Returns the same positions as {@link #indices(double[], double[], int, int, int)} for a series
+   * that only grew at its end, reusing the selections of a previous result that the appended
+   * points can't have changed.
+   *
+   * <p>The series must hold the same {@code previousLength} points it held when {@code previous}
+   * was produced by this configuration, followed by the appended ones. With the
+   * {@link BucketizationStrategy#DYNAMIC} strategy, appending points only moves the boundaries of
+   * the buckets after the ones that absorb the remainder of the split, until the bucket size
+   * grows. The leading buckets whose boundaries and anchors didn't move keep their selected
+   * points, and only the rest are selected again. In {@link SelectionMode#EXACT} mode, the
+   * reference layout spreads the remainder along the series, so fewer buckets keep their
+   * boundaries. {@link BucketizationStrategy#FIXED} buckets stretch with the x range of the
+   * series, so they are always selected again. When fewer than half the buckets can be reused,
+   * the whole series is downsampled as usual.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series, including the appended ones
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param previous       the positions selected when the series had {@code previousLength} points
+   * @param previousLength the number of points of the series when {@code previous} was selected
+   * @return the ascending positions of the selected points in the input arrays
+   * @throws IllegalArgumentException when {@code previousLength} is greater than {@code length}
+   */
+  public int[] indicesAfterAppend(
+      double[] xs, double[] ys, int offset, int length, int desiredBuckets, int[] previous, int previousLength) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    Objects.checkFromIndexSize(offset, length, ys.length);
+    if (previousLength > length) {
+      throw new IllegalArgumentException(
+          "Series can only grow, got " + length + " points after " + previousLength);
+    }
+    if (previousLength == length) {
+      return previous.clone();
+    }
+
+    TaskRunner runner = runnerFor(length, desiredBuckets);
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, desiredBuckets, strategy, mode, runner);
+    int buckets = bounds.length - 1;
+    int reusable = reusableBuckets(offset, bounds, previous, previousLength);
+    if (reusable * 2 < buckets) {
+      return select(xs, ys, offset, offset + length - 1, bounds, runner);
+    }
+
+    int[] selected = new int[buckets + 2];
+    System.arraycopy(previous, 0, selected, 0, reusable + 1);
+    selectFrom(xs, ys, offset, offset + length - 1, bounds, buckets, reusable, selected, runner);
+    return selected;
+  }
+
+  /**
+   * Returns how many leading middle buckets of the series described by {@code bounds} keep the
+   * point selected in {@code previous}. A bucket selects the same point as long as its boundaries,
+   * the first point of the bucket at its left and the extent of the bucket at its right didn't
+   * move, which holds for every bucket but the last two of the boundaries shared with the
+   * previous layout.
+   */
+  private int reusableBuckets(int offset, int[] bounds, int[] previous, int previousLength) {
+    int buckets = bounds.length - 1;
+    if (strategy != BucketizationStrategy.DYNAMIC
+        || previousLength - 2 < buckets
+        || previous.length != buckets + 2) {
+      return 0;
+    }
+    int[] previousBounds = mode == SelectionMode.EXACT
+        ? OnePassBucketizer.boundariesByReference(offset, previousLength, buckets)
+        : OnePassBucketizer.boundariesByCount(offset, previousLength, buckets);
+    int shared = 0;
+    while (shared < bounds.length && bounds[shared] == previousBounds[shared]) {
+      shared++;
+    }
+    return Math.max(shared - 2, 0);
+  }
+
+  /**
+   * Returns a new {@link DownsamplingWorkspace} that downsamples with this configuration while
+   * reusing its buffers across calls.
+   *
+   * @return a new workspace
+   */
+  public DownsamplingWorkspace newWorkspace() {
+    return new DownsamplingWorkspace(this);
+  }
+
+  /**
+   * Returns a new {@link StreamingDownsampler} that summarizes an unbounded series in at most
+   * {@code maxBuckets} buckets, and downsamples its snapshots with this configuration.
+   *
+   * @param maxBuckets the maximum number of buckets kept in memory
+   * @return a new streaming downsampler
+   * @throws IllegalArgumentException when {@code maxBuckets} is lower than 1
+   */
+  public StreamingDownsampler newStreamingDownsampler(int maxBuckets) {
+    return new StreamingDownsampler(this, maxBuckets);
+  }
+
+  /**
+   * Returns a new {@link LodPyramid} over the series held in the parallel {@code xs} and
+   * {@code ys} arrays, whose levels are built and queried with this configuration.
+   *
+   * <p>The series must be sorted by x value. The arrays are not copied, and must not be modified
+   * afterwards.
+   *
+   * @param xs the x values of the series
+   * @param ys the y values of the series
+   * @return a new pyramid
+   * @throws IllegalArgumentException when the arrays have different lengths
+   */
+  public LodPyramid newPyramid(double[] xs, double[] ys) {
+    return new LodPyramid(this, xs, ys);
+  }
+
+  /**
+   * Returns a new {@link HullIndex} over the series held in the parallel {@code xs} and
+   * {@code ys} arrays, which downsamples it with the {@link BucketizationStrategy} and
+   * {@link SelectionMode} of this configuration.
+   *
+   * <p>The series must be sorted by x value. The arrays are not copied, and must not be modified
+   * afterwards.
+   *
+   * @param xs the x values of the series
+   * @param ys the y values of the series
+   * @return a new index
+   * @throws IllegalArgumentException when the arrays have different lengths, hold values that are
+   *     not finite, or when the hulls of the series hold more vertices than an array can
+   */
+  public HullIndex newHullIndex(double[] xs, double[] ys) {
+    return new HullIndex(xs, ys, strategy, mode);
+  }
+
+  /**
+   * Returns a new {@link BucketGrid} over the series held in the parallel {@code xs} and
+   * {@code ys} arrays, whose buckets span {@code bucketWidth} from {@code origin}, and which caches
+   * the selections of up to {@code maxTiles} tiles.
+   *
+   * <p>Grid buckets are always fixed-width and selected with the anchors of
+   * {@link SelectionMode#INDEPENDENT} mode, which keeps them independent of the viewport, so the
+   * {@link BucketizationStrategy} and {@link SelectionMode} of this configuration are not used. The
+   * series must be sorted by x value. The arrays are not copied, and must not be modified
+   * afterwards.
+   *
+   * @param xs          the x values of the series
+   * @param ys          the y values of the series
+   * @param origin      the x value of the left edge of bucket 0
+   * @param bucketWidth the x-span of every bucket
+   * @param maxTiles    the maximum number of cached tiles
+   * @return a new grid
+   * @throws IllegalArgumentException when the arrays have different lengths, {@code origin} or
+   *     {@code bucketWidth} are not finite, {@code bucketWidth} is not positive, or
+   *     {@code maxTiles} is lower than 1
+   */
+  public BucketGrid newBucketGrid(double[] xs, double[] ys, double origin, double bucketWidth, int maxTiles) {
+    return new BucketGrid(this, xs, ys, origin, bucketWidth, maxTiles);
+  }
+
+  /**
+   * Returns a {@link Collector} that downsamples the points of a stream with this configuration,
+   * as {@link #sorted(List, int)} does with a list of them.
+   *
+   * <p>Points are accumulated into primitive coordinate columns. Selected {@link DoublePoint}
+   * elements are recreated from their coordinates, so {@link DoublePoint} streams aren't retained.
+   * Points of any other type are returned as they are, so a reference to each of them is kept
+   * next to its coordinates, which takes more memory than collecting them into a list. Parallel
+   * streams accumulate into one set of columns per split, which are concatenated in encounter order.
+   *
+   * <pre>{@code
+   * List<DoublePoint> output = readings.stream()
+   *     .map(reading -> new DoublePoint(reading.time(), reading.value()))
+   *     .collect(downsampler.collector(200));
+   * }</pre>
+   *
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param <T>            the type of the {@link Point} elements of the stream
+   * @return a collector producing the downsampled list of points
+   */
+  public <T extends Point> Collector<T, ?, List<T>> collector(int desiredBuckets) {
+    return Collector.of(
+        CollectedSeries<T>::new,
+        CollectedSeries::add,
+        CollectedSeries::addAll,
+        series -> series.downsample(this, desiredBuckets)
+    );
+  }
+
+  /**
+   * Returns a new {@link DownsamplingProcessor} that downsamples every window of
+   * {@code windowSize} consecutive points it receives with this configuration, and publishes the
+   * results to its subscribers.
+   *
+   * <p>Subscribers are notified through the configured executor, or through the same default as
+   * {@link SubmissionPublisher#SubmissionPublisher()} when no executor is configured.
+   *
+   * @param windowSize     the number of points of every window
+   * @param desiredBuckets the desired number of buckets for every downsampled window
+   * @param <T>            the type of the {@link Point} points being downsampled
+   * @return a new processor
+   * @throws IllegalArgumentException when {@code windowSize} is lower than {@code desiredBuckets + 2}
+   */
+  public <T extends Point> DownsamplingProcessor<T> newProcessor(int windowSize, int desiredBuckets) {
+    Executor publisher = executor;
+    if (publisher == null) {
+      publisher = ForkJoinPool.getCommonPoolParallelism() > 1
+          ? ForkJoinPool.commonPool()
+          : task -> new Thread(task).start();
+    }
+    return new DownsamplingProcessor<>(this, publisher, windowSize, desiredBuckets);
+  }
+
+  /**
+   * Returns a new {@link RollingDownsampler} that keeps the points within {@code windowSpan} of the
+   * latest one, and downsamples them to at most {@code desiredBuckets + 2} points.
+   *
+   * <p>Rolling buckets are the cells of a fixed x grid, and every point is selected on the thread
+   * that takes the snapshot, so the {@link BucketizationStrategy}, executor and
+   * {@link ParallelismPolicy} of this configuration are not used. Selections are anchored as in
+   * {@link SelectionMode#INDEPENDENT} mode, which keeps them local to the buckets that change;
+   * {@link SelectionMode#EXACT} configurations are rejected.
+   *
+   * @param windowSpan     the x span of the window
+   * @param desiredBuckets the maximum number of middle buckets of the downsampled window
+   * @return a new rolling downsampler
+   * @throws IllegalArgumentException when {@code windowSpan} is not a positive finite value, or
+   *     {@code desiredBuckets} is lower than 2
+   * @throws IllegalStateException when this configuration uses {@link SelectionMode#EXACT} mode
+   */
+  public RollingDownsampler newRollingDownsampler(double windowSpan, int desiredBuckets) {
+    if (mode == SelectionMode.EXACT) {
+      throw new IllegalStateException(
+          "Rolling downsampling only supports " + SelectionMode.INDEPENDENT + " selections, got " + mode);
+    }
+    return new RollingDownsampler(windowSpan, desiredBuckets);
+  }
+
+  /**
+   * Returns the {@link TaskRunner} for a request over {@code points} points into
+   * {@code desiredBuckets} buckets, as decided by the {@link ParallelismPolicy}.
+   */
+  TaskRunner runnerFor(int points, int desiredBuckets) {
+    if (!policy.isParallel(points, desiredBuckets)) {
+      return TaskRunner.SEQUENTIAL;
+    }
+    return executor == null ? TaskRunner.commonPool() : TaskRunner.of(executor, parallelism);
+  }
+
+  /**
+   * Runs the {@link TriangleKernel} matching the configured {@link SelectionMode}.
+   */
+  private int[] select(double[] xs, double[] ys, int first, int last, int[] bounds, TaskRunner runner) {
+    return switch (mode) {
+      case INDEPENDENT -> TriangleKernel.select(xs, ys, first, last, bounds, runner);
+      case EXACT -> TriangleKernel.selectExact(xs, ys, first, last, bounds, runner);
+    };
+  }
+
+  /**
+   * Runs the {@link TriangleKernel} matching the configured {@link SelectionMode}, writing into
+   * {@code selected}, and returns how many positions were written.
+   */
+  private int select(
+      double[] xs, double[] ys, int first, int last, int[] bounds, int buckets, int[] selected, TaskRunner runner) {
+    return switch (mode) {
+      case INDEPENDENT -> TriangleKernel.select(xs, ys, first, last, bounds, buckets, selected, runner);
+      case EXACT -> TriangleKernel.selectExact(xs, ys, first, last, bounds, buckets, selected, runner);
+    };
+  }
+
+  /**
+   * Runs the {@link TriangleKernel} matching the configured {@link SelectionMode} on the middle
+   * buckets from {@code fromBucket} onwards, writing into {@code selected}, and returns how many
+   * positions the selection holds.
+   */
+  private int selectFrom(
+      double[] xs,
+      double[] ys,
+      int first,
+      int last,
+      int[] bounds,
+      int buckets,
+      int fromBucket,
+      int[] selected,
+      TaskRunner runner) {
+    return switch (mode) {
+      case INDEPENDENT -> TriangleKernel.selectFrom(xs, ys, first, last, bounds, buckets, fromBucket, selected, runner);
+      case EXACT -> TriangleKernel.selectExactFrom(xs, ys, first, last, bounds, buckets, fromBucket, selected, runner);
+    };
+  }
+
+  private static void checkSize(int size, BucketPlan plan) {
+    if (size != plan.size()) {
+      throw new IllegalArgumentException(
+          "The bucket plan applies to series of " + plan.size() + " points, got " + size);
+    }
+  }
+
+  private static void checkChannels(double[] xs, double[][] channels, int offset, int length) {
+    if (channels.length == 0) {
+      throw new IllegalArgumentException("At least one channel is needed");
+    }
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    for (double[] ys : channels) {
+      Objects.checkFromIndexSize(offset, length, ys.length);
+    }
+  }
+
+  private static boolean isDoublePoints(List<? extends Point> input) {
+    return !input.isEmpty() && input.get(0) instanceof DoublePoint;
+  }
+
+  /**
+   * Extracts the coordinates of a list of {@link DoublePoint} points into contiguous
+   * {@code double[]} arrays, so that the selection loop never touches the point objects.
+   */
+  private static DoubleColumns coordinates(List<? extends Point> input) {
+    @SuppressWarnings("unchecked")
+    List<DoublePoint> points = (List<DoublePoint>) input;
+    int size = points.size();
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    for (int i = 0; i < size; i++) {
+      DoublePoint p = points.get(i);
+      xs[i] = p.x();
+      ys[i] = p.y();
+    }
+    return new DoubleColumns(xs, ys);
+  }
+
+  /**
+   * Maps selected positions back to the points of the {@code input} list.
+   */
+  private static <T> List<T> gather(List<T> input, int[] selected) {
+    List<T> results = new ArrayList<>(selected.length);
+    for (int index : selected) {
+      results.add(input.get(index));
+    }
+    return results;
+  }
+
+  /**
+   * Generic path for arbitrary {@link Point} implementations, over {@link Bucket} instances.
+   */
+  private <T extends Point> List<T> sortedBuckets(List<Bucket<T>> buckets, TaskRunner runner) {
+    if (mode == SelectionMode.INDEPENDENT) {
+      return sortedGeneric(buckets, buckets.size() - 2, runner);
+    }
+
+    // Every selected index belongs to the bucket at the same position
+    int[] selected = selectIndices(buckets, runner);
+    List<T> results = new ArrayList<>(selected.length);
+    for (int i = 0; i < selected.length; i++) {
+      results.add(buckets.get(i).get(selected[i]));
+    }
+    return results;
+  }
+
+  /**
+   * Selects the points of {@link SelectionMode#INDEPENDENT} buckets.
+   *
+   * <p>Uses the index-based {@link Triangle#of(List, int)} factory to avoid allocating a
+   * {@code subList} view on each iteration.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T extends Point> List<T> sortedGeneric(
+      List<Bucket<T>> buckets, int desiredBuckets, TaskRunner runner) {
+    T[] middleResults = (T[]) new Point[desiredBuckets];
+
+    runner.forEach(desiredBuckets, i -> middleResults[i] = Triangle.of(buckets, i).getResult());
+
+    List<T> results = new ArrayList<>(desiredBuckets + 2);
+    results.add(buckets.getFirst().getFirst());
+    results.addAll(Arrays.asList(middleResults));
+    results.add(buckets.getLast().getLast());
+    return results;
+  }
+
+  /**
+   * Index-returning counterpart of {@link #sortedGeneric}: resolves the input position of the
+   * selected point of every bucket.
+   */
+  private <T extends Point> int[] selectIndices(List<Bucket<T>> buckets, TaskRunner runner) {
+    int desiredBuckets = buckets.size() - 2; // excludes first and last sentinel buckets
+    if (mode == SelectionMode.EXACT) {
+      return ExactSelection.select(
+          desiredBuckets,
+          buckets.getFirst().getOffset(),
+          buckets.getLast().getOffset(),
+          (bucket, anchor) -> Triangle.of(buckets, bucket).getExactResultIndex(buckets.get(bucket).get(anchor)),
+          bucket -> buckets.get(bucket + 1).getOffset(),
+          runner
+      );
+    }
+
+    int[] selected = new int[desiredBuckets + 2];
+    selected[0] = buckets.getFirst().getOffset();
+    selected[desiredBuckets + 1] = buckets.getLast().getOffset();
+
+    runner.forEach(desiredBuckets, i -> selected[i + 1] = Triangle.of(buckets, i).getResultIndex());
+
+    return selected;
+  }
+}
@@ -0,0 +1,114 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * A {@link Flow.Processor} that splits the points it receives into windows of consecutive points,
+ * and publishes the downsampled version of every window to its subscribers.
+ *
+ * <p>Points are requested from the upstream publisher one window at a time, and the next window
+ * is only requested once the previous one has been submitted. Since submitting blocks while the
+ * buffer of any subscriber is full, slow subscribers slow down the upstream publisher instead of
+ * letting windows pile up. When the upstream publisher completes, the remaining points are
+ * published as a last, shorter window, without downsampling them when they don't outnumber the
+ * {@code desiredBuckets + 2} points of a downsampled window.
+ *
+ * <p>Errors from the upstream publisher, or from downsampling a window, are passed on to the
+ * subscribers, and cancel the upstream subscription in the latter case.
+ *
+ * @param <T> the type of the {@link Point} points being downsampled
+ * @see Downsampler#newProcessor(int, int)
+ */
+public final class DownsamplingProcessor<T extends Point> extends SubmissionPublisher<List<T>>
+    implements Flow.Processor<T, List<T>> {
+  private final Downsampler downsampler;
+  private final int windowSize;
+  private final int desiredBuckets;
+  private final CollectedSeries<T> window = new CollectedSeries<>();
+  private Flow.Subscription subscription;
+
+  DownsamplingProcessor(Downsampler downsampler, Executor executor, int windowSize, int desiredBuckets) {
+    super(executor, Flow.defaultBufferSize());
+    if (windowSize < desiredBuckets + 2) {
+      throw new IllegalArgumentException(
+          "Windows must hold at least " + (desiredBuckets + 2) + " points, got " + windowSize);
+    }
+    this.downsampler = downsampler;
+    this.windowSize = windowSize;
+    this.desiredBuckets = desiredBuckets;
+  }
+
+  /**
+   * Requests the points of the first window.
+   *
+   * @param subscription the subscription to the upstream publisher
+   */
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    subscription.request(windowSize);
+  }
+
+  /**
+   * Adds the point to the current window, publishing the window and requesting the points of the
+   * next one when it is full.
+   *
+   * @param item the next point of the series
+   */
+  @Override
+  public void onNext(T item) {
+    if (isClosed()) {
+      // Items still in flight after a failed window
+      return;
+    }
+    window.add(item);
+    if (window.size() == windowSize && publishWindow(false)) {
+      subscription.request(windowSize);
+    }
+  }
+
+  /**
+   * Passes the error on to the subscribers.
+   *
+   * @param throwable the error signalled by the upstream publisher
+   */
+  @Override
+  public void onError(Throwable throwable) {
+    closeExceptionally(throwable);
+  }
+
+  /**
+   * Publishes the remaining points as a last window, and completes the subscribers.
+   */
+  @Override
+  public void onComplete() {
+    if (isClosed() || window.size() > 0 && !publishWindow(true)) {
+      return;
+    }
+    close();
+  }
+
+  /**
+   * Submits the downsampled window and starts a new one, or cancels the upstream subscription and
+   * passes the error on to the subscribers if the window can't be downsampled. Returns whether the
+   * window was submitted.
+   */
+  private boolean publishWindow(boolean last) {
+    List<T> output;
+    try {
+      output = last && window.size() <= desiredBuckets + 2
+          ? window.points()
+          : window.downsample(downsampler, desiredBuckets);
+    } catch (RuntimeException e) {
+      subscription.cancel();
+      closeExceptionally(e);
+      return false;
+    }
+    window.clear();
+    submit(output);
+    return true;
+  }
+}
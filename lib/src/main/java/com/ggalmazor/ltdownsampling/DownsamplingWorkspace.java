@@ -0,0 +1,217 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.List;
+
+/**
+ * Reusable scratch buffers for repeated downsampling with a {@link Downsampler} configuration.
+ *
+ * <p>Results are written into caller-supplied arrays, and every buffer the selection needs is kept
+ * across calls, growing only when a larger series or bucket count than before is requested. Once
+ * the buffers have grown to fit the requests, downsampling allocates nothing, provided that the
+ * {@link ParallelismPolicy} of the {@link Downsampler} runs them in the calling thread. Requests
+ * that run in parallel allocate their task bookkeeping.
+ *
+ * <p>Output arrays must hold at least {@code desiredBuckets + 2} elements. Every method returns
+ * the number of elements it wrote, which can be lower than that with
+ * {@link BucketizationStrategy#FIXED}.
+ *
+ * <p>Workspaces are not thread-safe. Keep one per thread, for instance with
+ * {@code ThreadLocal.withInitial(downsampler::newWorkspace)}, or borrow them from a pool.
+ *
+ * @see Downsampler#newWorkspace()
+ */
+public final class DownsamplingWorkspace {
+  private static final double[] NO_VALUES = new double[0];
+  private static final int[] NO_INDICES = new int[0];
+
+  private final Downsampler downsampler;
+  private double[] xs = NO_VALUES;
+  private double[] ys = NO_VALUES;
+  private int[] bounds = NO_INDICES;
+  private int[] selected = NO_INDICES;
+
+  DownsamplingWorkspace(Downsampler downsampler) {
+    this.downsampler = downsampler;
+  }
+
+  /**
+   * Writes the positions in the provided {@code input} list of the points that make up its
+   * downsampled version into {@code out}.
+   *
+   * <p>Coordinates are copied into the buffers of this workspace, so any {@link Point}
+   * implementation is read once per call through {@link Point#x()} and {@link Point#y()}.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param out            the array receiving the ascending positions of the selected points
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the number of positions written into {@code out}
+   * @throws IllegalArgumentException when {@code out} can't hold {@code desiredBuckets + 2} positions
+   */
+  public <T extends Point> int indices(List<T> input, int desiredBuckets, int[] out) {
+    checkCapacity(out.length, desiredBuckets);
+    int size = extract(input);
+    return downsampler.indices(xs, ys, 0, size, desiredBuckets, boundsFor(desiredBuckets), out);
+  }
+
+  /**
+   * Writes the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive) into {@code out}.
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param out            the array receiving the ascending positions of the selected points
+   * @return the number of positions written into {@code out}
+   * @throws IllegalArgumentException when {@code out} can't hold {@code desiredBuckets + 2} positions
+   */
+  public int indices(double[] xs, double[] ys, int offset, int length, int desiredBuckets, int[] out) {
+    checkCapacity(out.length, desiredBuckets);
+    return downsampler.indices(xs, ys, offset, length, desiredBuckets, boundsFor(desiredBuckets), out);
+  }
+
+  /**
+   * Writes the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series of {@code plan.size()} points starting at {@code offset},
+   * split into the buckets described by the provided {@link BucketPlan}, into {@code out}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @param out    the array receiving the ascending positions of the selected points
+   * @return the number of positions written into {@code out}
+   * @throws IllegalArgumentException when {@code out} can't hold {@code plan.bucketCount() + 2}
+   *     positions
+   */
+  public int indices(double[] xs, double[] ys, int offset, BucketPlan plan, int[] out) {
+    checkCapacity(out.length, plan.bucketCount());
+    return downsampler.indices(xs, ys, offset, plan, boundsFor(plan.bucketCount()), out);
+  }
+
+  /**
+   * Writes the points that make up the downsampled version of the provided {@code input} list
+   * into {@code out}.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param out            the array receiving the selected points
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the number of points written into {@code out}
+   * @throws IllegalArgumentException when {@code out} can't hold {@code desiredBuckets + 2} points
+   */
+  public <T extends Point> int sorted(List<T> input, int desiredBuckets, T[] out) {
+    checkCapacity(out.length, desiredBuckets);
+    int count = indices(input, desiredBuckets, selectedFor(desiredBuckets));
+    for (int i = 0; i < count; i++) {
+      out[i] = input.get(selected[i]);
+    }
+    return count;
+  }
+
+  /**
+   * Writes the coordinates of the downsampled version of the series held in the {@code xs} and
+   * {@code ys} arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive),
+   * into {@code outXs} and {@code outYs}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param outXs          the array receiving the x values of the selected points
+   * @param outYs          the array receiving the y values of the selected points
+   * @return the number of points written into {@code outXs} and {@code outYs}
+   * @throws IllegalArgumentException when the output arrays can't hold {@code desiredBuckets + 2}
+   *     points
+   */
+  public int sorted(
+      double[] xs, double[] ys, int offset, int length, int desiredBuckets, double[] outXs, double[] outYs) {
+    checkCapacity(Math.min(outXs.length, outYs.length), desiredBuckets);
+    int count = indices(xs, ys, offset, length, desiredBuckets, selectedFor(desiredBuckets));
+    for (int i = 0; i < count; i++) {
+      outXs[i] = xs[selected[i]];
+      outYs[i] = ys[selected[i]];
+    }
+    return count;
+  }
+
+  /**
+   * Writes the coordinates of the downsampled version of the series of {@code plan.size()} points
+   * held in the {@code xs} and {@code ys} arrays from {@code offset}, split into the buckets
+   * described by the provided {@link BucketPlan}, into {@code outXs} and {@code outYs}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @param outXs  the array receiving the x values of the selected points
+   * @param outYs  the array receiving the y values of the selected points
+   * @return the number of points written into {@code outXs} and {@code outYs}
+   * @throws IllegalArgumentException when the output arrays can't hold
+   *     {@code plan.bucketCount() + 2} points
+   */
+  public int sorted(double[] xs, double[] ys, int offset, BucketPlan plan, double[] outXs, double[] outYs) {
+    checkCapacity(Math.min(outXs.length, outYs.length), plan.bucketCount());
+    int count = indices(xs, ys, offset, plan, selectedFor(plan.bucketCount()));
+    for (int i = 0; i < count; i++) {
+      outXs[i] = xs[selected[i]];
+      outYs[i] = ys[selected[i]];
+    }
+    return count;
+  }
+
+  /**
+   * Releases the buffers of this workspace. They are allocated again by the next call.
+   */
+  public void reset() {
+    xs = NO_VALUES;
+    ys = NO_VALUES;
+    bounds = NO_INDICES;
+    selected = NO_INDICES;
+  }
+
+  private static void checkCapacity(int capacity, int desiredBuckets) {
+    if (capacity < desiredBuckets + 2) {
+      throw new IllegalArgumentException(
+          "Output must hold at least " + (desiredBuckets + 2) + " elements, got " + capacity);
+    }
+  }
+
+  /**
+   * Copies the coordinates of the {@code input} points into the coordinate buffers, and returns
+   * the number of points.
+   */
+  private <T extends Point> int extract(List<T> input) {
+    int size = input.size();
+    if (xs.length < size) {
+      xs = new double[size];
+      ys = new double[size];
+    }
+    for (int i = 0; i < size; i++) {
+      T point = input.get(i);
+      xs[i] = point.x();
+      ys[i] = point.y();
+    }
+    return size;
+  }
+
+  private int[] boundsFor(int desiredBuckets) {
+    if (bounds.length < desiredBuckets + 1) {
+      bounds = new int[desiredBuckets + 1];
+    }
+    return bounds;
+  }
+
+  private int[] selectedFor(int desiredBuckets) {
+    if (selected.length < desiredBuckets + 2) {
+      selected = new int[desiredBuckets + 2];
+    }
+    return selected;
+  }
+}
@@ -0,0 +1,152 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Drives the {@link SelectionMode#EXACT} selection, where the triangle of every bucket is
+ * anchored on the point selected in the bucket at its left.
+ *
+ * <p>The selection inside a bucket is delegated to a {@code selector} function receiving the
+ * index of a middle bucket and the input index of its left anchor, and returning the input index
+ * of the selected point. This keeps the chaining logic shared between the primitive-array and the
+ * {@link Bucket} representations of a series.
+ */
+final class ExactSelection {
+
+  private ExactSelection() {}
+
+  /**
+   * Returns the input indices of the points selected in {@link SelectionMode#EXACT} mode,
+   * including {@code first} and {@code last}.
+   *
+   * <p>Runs the chunked variant when the {@code runner} is parallel and there are at least
+   * {@value LTThreeBuckets#PARALLEL_THRESHOLD} buckets.
+   *
+   * @param buckets     the number of middle buckets
+   * @param first       the input index of the first point of the series
+   * @param last        the input index of the last point of the series
+   * @param selector    selects the point of a middle bucket given the input index of its anchor
+   * @param bucketStart returns the input index of the first point of a middle bucket
+   * @param runner      runs the chunks of the chunked variant
+   * @return the input indices of the selected points
+   */
+  static int[] select(
+      int buckets,
+      int first,
+      int last,
+      IntBinaryOperator selector,
+      IntUnaryOperator bucketStart,
+      TaskRunner runner) {
+    return select(buckets, first, last, () -> selector, bucketStart, runner);
+  }
+
+  /**
+   * Returns the input indices of the points selected in {@link SelectionMode#EXACT} mode, as
+   * {@link #select(int, int, int, IntBinaryOperator, IntUnaryOperator, TaskRunner)} does, with
+   * selectors that are not thread-safe.
+   *
+   * <p>Every chunk of the chunked variant gets its own selector from {@code selectors}, so
+   * selectors can keep scratch space across the buckets they resolve.
+   *
+   * @param buckets     the number of middle buckets
+   * @param first       the input index of the first point of the series
+   * @param last        the input index of the last point of the series
+   * @param selectors   returns a new selector, to be used by a single thread
+   * @param bucketStart returns the input index of the first point of a middle bucket
+   * @param runner      runs the chunks of the chunked variant
+   * @return the input indices of the selected points
+   */
+  static int[] select(
+      int buckets,
+      int first,
+      int last,
+      Supplier<IntBinaryOperator> selectors,
+      IntUnaryOperator bucketStart,
+      TaskRunner runner) {
+    int chunks = Math.min(buckets, 2 * runner.parallelism());
+    if (runner.isParallel() && buckets >= LTThreeBuckets.PARALLEL_THRESHOLD && chunks > 1) {
+      return selectChunked(buckets, first, last, selectors, bucketStart, chunks, runner);
+    }
+    return selectSequential(buckets, first, last, selectors.get());
+  }
+
+  /**
+   * Resolves every bucket in order, anchoring each one on the previous selection.
+   */
+  static int[] selectSequential(int buckets, int first, int last, IntBinaryOperator selector) {
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    // selected[bucket] holds the selection of the bucket at the left of middle bucket `bucket`
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      selected[bucket + 1] = selector.applyAsInt(bucket, selected[bucket]);
+    }
+    return selected;
+  }
+
+  /**
+   * Splits the middle buckets into {@code chunks} contiguous ranges that are resolved in parallel.
+   *
+   * <p>The first bucket of every chunk but the first one is anchored on a guess: the point its
+   * left bucket would select when anchored on the first point of its own left bucket. Once all
+   * chunks are done, they are checked in order. When the actual anchor of a chunk differs from
+   * its guess, its buckets are resolved again until a selection matches the speculative one, from
+   * which point the rest of the chunk is already correct. Every chunk, and the final check, use
+   * their own selector from {@code selectors}.
+   */
+  static int[] selectChunked(
+      int buckets,
+      int first,
+      int last,
+      Supplier<IntBinaryOperator> selectors,
+      IntUnaryOperator bucketStart,
+      int chunks,
+      TaskRunner runner) {
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+
+    int[] starts = new int[chunks + 1];
+    for (int chunk = 0; chunk <= chunks; chunk++) {
+      starts[chunk] = (int) ((long) buckets * chunk / chunks);
+    }
+
+    int[] guesses = new int[chunks];
+    runner.forEach(chunks, chunk -> {
+      IntBinaryOperator selector = selectors.get();
+      int start = starts[chunk];
+      int anchor = first;
+      if (start > 0) {
+        int guessAnchor = start == 1 ? first : bucketStart.applyAsInt(start - 2);
+        anchor = selector.applyAsInt(start - 1, guessAnchor);
+      }
+      guesses[chunk] = anchor;
+      // Chunks write disjoint slots of the selected array
+      for (int bucket = start; bucket < starts[chunk + 1]; bucket++) {
+        anchor = selector.applyAsInt(bucket, anchor);
+        selected[bucket + 1] = anchor;
+      }
+    });
+
+    IntBinaryOperator selector = selectors.get();
+    for (int chunk = 1; chunk < chunks; chunk++) {
+      int bucket = starts[chunk];
+      int anchor = selected[bucket];
+      if (anchor == guesses[chunk]) {
+        continue;
+      }
+      for (; bucket < starts[chunk + 1]; bucket++) {
+        int choice = selector.applyAsInt(bucket, anchor);
+        if (choice == selected[bucket + 1]) {
+          break;
+        }
+        selected[bucket + 1] = choice;
+        anchor = choice;
+      }
+    }
+
+    return selected;
+  }
+}
@@ -0,0 +1,416 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Index over a series that finds the max-area candidate of any bucket in polylogarithmic time,
+ * for series that are downsampled repeatedly at different bucket counts or viewports.
+ *
+ * <p>For fixed anchors, the area of the triangle of {@link Triangle#getResult()} is the absolute
+ * value of a linear function of the candidate point, so its maximum lies on the convex hull of the
+ * bucket. The index is a segment tree over blocks of {@value #BLOCK_SIZE} consecutive points, whose
+ * nodes hold the upper and lower hulls of the points they cover. A bucket is answered by searching
+ * the hulls of the {@code O(log(size))} nodes that cover it, and by scanning the partial blocks at
+ * both of its ends.
+ *
+ * <p>Building the index merges the hulls of every pair of sibling nodes. Noisy series keep a few
+ * vertices per hull and build in close to linear time, but convex or concave stretches keep most
+ * of their points on the hulls of every level, which takes up to {@code O(size * log(size))} time
+ * and memory. In
+ * {@link SelectionMode#INDEPENDENT} mode a downsampling request costs about
+ * {@code O(desiredBuckets * log(size)^2)} instead of {@code O(size)}. In
+ * {@link SelectionMode#EXACT} mode the average of every right bucket is still summed point by
+ * point, which only saves the max-area scan.
+ *
+ * <pre>{@code
+ * HullIndex index = Downsampler.create().newHullIndex(xs, ys);
+ * DoubleColumns overview = index.sorted(1_000);
+ * DoubleColumns zoomed = index.sorted(offset, length, 1_000);
+ * }</pre>
+ *
+ * <p>Selections match the ones of {@link Downsampler#indices(double[], double[], int, int, int)},
+ * except among candidates whose areas only differ by rounding errors, such as points that are
+ * collinear with the anchors of their bucket, where the index may pick a different one. Indexes
+ * are immutable, and can be used from several threads at the same time. The arrays of the series
+ * are not copied, and must not be modified afterwards.
+ *
+ * @see Downsampler#newHullIndex(double[], double[])
+ */
+public final class HullIndex {
+  static final int BLOCK_SIZE = 256;
+  // Buckets smaller than this are scanned, which is faster than searching their few nodes
+  static final int SCAN_THRESHOLD = 8 * BLOCK_SIZE;
+  // Largest array length every VM can allocate
+  static final int MAX_POOL = Integer.MAX_VALUE - 8;
+
+  private final double[] xs;
+  private final double[] ys;
+  private final BucketizationStrategy strategy;
+  private final SelectionMode mode;
+  private final int blocks;
+  // Hull vertices of every node, as ranges of the pool holding their positions and coordinates.
+  // Node n has its upper hull in [ranges[3n], ranges[3n + 1]) and its lower hull right after it,
+  // in [ranges[3n + 1], ranges[3n + 2]).
+  private final int[] ranges;
+  private final int[] pool;
+  private final double[] poolXs;
+  private final double[] poolYs;
+
+  HullIndex(double[] xs, double[] ys, BucketizationStrategy strategy, SelectionMode mode) {
+    if (xs.length != ys.length) {
+      throw new IllegalArgumentException(
+          "xs and ys must have the same length, got " + xs.length + " and " + ys.length);
+    }
+    for (int i = 0; i < xs.length; i++) {
+      if (!Double.isFinite(xs[i]) || !Double.isFinite(ys[i])) {
+        throw new IllegalArgumentException("Hull indexes require finite coordinates, got a point at " + i);
+      }
+    }
+    this.xs = xs;
+    this.ys = ys;
+    this.strategy = strategy;
+    this.mode = mode;
+    this.blocks = (xs.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    Builder builder = new Builder(xs, ys, Math.max(4 * blocks, 1));
+    if (blocks > 0) {
+      builder.build(1, 0, blocks);
+    }
+    this.ranges = builder.ranges;
+    this.pool = Arrays.copyOf(builder.pool, builder.poolSize);
+    // Coordinates are copied next to each other so that hull searches don't jump around the series
+    this.poolXs = new double[pool.length];
+    this.poolYs = new double[pool.length];
+    for (int i = 0; i < pool.length; i++) {
+      poolXs[i] = xs[pool[i]];
+      poolYs[i] = ys[pool[i]];
+    }
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of the whole series.
+   *
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points
+   */
+  public int[] indices(int desiredBuckets) {
+    return indices(0, xs.length, desiredBuckets);
+  }
+
+  /**
+   * Returns the positions of the points that make up the downsampled version of the part of the
+   * series between {@code offset} (inclusive) and {@code offset + length} (exclusive).
+   *
+   * @param offset         the position of the first point of the part
+   * @param length         the number of points of the part
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points, which are absolute positions in the
+   *     series
+   */
+  public int[] indices(int offset, int length, int desiredBuckets) {
+    Objects.checkFromIndexSize(offset, length, xs.length);
+    int[] bounds = OnePassBucketizer.boundaries(
+        xs, offset, length, desiredBuckets, strategy, mode, TaskRunner.SEQUENTIAL);
+    int buckets = bounds.length - 1;
+    int first = offset;
+    int last = offset + length - 1;
+    if (mode == SelectionMode.EXACT) {
+      return ExactSelection.selectSequential(
+          buckets,
+          first,
+          last,
+          (bucket, anchor) -> selectInBucketExact(last, bounds, bucket, anchor)
+      );
+    }
+
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      selected[bucket + 1] = selectInBucket(first, last, bounds, bucket);
+    }
+    return selected;
+  }
+
+  /**
+   * Returns a downsampled version of the whole series.
+   *
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public DoubleColumns sorted(int desiredBuckets) {
+    return DoubleColumns.gather(xs, ys, indices(desiredBuckets));
+  }
+
+  /**
+   * Returns a downsampled version of the part of the series between {@code offset} (inclusive)
+   * and {@code offset + length} (exclusive).
+   *
+   * @param offset         the position of the first point of the part
+   * @param length         the number of points of the part
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public DoubleColumns sorted(int offset, int length, int desiredBuckets) {
+    return DoubleColumns.gather(xs, ys, indices(offset, length, desiredBuckets));
+  }
+
+  /**
+   * Returns the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the first point of the bucket at its left and the center of the bucket at its right, as
+   * {@link TriangleKernel} does.
+   */
+  private int selectInBucket(int first, int last, int[] bounds, int bucket) {
+    int buckets = bounds.length - 1;
+    int anchor = bucket == 0 ? first : bounds[bucket - 1];
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = xs[last];
+      ry = ys[last];
+    } else {
+      int rightFirst = bounds[bucket + 1];
+      int rightLast = bounds[bucket + 2] - 1;
+      rx = (xs[rightFirst] + xs[rightLast]) / 2.0;
+      ry = (ys[rightFirst] + ys[rightLast]) / 2.0;
+    }
+    return maxAreaIndex(bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry);
+  }
+
+  /**
+   * Returns the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the point at {@code anchor} and the average of the bucket at its right, as
+   * {@link TriangleKernel} does.
+   */
+  private int selectInBucketExact(int last, int[] bounds, int bucket, int anchor) {
+    int buckets = bounds.length - 1;
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = xs[last];
+      ry = ys[last];
+    } else {
+      int rightFirst = bounds[bucket + 1];
+      int rightEnd = bounds[bucket + 2];
+      double sumX = 0;
+      double sumY = 0;
+      for (int i = rightFirst; i < rightEnd; i++) {
+        sumX += xs[i];
+        sumY += ys[i];
+      }
+      rx = sumX / (rightEnd - rightFirst);
+      ry = sumY / (rightEnd - rightFirst);
+    }
+    return maxAreaIndex(bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry);
+  }
+
+  /**
+   * Returns the position in {@code [from, to)} of the point that forms the triangle with the
+   * largest area together with the {@code (lx, ly)} and {@code (rx, ry)} points, scanning the
+   * partial blocks at both ends and searching the hulls of the nodes covering the whole blocks in
+   * between. Ties are resolved in favour of the lowest position.
+   */
+  int maxAreaIndex(int from, int to, double lx, double ly, double rx, double ry) {
+    if (to - from < SCAN_THRESHOLD) {
+      return TriangleKernel.maxAreaIndex(xs, ys, from, to, lx, ly, rx, ry, TaskRunner.SEQUENTIAL);
+    }
+    int firstBlock = (from + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    int endBlock = to / BLOCK_SIZE;
+    int best = scan(from, firstBlock * BLOCK_SIZE, -1, lx, ly, rx, ry);
+    best = visit(1, 0, blocks, firstBlock, endBlock, best, lx, ly, rx, ry);
+    return scan(endBlock * BLOCK_SIZE, to, best, lx, ly, rx, ry);
+  }
+
+  /**
+   * Merges the candidates of the nodes under {@code node}, which covers the blocks in
+   * {@code [low, high)}, that cover the blocks in {@code [fromBlock, toBlock)}, from left to right.
+   */
+  private int visit(
+      int node, int low, int high, int fromBlock, int toBlock, int best, double lx, double ly, double rx, double ry) {
+    if (toBlock <= low || high <= fromBlock) {
+      return best;
+    }
+    if (fromBlock <= low && high <= toBlock) {
+      // The y coefficient of the signed area picks the hull holding its maximum and its minimum
+      int upperStart = ranges[3 * node];
+      int lowerStart = ranges[3 * node + 1];
+      int lowerEnd = ranges[3 * node + 2];
+      boolean upperMaximum = lx - rx > 0;
+      int highest = upperMaximum
+          ? search(upperStart, lowerStart, 1, lx, ly, rx, ry)
+          : search(lowerStart, lowerEnd, 1, lx, ly, rx, ry);
+      int lowest = upperMaximum
+          ? search(lowerStart, lowerEnd, -1, lx, ly, rx, ry)
+          : search(upperStart, lowerStart, -1, lx, ly, rx, ry);
+      best = better(best, Math.min(highest, lowest), lx, ly, rx, ry);
+      return better(best, Math.max(highest, lowest), lx, ly, rx, ry);
+    }
+    int middle = (low + high) >>> 1;
+    best = visit(2 * node, low, middle, fromBlock, toBlock, best, lx, ly, rx, ry);
+    return visit(2 * node + 1, middle, high, fromBlock, toBlock, best, lx, ly, rx, ry);
+  }
+
+  /**
+   * Returns the first vertex of the hull held in {@code pool[start, end)} that maximizes
+   * {@code sign} times the signed area, which is unimodal along the hull.
+   */
+  private int search(int start, int end, int sign, double lx, double ly, double rx, double ry) {
+    int low = start;
+    int high = end - 1;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      double next = signedArea(poolXs[middle + 1], poolYs[middle + 1], lx, ly, rx, ry);
+      if (sign * next <= sign * signedArea(poolXs[middle], poolYs[middle], lx, ly, rx, ry)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return pool[low];
+  }
+
+  private int scan(int from, int to, int best, double lx, double ly, double rx, double ry) {
+    if (from == to) {
+      return best;
+    }
+    double bestArea = best < 0 ? -1.0 : Math.abs(signedArea(xs[best], ys[best], lx, ly, rx, ry)) / 2.0;
+    for (int i = from; i < to; i++) {
+      double area = Math.abs(signedArea(xs[i], ys[i], lx, ly, rx, ry)) / 2.0;
+      if (area > bestArea) {
+        bestArea = area;
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns {@code candidate} when it forms a strictly larger triangle than {@code best}, which
+   * must come before it in the series, or {@code best} otherwise.
+   */
+  private int better(int best, int candidate, double lx, double ly, double rx, double ry) {
+    if (best < 0) {
+      return candidate;
+    }
+    // Same area as TriangleKernel, so that the index and the scan compare the same values
+    double bestArea = Math.abs(signedArea(xs[best], ys[best], lx, ly, rx, ry)) / 2.0;
+    double area = Math.abs(signedArea(xs[candidate], ys[candidate], lx, ly, rx, ry)) / 2.0;
+    return area > bestArea ? candidate : best;
+  }
+
+  private static double signedArea(double x, double y, double lx, double ly, double rx, double ry) {
+    return lx * (y - ry) + x * (ry - ly) + rx * (ly - y);
+  }
+
+  /**
+   * Returns the capacity a full pool of {@code capacity} vertices grows to, while indexing a series
+   * of {@code size} points.
+   *
+   * @throws IllegalArgumentException when the pool already holds as many vertices as an array can
+   */
+  static int grownCapacity(int capacity, int size) {
+    if (capacity >= MAX_POOL) {
+      throw new IllegalArgumentException(
+          "The hulls of a series of " + size + " points hold more than " + MAX_POOL + " vertices");
+    }
+    return (int) Math.min(2L * capacity, MAX_POOL);
+  }
+
+  /**
+   * Builds the hulls of every node into a growing pool.
+   */
+  private static final class Builder {
+    private final double[] xs;
+    private final double[] ys;
+    private final int[] ranges;
+    private int[] pool;
+    private int poolSize;
+
+    private Builder(double[] xs, double[] ys, int nodes) {
+      this.xs = xs;
+      this.ys = ys;
+      this.ranges = new int[3 * nodes];
+      this.pool = new int[Math.max(xs.length / 4, 16)];
+    }
+
+    /**
+     * Builds the hulls of {@code node}, which covers the blocks in {@code [low, high)}, and of all
+     * the nodes under it.
+     */
+    void build(int node, int low, int high) {
+      if (high - low == 1) {
+        int from = low * BLOCK_SIZE;
+        int to = Math.min(from + BLOCK_SIZE, xs.length);
+        int upperStart = poolSize;
+        for (int i = from; i < to; i++) {
+          push(upperStart, i, true);
+        }
+        int lowerStart = poolSize;
+        for (int i = from; i < to; i++) {
+          push(lowerStart, i, false);
+        }
+        setRanges(node, upperStart, lowerStart);
+        return;
+      }
+
+      int middle = (low + high) >>> 1;
+      int left = 2 * node;
+      int right = 2 * node + 1;
+      build(left, low, middle);
+      build(right, middle, high);
+      // The hull of both children is the hull of their hulls, which are already sorted by x
+      int upperStart = poolSize;
+      for (int i = ranges[3 * left]; i < ranges[3 * left + 1]; i++) {
+        push(upperStart, pool[i], true);
+      }
+      for (int i = ranges[3 * right]; i < ranges[3 * right + 1]; i++) {
+        push(upperStart, pool[i], true);
+      }
+      int lowerStart = poolSize;
+      for (int i = ranges[3 * left + 1]; i < ranges[3 * left + 2]; i++) {
+        push(lowerStart, pool[i], false);
+      }
+      for (int i = ranges[3 * right + 1]; i < ranges[3 * right + 2]; i++) {
+        push(lowerStart, pool[i], false);
+      }
+      setRanges(node, upperStart, lowerStart);
+    }
+
+    private void setRanges(int node, int upperStart, int lowerStart) {
+      ranges[3 * node] = upperStart;
+      ranges[3 * node + 1] = lowerStart;
+      ranges[3 * node + 2] = poolSize;
+    }
+
+    /**
+     * Adds the point at {@code position} to the hull being built at the end of the pool from
+     * {@code start}, with Andrew's monotone chain. Among points with the same x value, only the
+     * highest (upper hulls) or lowest (lower hulls) one is kept, the first one in case of ties.
+     */
+    private void push(int start, int position, boolean upper) {
+      if (poolSize > start) {
+        int top = pool[poolSize - 1];
+        if (xs[top] == xs[position]) {
+          if (upper ? ys[position] <= ys[top] : ys[position] >= ys[top]) {
+            return;
+          }
+          poolSize--;
+        }
+      }
+      while (poolSize - start >= 2) {
+        int origin = pool[poolSize - 2];
+        int top = pool[poolSize - 1];
+        double cross = (xs[top] - xs[origin]) * (ys[position] - ys[origin])
+            - (ys[top] - ys[origin]) * (xs[position] - xs[origin]);
+        if (upper ? cross < 0 : cross > 0) {
+          break;
+        }
+        poolSize--;
+      }
+      if (poolSize == pool.length) {
+        pool = Arrays.copyOf(pool, grownCapacity(pool.length, xs.length));
+      }
+      pool[poolSize++] = position;
+    }
+  }
+}
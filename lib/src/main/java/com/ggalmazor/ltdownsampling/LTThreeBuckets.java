@@ -1,22 +1,26 @@
 package com.ggalmazor.ltdownsampling;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.IntStream;
+import java.util.function.ToDoubleFunction;
 
 /**
  * The LTThreeBuckets class is the main entry point to this library.
  *
  * <p>None of the methods in this class will mutate input lists or their elements.
+ *
+ * <p>All methods use the default configuration of {@link Downsampler}. Use that class to run
+ * parallel requests on a specific {@link java.util.concurrent.Executor}, or to change when
+ * requests run in parallel.
  */
 @SuppressWarnings("checkstyle:AbbreviationAsWordInName") // LT is a domain abbreviation (Largest Triangle)
 public final class LTThreeBuckets {
 
   /**
-   * Minimum number of buckets to engage the parallel triangle-selection path.
+   * Minimum number of buckets to split the {@link SelectionMode#EXACT} selection into chunks.
    *
-   * <p>Below this threshold, thread-management overhead exceeds the work saved.
+   * <p>Below this threshold, repairing the speculative anchors of the chunks costs more than the
+   * work saved.
    */
   static final int PARALLEL_THRESHOLD = 512;
 
@@ -84,8 +88,10 @@ public final class LTThreeBuckets {
    * path is used: x and y coordinates are extracted into contiguous {@code double[]} arrays
    * before the selection loop, eliminating per-point pointer chasing in the hot path.
    *
-   * <p>When {@code desiredBuckets} exceeds {@value #PARALLEL_THRESHOLD}, the triangle-selection
-   * loop runs in parallel using the common {@link java.util.concurrent.ForkJoinPool}.
+   * <p>Large requests run in parallel using the common {@link java.util.concurrent.ForkJoinPool},
+   * as decided by {@link ParallelismPolicy#costBased()} from the number of points and buckets.
+   * For {@link DoublePoint} inputs, buckets holding many points are split across threads, so
+   * few-bucket requests over huge inputs use every core too.
    *
    * @param input          the input list of {@link Point} points to downsample
    * @param inputSize      the size of the input list
@@ -114,8 +120,10 @@ public final class LTThreeBuckets {
    * path is used: x and y coordinates are extracted into contiguous {@code double[]} arrays
    * before the selection loop, eliminating per-point pointer chasing in the hot path.
    *
-   * <p>When {@code desiredBuckets} exceeds {@value #PARALLEL_THRESHOLD}, the triangle-selection
-   * loop runs in parallel using the common {@link java.util.concurrent.ForkJoinPool}.
+   * <p>Large requests run in parallel using the common {@link java.util.concurrent.ForkJoinPool},
+   * as decided by {@link ParallelismPolicy#costBased()} from the number of points and buckets.
+   * For {@link DoublePoint} inputs, buckets holding many points are split across threads, so
+   * few-bucket requests over huge inputs use every core too.
    *
    * @param input          the input list of {@link Point} points to downsample
    * @param inputSize      the size of the input list
@@ -126,119 +134,526 @@ public final class LTThreeBuckets {
    */
   public static <T extends Point> List<T> sorted(
       List<T> input, int inputSize, int desiredBuckets, BucketizationStrategy strategy) {
-    List<Bucket<T>> buckets = OnePassBucketizer.bucketize(input, inputSize, desiredBuckets, strategy);
-    int actualBuckets = buckets.size() - 2; // excludes first and last sentinel buckets
+    return Downsampler.create().withStrategy(strategy).sorted(input, inputSize, desiredBuckets);
+  }
 
-    // Check whether we can use the DoublePoint struct-of-arrays fast path
-    if (!input.isEmpty() && input.get(0) instanceof DoublePoint) {
-      @SuppressWarnings("unchecked")
-      List<DoublePoint> dpInput = (List<DoublePoint>) input;
-      @SuppressWarnings("unchecked")
-      List<Bucket<DoublePoint>> dpBuckets = (List<Bucket<DoublePoint>>) (List<?>) buckets;
-      @SuppressWarnings("unchecked")
-      List<T> result = (List<T>) sortedDoublePoint(dpInput, dpBuckets, actualBuckets);
-      return result;
-    }
+  /**
+   * Returns a downsampled version of the provided {@code input} list using the specified
+   * {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * <p>Notes:
+   * <ul>
+   * <li>The input list must be sorted by {@link Point#x()}.</li>
+   * <li>This method doesn't mutate the input list or any of its elements.</li>
+   * </ul>
+   *
+   * <p>With {@link SelectionMode#EXACT}, every triangle is anchored on the point selected in the
+   * previous bucket, as in the reference LTTB algorithm.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output list
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the downsampled output list
+   */
+  public static <T extends Point> List<T> sorted(
+      List<T> input, int desiredBuckets, BucketizationStrategy strategy, SelectionMode mode) {
+    return Downsampler.create().withStrategy(strategy).withSelectionMode(mode).sorted(input, desiredBuckets);
+  }
 
-    return sortedGeneric(buckets, actualBuckets);
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive).
+   *
+   * <p>Notes:
+   * <ul>
+   * <li>The series must be sorted by x value.</li>
+   * <li>This method doesn't mutate the input arrays.</li>
+   * </ul>
+   *
+   * <p>No {@link Point} objects are created: buckets are computed as index ranges and the
+   * selection loop runs directly over the primitive arrays. The output will have
+   * {@code desiredBuckets + 2} points: one per bucket plus the first and last points of the
+   * series.
+   *
+   * <p>Large series are processed in parallel using the common
+   * {@link java.util.concurrent.ForkJoinPool}, as decided by {@link ParallelismPolicy#costBased()}:
+   * buckets holding many points are split across threads.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output
+   */
+  public static DoubleColumns sorted(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    return sorted(xs, ys, offset, length, desiredBuckets, BucketizationStrategy.DYNAMIC);
   }
 
   /**
-   * Struct-of-arrays fast path for {@link DoublePoint} inputs.
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), using the
+   * specified {@link BucketizationStrategy}.
+   *
+   * <p>Notes:
+   * <ul>
+   * <li>The series must be sorted by x value.</li>
+   * <li>This method doesn't mutate the input arrays.</li>
+   * </ul>
    *
-   * <p>Extracts all coordinates into contiguous {@code double[]} arrays once, then the
-   * inner selection loop operates on primitive arrays with no pointer chasing.
+   * <p>When {@link BucketizationStrategy#FIXED} is used, empty x-intervals are skipped
+   * and the output may have fewer than {@code desiredBuckets + 2} points.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @return the coordinates of the downsampled output
    */
-  private static List<DoublePoint> sortedDoublePoint(
-      List<DoublePoint> input,
-      List<Bucket<DoublePoint>> buckets,
-      int desiredBuckets) {
-    // Extract coordinates into contiguous primitive arrays
-    int size = input.size();
-    double[] xs = new double[size];
-    double[] ys = new double[size];
-    for (int i = 0; i < size; i++) {
-      DoublePoint p = input.get(i);
-      xs[i] = p.x();
-      ys[i] = p.y();
-    }
+  public static DoubleColumns sorted(
+      double[] xs, double[] ys, int offset, int length, int desiredBuckets, BucketizationStrategy strategy) {
+    return sorted(xs, ys, offset, length, desiredBuckets, strategy, SelectionMode.INDEPENDENT);
+  }
 
-    @SuppressWarnings("unchecked")
-    DoublePoint[] middleResults = new DoublePoint[desiredBuckets];
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), using the
+   * specified {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @return the coordinates of the downsampled output
+   */
+  public static DoubleColumns sorted(
+      double[] xs,
+      double[] ys,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .sorted(xs, ys, offset, length, desiredBuckets);
+  }
 
-    IntStream stream = IntStream.range(0, desiredBuckets);
-    if (desiredBuckets >= PARALLEL_THRESHOLD) {
-      stream = stream.parallel();
-    }
+  /**
+   * Returns a downsampled version of the provided {@code input} list, split into the buckets
+   * described by the provided {@link BucketPlan}.
+   *
+   * <p>Computing a plan once and reusing it skips the bucketization of every call, which pays off
+   * when series of the same size are downsampled repeatedly.
+   *
+   * @param input the input list of {@link Point} points to downsample
+   * @param plan  the bucket plan of the input list
+   * @param <T>   the type of the {@link Point} elements in the input list
+   * @return the downsampled output list, with {@code plan.bucketCount() + 2} points
+   * @throws IllegalArgumentException when the size of the input list doesn't match the plan
+   */
+  public static <T extends Point> List<T> sorted(List<T> input, BucketPlan plan) {
+    return Downsampler.create().sorted(input, plan);
+  }
 
-    stream.forEach(i -> middleResults[i] = selectBestDoublePoint(buckets, xs, ys, i));
+  /**
+   * Returns a downsampled version of the series of {@code plan.size()} points held in the parallel
+   * {@code xs} and {@code ys} arrays from {@code offset}, split into the buckets described by the
+   * provided {@link BucketPlan}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @return the coordinates of the downsampled output, with {@code plan.bucketCount() + 2} points
+   */
+  public static DoubleColumns sorted(double[] xs, double[] ys, int offset, BucketPlan plan) {
+    return Downsampler.create().sorted(xs, ys, offset, plan);
+  }
 
-    List<DoublePoint> results = new ArrayList<>(desiredBuckets + 2);
-    results.add(buckets.getFirst().getFirst());
-    results.addAll(Arrays.asList(middleResults));
-    results.add(buckets.getLast().getLast());
-    return results;
+  /**
+   * Returns a downsampled version of the provided {@code input} list of elements of any type,
+   * reading their coordinates with the provided accessors.
+   *
+   * <p>The input list must be sorted by x value. This avoids wrapping every element in a
+   * {@link Point}: coordinates are extracted once into primitive columns, and the selected
+   * elements are returned as they are:
+   *
+   * <pre>{@code
+   * List<Row> output = LTThreeBuckets.sorted(
+   *     rows, row -> row.ts().toEpochMilli(), row -> row.value().doubleValue(), 200);
+   * }</pre>
+   *
+   * @param input          the input list of elements to downsample
+   * @param x              returns the x (horizontal / time) value of an element
+   * @param y              returns the y (vertical / value) value of an element
+   * @param desiredBuckets the desired number of buckets for the downsampled output list
+   * @param <T>            the type of the elements in the input list
+   * @return the downsampled output list
+   */
+  public static <T> List<T> sorted(
+      List<T> input, ToDoubleFunction<? super T> x, ToDoubleFunction<? super T> y, int desiredBuckets) {
+    return Downsampler.create().sorted(input, x, y, desiredBuckets);
   }
 
   /**
-   * Selects the {@link DoublePoint} from the center bucket at window {@code offset} that forms
-   * the triangle with the largest area, operating entirely on primitive {@code double[]} arrays.
+   * Returns a downsampled version of the provided {@code input} list of elements of any type,
+   * reading their coordinates with the provided accessors, using the specified
+   * {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * @param input          the input list of elements to downsample
+   * @param x              returns the x (horizontal / time) value of an element
+   * @param y              returns the y (vertical / value) value of an element
+   * @param desiredBuckets the desired number of buckets for the downsampled output list
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @param <T>            the type of the elements in the input list
+   * @return the downsampled output list
    */
-  private static DoublePoint selectBestDoublePoint(
-      List<Bucket<DoublePoint>> buckets,
+  public static <T> List<T> sorted(
+      List<T> input,
+      ToDoubleFunction<? super T> x,
+      ToDoubleFunction<? super T> y,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .sorted(input, x, y, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), together with
+   * the count, lowest, highest and sum of the y values of the bucket of every selected point.
+   *
+   * <p>The statistics are computed in the same pass that selects the points. See
+   * {@link Downsampler#summarized(double[], double[], int, int, int)} for details.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output and the statistics of their buckets
+   */
+  public static SummarizedColumns summarized(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    return Downsampler.create().summarized(xs, ys, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive), together with
+   * the statistics of the bucket of every selected point, using the specified
+   * {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @return the coordinates of the downsampled output and the statistics of their buckets
+   */
+  public static SummarizedColumns summarized(
       double[] xs,
       double[] ys,
-      int offset) {
-    Bucket<DoublePoint> left = buckets.get(offset);
-    Bucket<DoublePoint> center = buckets.get(offset + 1);
-    Bucket<DoublePoint> right = buckets.get(offset + 2);
-
-    double lx = left.getResult().x();
-    double ly = left.getResult().y();
-    double rx = right.getCenter().x();
-    double ry = right.getCenter().y();
-
-    DoublePoint bestPoint = null;
-    double bestArea = -1.0;
-
-    for (DoublePoint candidate : center.points()) {
-      double cx = candidate.x();
-      double cy = candidate.y();
-      // area of a triangle = |[Ax(By - Cy) + Bx(Cy - Ay) + Cx(Ay - By)] / 2|
-      double area = Math.abs(lx * (cy - ry) + cx * (ry - ly) + rx * (ly - cy)) / 2.0;
-      if (area > bestArea) {
-        bestArea = area;
-        bestPoint = candidate;
-      }
-    }
-
-    return bestPoint;
-  }
-
-  /**
-   * Generic path for arbitrary {@link Point} implementations.
-   *
-   * <p>Uses the index-based {@link Triangle#of(List, int)} factory to avoid allocating a
-   * {@code subList} view on each iteration, and runs in parallel above
-   * {@value #PARALLEL_THRESHOLD} buckets.
-   */
-  @SuppressWarnings("unchecked")
-  private static <T extends Point> List<T> sortedGeneric(
-      List<Bucket<T>> buckets,
-      int desiredBuckets) {
-    T[] middleResults = (T[]) new Point[desiredBuckets];
-
-    IntStream stream = IntStream.range(0, desiredBuckets);
-    if (desiredBuckets >= PARALLEL_THRESHOLD) {
-      stream = stream.parallel();
-    }
-
-    stream.forEach(i -> middleResults[i] = Triangle.of(buckets, i).getResult());
-
-    List<T> results = new ArrayList<>(desiredBuckets + 2);
-    results.add(buckets.getFirst().getFirst());
-    results.addAll(Arrays.asList(middleResults));
-    results.add(buckets.getLast().getLast());
-    return results;
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .summarized(xs, ys, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of every series of a batch, in the iteration order of the
+   * provided collection.
+   *
+   * <p>The whole batch is scheduled at once, grouping light series and splitting heavy ones. See
+   * {@link Downsampler#indicesAll(Collection, int)} for details.
+   *
+   * @param series         the series to downsample, each one sorted by x value
+   * @param desiredBuckets the desired number of buckets for every downsampled output
+   * @return the coordinates of the downsampled output of every series, in iteration order
+   */
+  public static List<DoubleColumns> sortedAll(Collection<DoubleColumns> series, int desiredBuckets) {
+    return Downsampler.create().sortedAll(series, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of every channel of a multi-channel series, made of one
+   * {@code xs} column shared by several {@code channels} of y values, from {@code offset}
+   * (inclusive) to {@code offset + length} (exclusive).
+   *
+   * <p>The series is bucketized once, and every bucket is scanned once for all the channels. See
+   * {@link Downsampler#channelSorted(double[], double[][], int, int, int)} for details.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output of every channel, in channel order
+   */
+  public static List<DoubleColumns> channelSorted(
+      double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    return Downsampler.create().channelSorted(xs, channels, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of every channel of a multi-channel series, using the specified
+   * {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @return the coordinates of the downsampled output of every channel, in channel order
+   */
+  public static List<DoubleColumns> channelSorted(
+      double[] xs,
+      double[][] channels,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .channelSorted(xs, channels, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of a multi-channel series, made of one {@code xs} column shared
+   * by several {@code channels} of y values, with the same points selected in every channel.
+   *
+   * <p>See {@link Downsampler#sharedSorted(double[], double[][], int, int, int)} for details on
+   * how the shared points are selected.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the coordinates of the downsampled output, sharing one x column
+   */
+  public static ChannelColumns sharedSorted(
+      double[] xs, double[][] channels, int offset, int length, int desiredBuckets) {
+    return Downsampler.create().sharedSorted(xs, channels, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns a downsampled version of a multi-channel series with the same points selected in
+   * every channel, using the specified {@link BucketizationStrategy} and {@link SelectionMode}.
+   *
+   * @param xs             the x values of the input series, shared by all channels
+   * @param channels       the y values of every channel of the input series
+   * @param offset         the index of the first point of the series in all arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @return the coordinates of the downsampled output, sharing one x column
+   */
+  public static ChannelColumns sharedSorted(
+      double[] xs,
+      double[][] channels,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .sharedSorted(xs, channels, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version.
+   *
+   * <p>The selected points are the same ones {@link #sorted(List, int)} would return, in the
+   * same order. The positions can be used to gather values from any other structure that is
+   * aligned with the input list.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   */
+  public static <T extends Point> int[] indices(List<T> input, int desiredBuckets) {
+    return indices(input, desiredBuckets, BucketizationStrategy.DYNAMIC);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version, using the specified {@link BucketizationStrategy}.
+   *
+   * <p>The selected points are the same ones {@link #sorted(List, int, BucketizationStrategy)}
+   * would return, in the same order.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   */
+  public static <T extends Point> int[] indices(
+      List<T> input, int desiredBuckets, BucketizationStrategy strategy) {
+    return indices(input, desiredBuckets, strategy, SelectionMode.INDEPENDENT);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version, using the specified {@link BucketizationStrategy} and
+   * {@link SelectionMode}.
+   *
+   * @param input          the input list of {@link Point} points to downsample
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @param <T>            the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   */
+  public static <T extends Point> int[] indices(
+      List<T> input, int desiredBuckets, BucketizationStrategy strategy, SelectionMode mode) {
+    return Downsampler.create().withStrategy(strategy).withSelectionMode(mode).indices(input, desiredBuckets);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive).
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public static int[] indices(double[] xs, double[] ys, int offset, int length, int desiredBuckets) {
+    return indices(xs, ys, offset, length, desiredBuckets, BucketizationStrategy.DYNAMIC);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive), using the specified {@link BucketizationStrategy}.
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public static int[] indices(
+      double[] xs, double[] ys, int offset, int length, int desiredBuckets, BucketizationStrategy strategy) {
+    return indices(xs, ys, offset, length, desiredBuckets, strategy, SelectionMode.INDEPENDENT);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series between {@code offset} (inclusive) and
+   * {@code offset + length} (exclusive), using the specified {@link BucketizationStrategy} and
+   * {@link SelectionMode}.
+   *
+   * @param xs             the x values of the input series
+   * @param ys             the y values of the input series
+   * @param offset         the index of the first point of the series in both arrays
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param strategy       the bucketization strategy to use
+   * @param mode           the selection mode to use
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public static int[] indices(
+      double[] xs,
+      double[] ys,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode) {
+    return Downsampler.create()
+        .withStrategy(strategy)
+        .withSelectionMode(mode)
+        .indices(xs, ys, offset, length, desiredBuckets);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points that make up its
+   * downsampled version, split into the buckets described by the provided {@link BucketPlan}.
+   *
+   * @param input the input list of {@link Point} points to downsample
+   * @param plan  the bucket plan of the input list
+   * @param <T>   the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   * @throws IllegalArgumentException when the size of the input list doesn't match the plan
+   */
+  public static <T extends Point> int[] indices(List<T> input, BucketPlan plan) {
+    return Downsampler.create().indices(input, plan);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points that make up the
+   * downsampled version of the series of {@code plan.size()} points starting at {@code offset},
+   * split into the buckets described by the provided {@link BucketPlan}.
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param plan   the bucket plan of the series
+   * @return the ascending positions of the selected points in the input arrays
+   */
+  public static int[] indices(double[] xs, double[] ys, int offset, BucketPlan plan) {
+    return Downsampler.create().indices(xs, ys, offset, plan);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the elements that make up its
+   * downsampled version, reading their coordinates with the provided accessors.
+   *
+   * <p>The selected elements are the same ones
+   * {@link #sorted(List, ToDoubleFunction, ToDoubleFunction, int)} would return, in the same
+   * order.
+   *
+   * @param input          the input list of elements, sorted by x value
+   * @param x              returns the x (horizontal / time) value of an element
+   * @param y              returns the y (vertical / value) value of an element
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @param <T>            the type of the elements in the input list
+   * @return the ascending positions of the selected elements in the input list
+   */
+  public static <T> int[] indices(
+      List<T> input, ToDoubleFunction<? super T> x, ToDoubleFunction<? super T> y, int desiredBuckets) {
+    return Downsampler.create().indices(input, x, y, desiredBuckets);
   }
 }
@@ -0,0 +1,163 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A file of precomputed {@link LodPyramid} levels written by {@link LodFileWriter}, mapped into
+ * memory so that its series can be queried right after opening it.
+ *
+ * <p>Opening a file only reads its index. Levels are read in place, without copying them to the
+ * heap, as {@link MappedPyramid} queries touch them:
+ *
+ * <pre>{@code
+ * try (LodFile file = LodFile.open(path)) {
+ *   DoubleColumns visible = file.pyramid("cpu.load").query(viewportStart, viewportEnd, chartWidth);
+ * }
+ * }</pre>
+ *
+ * <p>Files can be queried from several threads at the same time. Closing a file unmaps it, and
+ * pyramids obtained from it can't be queried afterwards.
+ *
+ * @see LodFileWriter
+ */
+public final class LodFile implements AutoCloseable {
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+  private final Arena arena;
+  private final Map<String, MappedPyramid> pyramids;
+
+  private LodFile(Arena arena, Map<String, MappedPyramid> pyramids) {
+    this.arena = arena;
+    this.pyramids = pyramids;
+  }
+
+  /**
+   * Maps the file at {@code path}, whose pyramids are queried with the default {@link Downsampler}
+   * configuration.
+   *
+   * @param path the path of the file
+   * @return the mapped file
+   * @throws IOException when the file can't be read, or wasn't written by a {@link LodFileWriter}
+   */
+  public static LodFile open(Path path) throws IOException {
+    return open(path, Downsampler.create());
+  }
+
+  /**
+   * Maps the file at {@code path}, whose pyramids are queried with the provided
+   * {@code downsampler}.
+   *
+   * @param path        the path of the file
+   * @param downsampler the downsampler used to query the pyramids
+   * @return the mapped file
+   * @throws IOException when the file can't be read, or wasn't written by a {@link LodFileWriter}
+   */
+  public static LodFile open(Path path, Downsampler downsampler) throws IOException {
+    Arena arena = Arena.ofShared();
+    try (FileChannel channel = FileChannel.open(path)) {
+      MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+      return new LodFile(arena, readIndex(path, file, downsampler));
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the names of the series of this file.
+   *
+   * @return the names of the series of this file
+   */
+  public Set<String> names() {
+    return Collections.unmodifiableSet(pyramids.keySet());
+  }
+
+  /**
+   * Returns the pyramid of the series with the provided {@code name}.
+   *
+   * @param name the name of the series
+   * @return the pyramid of the series
+   * @throws IllegalArgumentException when the file has no series with that name
+   */
+  public MappedPyramid pyramid(String name) {
+    MappedPyramid pyramid = pyramids.get(name);
+    if (pyramid == null) {
+      throw new IllegalArgumentException("Unknown series " + name);
+    }
+    return pyramid;
+  }
+
+  /**
+   * Unmaps the file.
+   */
+  @Override
+  public void close() {
+    arena.close();
+  }
+
+  private static Map<String, MappedPyramid> readIndex(Path path, MemorySegment file, Downsampler downsampler)
+      throws IOException {
+    if (file.byteSize() < LodFileWriter.HEADER_SIZE
+        || file.get(LONG, 0) != LodFileWriter.MAGIC
+        || file.get(INT, 8) != LodFileWriter.VERSION) {
+      throw new IOException("Not a level-of-detail file, or not closed by its writer: " + path);
+    }
+    int count = file.get(INT, 12);
+    long offset = file.get(LONG, 16);
+    // Every series takes at least the length of its name and its level count in the index
+    if (count < 0
+        || offset < LodFileWriter.HEADER_SIZE
+        || offset > file.byteSize()
+        || (long) count * 2 * Integer.BYTES > file.byteSize() - offset) {
+      throw new IOException("Corrupt level-of-detail index: " + path);
+    }
+    Map<String, MappedPyramid> pyramids = HashMap.newHashMap(count);
+    try {
+      for (int series = 0; series < count; series++) {
+        MemorySegment name = file.asSlice(offset + Integer.BYTES, file.get(INT, offset));
+        offset += Integer.BYTES + name.byteSize();
+        int levelCount = file.get(INT, offset);
+        offset += Integer.BYTES;
+        if (levelCount < 0 || (long) levelCount * 2 * Long.BYTES > file.byteSize() - offset) {
+          throw new IOException("Corrupt level-of-detail index: " + path);
+        }
+        List<SegmentSeries> levels = new ArrayList<>(levelCount);
+        for (int level = 0; level < levelCount; level++) {
+          long start = file.get(LONG, offset);
+          long size = file.get(LONG, offset + Long.BYTES);
+          // Both columns of the level must lie within the file
+          if (start < 0 || start > file.byteSize() || size < 0 || size > (file.byteSize() - start) / 2 / Double.BYTES) {
+            throw new IOException("Corrupt level-of-detail index: " + path);
+          }
+          long columnSize = size * Double.BYTES;
+          levels.add(SegmentSeries.columnar(
+              file.asSlice(start, columnSize),
+              file.asSlice(start + columnSize, columnSize)
+          ));
+          offset += 2 * Long.BYTES;
+        }
+        pyramids.put(
+            new String(name.toArray(ValueLayout.JAVA_BYTE), StandardCharsets.UTF_8),
+            new MappedPyramid(downsampler, levels)
+        );
+      }
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Truncated level-of-detail file: " + path, e);
+    }
+    return pyramids;
+  }
+}
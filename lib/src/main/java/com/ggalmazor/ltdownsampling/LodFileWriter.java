@@ -0,0 +1,172 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes the {@link LodPyramid} levels of many series into a file that {@link LodFile} maps into
+ * memory.
+ *
+ * <p>Pyramids are built with the provided {@link Downsampler} as series are added, and their levels
+ * are written right away, so only one series needs to be in memory at a time. The header of the
+ * file is written on {@link #close()}: files that were not closed are rejected by
+ * {@link LodFile#open(Path)}.
+ *
+ * <pre>{@code
+ * try (LodFileWriter writer = LodFileWriter.create(path, Downsampler.create())) {
+ *   for (Metric metric : metrics) {
+ *     writer.add(metric.name(), metric.times(), metric.values());
+ *   }
+ * }
+ * }</pre>
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @see LodFile
+ */
+public final class LodFileWriter implements AutoCloseable {
+  // Layout, in little-endian byte order:
+  //   header  magic (8 bytes), version (int), series count (int), index offset (long)
+  //   levels  for every level of every series, its x column followed by its y column
+  //   index   for every series: name length (int), UTF-8 name, level count (int), and for
+  //           every level its offset (long) and number of points (long)
+  static final long MAGIC = 0x31444F4C4254544CL; // "LTTBLOD1"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 24;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final FileChannel channel;
+  private final Downsampler downsampler;
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  private final Map<String, long[]> index = new LinkedHashMap<>();
+  private long position = HEADER_SIZE;
+
+  private LodFileWriter(FileChannel channel, Downsampler downsampler) {
+    this.channel = channel;
+    this.downsampler = downsampler;
+  }
+
+  /**
+   * Creates a new file at {@code path}, whose pyramids are built with the provided
+   * {@code downsampler}.
+   *
+   * @param path        the path of the file, which must not exist
+   * @param downsampler the downsampler used to build the pyramids
+   * @return a writer of the new file
+   * @throws IOException when the file can't be created
+   */
+  public static LodFileWriter create(Path path, Downsampler downsampler) throws IOException {
+    return new LodFileWriter(
+        FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE),
+        downsampler
+    );
+  }
+
+  /**
+   * Builds the pyramid of the series held in the parallel {@code xs} and {@code ys} arrays, and
+   * writes all its levels under the provided {@code name}.
+   *
+   * <p>The series must be sorted by x value.
+   *
+   * @param name the name of the series
+   * @param xs   the x values of the series
+   * @param ys   the y values of the series
+   * @throws IOException when the levels can't be written
+   * @throws IllegalArgumentException when a series with the same name was already added, or the
+   *     arrays have different lengths
+   */
+  public void add(String name, double[] xs, double[] ys) throws IOException {
+    add(name, downsampler.newPyramid(xs, ys));
+  }
+
+  /**
+   * Writes all the levels of the provided {@code pyramid} under the provided {@code name}.
+   *
+   * @param name    the name of the series
+   * @param pyramid the pyramid of the series
+   * @throws IOException when the levels can't be written
+   * @throws IllegalArgumentException when a series with the same name was already added
+   */
+  public void add(String name, LodPyramid pyramid) throws IOException {
+    if (index.containsKey(name)) {
+      throw new IllegalArgumentException("Series " + name + " was already added");
+    }
+    long[] levels = new long[2 * pyramid.levelCount()];
+    for (int level = 0; level < pyramid.levelCount(); level++) {
+      DoubleColumns points = pyramid.level(level);
+      levels[2 * level] = position;
+      levels[2 * level + 1] = points.size();
+      writeColumn(points.xs());
+      writeColumn(points.ys());
+    }
+    index.put(name, levels);
+  }
+
+  /**
+   * Writes the index and the header, and closes the file.
+   *
+   * @throws IOException when the index or the header can't be written
+   */
+  @Override
+  public void close() throws IOException {
+    try (channel) {
+      long indexOffset = position;
+      for (Map.Entry<String, long[]> entry : index.entrySet()) {
+        byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(name.length);
+        for (byte character : name) {
+          ensureRemaining(1);
+          buffer.put(character);
+        }
+        long[] levels = entry.getValue();
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(levels.length / 2);
+        for (long value : levels) {
+          ensureRemaining(Long.BYTES);
+          buffer.putLong(value);
+        }
+      }
+      flush();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+          .putLong(MAGIC)
+          .putInt(VERSION)
+          .putInt(index.size())
+          .putLong(indexOffset)
+          .flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+    }
+  }
+
+  private void writeColumn(double[] values) throws IOException {
+    for (double value : values) {
+      ensureRemaining(Double.BYTES);
+      buffer.putDouble(value);
+    }
+    flush();
+  }
+
+  private void ensureRemaining(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    buffer.clear();
+  }
+}
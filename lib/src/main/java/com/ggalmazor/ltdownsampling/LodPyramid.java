@@ -0,0 +1,110 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Precomputed levels of detail of a series, which answer viewport queries without reading the
+ * whole series.
+ *
+ * <p>Level 0 is the series itself. Every other level is the previous one downsampled to a
+ * {@value #LEVEL_RATIO}th of its points, down to the last level holding at least
+ * {@value #MIN_LEVEL_SIZE} points. All levels together take a third of the memory of the series
+ * on top of it, and building them costs about {@code 4/3} of a downsampling pass over the series.
+ *
+ * <p>{@link #query(double, double, int)} picks the coarsest level that still holds at least
+ * {@value #OVERSAMPLING} points per pixel within the viewport, and only downsamples that slice of
+ * it, so zooming and panning costs {@code O(log(size) + pixels)} regardless of the length of the
+ * series:
+ *
+ * <pre>{@code
+ * LodPyramid pyramid = Downsampler.create().newPyramid(xs, ys);
+ * DoubleColumns visible = pyramid.query(viewportStart, viewportEnd, chartWidth);
+ * }</pre>
+ *
+ * <p>Pyramids are immutable, and can be queried from several threads at the same time. The arrays
+ * of the series are not copied, and must not be modified afterwards.
+ *
+ * @see Downsampler#newPyramid(double[], double[])
+ */
+public final class LodPyramid {
+  static final int LEVEL_RATIO = 4;
+  static final int MIN_LEVEL_SIZE = 64;
+  static final int OVERSAMPLING = 4;
+
+  private final Downsampler downsampler;
+  private final List<DoubleColumns> levels;
+  private final List<PositionalSeries> positionalLevels;
+
+  LodPyramid(Downsampler downsampler, double[] xs, double[] ys) {
+    this(downsampler, buildLevels(downsampler, new DoubleColumns(xs, ys)));
+  }
+
+  LodPyramid(Downsampler downsampler, List<DoubleColumns> levels) {
+    this.downsampler = downsampler;
+    this.levels = List.copyOf(levels);
+    this.positionalLevels = this.levels.stream().map(DoubleColumns::positional).toList();
+  }
+
+  /**
+   * Returns the number of levels of this pyramid, including the series itself.
+   *
+   * @return the number of levels of this pyramid
+   */
+  public int levelCount() {
+    return levels.size();
+  }
+
+  /**
+   * Returns the points of the level at {@code level}, where level 0 is the series itself. The
+   * returned arrays must not be modified.
+   *
+   * @param level the level, from 0 to {@code levelCount() - 1}
+   * @return the points of the level
+   * @throws IndexOutOfBoundsException when the level doesn't exist
+   */
+  public DoubleColumns level(int level) {
+    return levels.get(level);
+  }
+
+  /**
+   * Returns a downsampled version of the part of the series between {@code minX} and {@code maxX},
+   * with at most {@code pixels + 2} points.
+   *
+   * <p>The output starts at the last point at or before {@code minX}, and ends at the first point
+   * at or after {@code maxX}, so that lines can be drawn up to both edges of the viewport. Slices of
+   * at most {@code pixels + 2} points are returned as they are.
+   *
+   * @param minX   the x value of the left edge of the viewport
+   * @param maxX   the x value of the right edge of the viewport
+   * @param pixels the width of the viewport, used as the number of buckets
+   * @return the coordinates of the downsampled slice
+   * @throws IllegalArgumentException when {@code minX} is greater than {@code maxX}, or
+   *     {@code pixels} is lower than 1
+   */
+  public DoubleColumns query(double minX, double maxX, int pixels) {
+    ViewportSlice viewport = ViewportSlice.of(positionalLevels, minX, maxX, pixels);
+    DoubleColumns points = levels.get(viewport.level());
+    int from = (int) viewport.from();
+    int length = (int) viewport.length();
+    if (viewport.fits(pixels)) {
+      return new DoubleColumns(
+          Arrays.copyOfRange(points.xs(), from, from + length),
+          Arrays.copyOfRange(points.ys(), from, from + length)
+      );
+    }
+    return downsampler.sorted(points.xs(), points.ys(), from, length, pixels);
+  }
+
+  private static List<DoubleColumns> buildLevels(Downsampler downsampler, DoubleColumns series) {
+    List<DoubleColumns> levels = new ArrayList<>();
+    levels.add(series);
+    DoubleColumns current = series;
+    while (current.size() / LEVEL_RATIO >= MIN_LEVEL_SIZE) {
+      current = downsampler.sorted(current.xs(), current.ys(), 0, current.size(), current.size() / LEVEL_RATIO - 2);
+      levels.add(current);
+    }
+    return levels;
+  }
+}
@@ -0,0 +1,131 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * M4 aggregation: an alternative to {@link LTThreeBuckets} for line charts rendered at a known
+ * pixel width.
+ *
+ * <p>The series is split into {@code pixels} columns of equal x-span, as with
+ * {@link BucketizationStrategy#FIXED}, and every column keeps its first and last points and the
+ * points with its lowest and highest y values. Drawing lines between the output points produces
+ * the same pixels as drawing the whole series at that width, and selecting them only takes one
+ * linear pass over the y values. Unlike LTTB, the output has a variable size of up to
+ * {@code 4 * pixels + 2} points:
+ *
+ * <pre>{@code
+ * DoubleColumns output = M4.sorted(xs, ys, 0, xs.length, chartWidth);
+ * }</pre>
+ *
+ * <p>As with {@link LTThreeBuckets}, the first and last points of the series are kept on their
+ * own, empty columns are skipped, and ties are resolved in favour of the first point. None of
+ * the methods in this class will mutate input lists, arrays, or their elements. They delegate to
+ * {@link Downsampler#create()}; use {@link Downsampler#m4Sorted} on a configured
+ * {@link Downsampler} to scan columns with its executor and {@link ParallelismPolicy}.
+ */
+public final class M4 {
+
+  private M4() {}
+
+  /**
+   * Returns the M4 aggregation of the provided {@code input} list.
+   *
+   * <p>The input list must be sorted by {@link Point#x()}.
+   *
+   * @param input  the input list of {@link Point} points to downsample
+   * @param pixels the width of the chart, used as the number of columns
+   * @param <T>    the type of the {@link Point} elements in the input list
+   * @return the downsampled output list, with up to {@code 4 * pixels + 2} points
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public static <T extends Point> List<T> sorted(List<T> input, int pixels) {
+    return Downsampler.create().m4Sorted(input, pixels);
+  }
+
+  /**
+   * Returns the M4 aggregation of the series held in the parallel {@code xs} and {@code ys}
+   * arrays, from {@code offset} (inclusive) to {@code offset + length} (exclusive).
+   *
+   * <p>The series must be sorted by x value.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param length the number of points in the series
+   * @param pixels the width of the chart, used as the number of columns
+   * @return the coordinates of the downsampled output, with up to {@code 4 * pixels + 2} points
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public static DoubleColumns sorted(double[] xs, double[] ys, int offset, int length, int pixels) {
+    return Downsampler.create().m4Sorted(xs, ys, offset, length, pixels);
+  }
+
+  /**
+   * Returns the positions in the provided {@code input} list of the points of its M4 aggregation.
+   *
+   * @param input  the input list of {@link Point} points, sorted by {@link Point#x()}
+   * @param pixels the width of the chart, used as the number of columns
+   * @param <T>    the type of the {@link Point} elements in the input list
+   * @return the ascending positions of the selected points in the input list
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public static <T extends Point> int[] indices(List<T> input, int pixels) {
+    return Downsampler.create().m4Indices(input, pixels);
+  }
+
+  /**
+   * Returns the positions in the {@code xs} and {@code ys} arrays of the points of the M4
+   * aggregation of the series between {@code offset} (inclusive) and {@code offset + length}
+   * (exclusive).
+   *
+   * <p>Positions are absolute indices in the input arrays, not relative to {@code offset}. Columns
+   * are scanned in parallel as {@link Downsampler#create()} would decide for an LTTB request of the
+   * same size.
+   *
+   * @param xs     the x values of the input series
+   * @param ys     the y values of the input series
+   * @param offset the index of the first point of the series in both arrays
+   * @param length the number of points in the series
+   * @param pixels the width of the chart, used as the number of columns
+   * @return the ascending positions of the selected points in the input arrays
+   * @throws IllegalArgumentException when {@code pixels} is lower than 1, or the points don't
+   *     span a positive x-interval
+   */
+  public static int[] indices(double[] xs, double[] ys, int offset, int length, int pixels) {
+    return Downsampler.create().m4Indices(xs, ys, offset, length, pixels);
+  }
+
+  /**
+   * Returns the positions of the points of the M4 aggregation of the {@code length} points of the
+   * arrays starting at {@code offset}, scanning its columns with the provided {@code runner}.
+   */
+  static int[] select(double[] xs, double[] ys, int offset, int length, int pixels, TaskRunner runner) {
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, pixels, BucketizationStrategy.FIXED, runner);
+    int columns = bounds.length - 1;
+    int[] selected = new int[4 * columns + 2];
+    selected[0] = offset;
+    selected[selected.length - 1] = offset + length - 1;
+
+    // Disjoint groups of 4 slots of the selected array are written by each column
+    runner.forEach(columns, column -> {
+      int from = bounds[column];
+      int to = bounds[column + 1];
+      selected[4 * column + 1] = from;
+      MinMaxPreselection.extremes(ys, from, to, selected, 4 * column + 2);
+      selected[4 * column + 4] = to - 1;
+    });
+
+    // Every group is ascending, and duplicates are next to each other
+    int size = 1;
+    for (int i = 1; i < selected.length; i++) {
+      if (selected[i] != selected[size - 1]) {
+        selected[size++] = selected[i];
+      }
+    }
+    return size == selected.length ? selected : Arrays.copyOf(selected, size);
+  }
+}
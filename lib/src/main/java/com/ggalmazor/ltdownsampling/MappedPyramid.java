@@ -0,0 +1,66 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.List;
+
+/**
+ * The levels of detail of a series stored in a {@link LodFile}, read in place from the mapped
+ * file.
+ *
+ * <p>Levels and queries behave as those of the {@link LodPyramid} the levels were written from.
+ *
+ * @see LodFile#pyramid(String)
+ */
+public final class MappedPyramid {
+  private final Downsampler downsampler;
+  private final List<SegmentSeries> levels;
+
+  MappedPyramid(Downsampler downsampler, List<SegmentSeries> levels) {
+    this.downsampler = downsampler;
+    this.levels = List.copyOf(levels);
+  }
+
+  /**
+   * Returns the number of levels of this pyramid, including the series itself.
+   *
+   * @return the number of levels of this pyramid
+   */
+  public int levelCount() {
+    return levels.size();
+  }
+
+  /**
+   * Returns the points of the level at {@code level}, where level 0 is the series itself.
+   *
+   * @param level the level, from 0 to {@code levelCount() - 1}
+   * @return the points of the level, read in place from the file
+   * @throws IndexOutOfBoundsException when the level doesn't exist
+   */
+  public SegmentSeries level(int level) {
+    return levels.get(level);
+  }
+
+  /**
+   * Returns a downsampled version of the part of the series between {@code minX} and {@code maxX},
+   * with at most {@code pixels + 2} points. See {@link LodPyramid#query(double, double, int)} for
+   * details on the output.
+   *
+   * @param minX   the x value of the left edge of the viewport
+   * @param maxX   the x value of the right edge of the viewport
+   * @param pixels the width of the viewport, used as the number of buckets
+   * @return the coordinates of the downsampled slice
+   * @throws IllegalArgumentException when {@code minX} is greater than {@code maxX}, or
+   *     {@code pixels} is lower than 1
+   */
+  public DoubleColumns query(double minX, double maxX, int pixels) {
+    ViewportSlice viewport = ViewportSlice.of(levels, minX, maxX, pixels);
+    SegmentSeries slice = levels.get(viewport.level()).slice(viewport.from(), viewport.length());
+    if (viewport.fits(pixels)) {
+      long[] positions = new long[(int) viewport.length()];
+      for (int i = 0; i < positions.length; i++) {
+        positions[i] = i;
+      }
+      return DoubleColumns.gather(slice, positions);
+    }
+    return downsampler.sorted(slice, pixels);
+  }
+}
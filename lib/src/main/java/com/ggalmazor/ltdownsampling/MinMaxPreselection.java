@@ -0,0 +1,98 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+
+/**
+ * First stage of MinMaxLTTB: reduces a series to the points with the lowest and highest y value of
+ * each of many small partitions, so that LTTB only has to run over a few survivors per bucket.
+ *
+ * <p>Partitions follow the {@link BucketizationStrategy} of the request, and are scanned
+ * independently of each other, so the scan is split across every thread of the
+ * {@link TaskRunner} it runs on. Partitions are scanned with {@link VectorMinMaxKernel} when
+ * {@link TriangleKernel#VECTORIZED} is set. The first and last points of the series always survive.
+ */
+final class MinMaxPreselection {
+
+  private MinMaxPreselection() {}
+
+  /**
+   * Returns the ascending positions of the points of the series between {@code offset} (inclusive)
+   * and {@code offset + length} (exclusive) that hold the lowest or the highest y value of their
+   * partition, together with the first and last points of the series.
+   *
+   * <p>Ties are resolved in favour of the lowest position, and partitions whose extremes are the
+   * same point only contribute it once.
+   *
+   * @param xs         the x values of the series
+   * @param ys         the y values of the series
+   * @param offset     the index of the first point of the series in both arrays
+   * @param length     the number of points of the series, at least 3
+   * @param partitions the desired number of partitions of the middle points
+   * @param strategy   the strategy used to split the middle points into partitions
+   * @param runner     runs the scan of every partition
+   * @return the ascending positions of the surviving points
+   */
+  static int[] survivors(
+      double[] xs,
+      double[] ys,
+      int offset,
+      int length,
+      int partitions,
+      BucketizationStrategy strategy,
+      TaskRunner runner) {
+    int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, partitions, strategy, runner);
+    int count = bounds.length - 1;
+    int[] extremes = new int[2 * count + 2];
+    extremes[0] = offset;
+    extremes[extremes.length - 1] = offset + length - 1;
+
+    // Disjoint pairs of slots of the extremes array are written by each partition
+    runner.forEach(count, partition -> {
+      extremes(ys, bounds[partition], bounds[partition + 1], extremes, 2 * partition + 1);
+    });
+
+    int size = 1;
+    for (int i = 1; i < extremes.length; i++) {
+      if (extremes[i] != extremes[size - 1]) {
+        extremes[size++] = extremes[i];
+      }
+    }
+    return size == extremes.length ? extremes : Arrays.copyOf(extremes, size);
+  }
+
+  /**
+   * Writes the positions in {@code [from, to)} of the first lowest and the first highest y values
+   * into {@code extremes[slot]} and {@code extremes[slot + 1]}, in ascending order. NaN values are
+   * never selected, unless the range starts with one. Uses the Vector API kernel when available.
+   */
+  static void extremes(double[] ys, int from, int to, int[] extremes, int slot) {
+    if (TriangleKernel.VECTORIZED && to - from >= VectorMinMaxKernel.MIN_LENGTH) {
+      VectorMinMaxKernel.extremes(ys, from, to, extremes, slot);
+    } else {
+      scalarExtremes(ys, from, to, extremes, slot);
+    }
+  }
+
+  /**
+   * Scalar implementation of {@link #extremes}.
+   */
+  static void scalarExtremes(double[] ys, int from, int to, int[] extremes, int slot) {
+    int min = from;
+    int max = from;
+    double minY = ys[from];
+    double maxY = minY;
+    for (int i = from + 1; i < to; i++) {
+      double y = ys[i];
+      if (y < minY) {
+        minY = y;
+        min = i;
+      }
+      if (y > maxY) {
+        maxY = y;
+        max = i;
+      }
+    }
+    extremes[slot] = Math.min(min, max);
+    extremes[slot + 1] = Math.max(min, max);
+  }
+}
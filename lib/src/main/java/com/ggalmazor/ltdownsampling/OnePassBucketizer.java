@@ -1,7 +1,9 @@
 package com.ggalmazor.ltdownsampling;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.ListIterator;
 
 /**
  * Utility class that divides the input list of {@link Point} points into {@link Bucket} buckets
@@ -11,9 +13,29 @@ import java.util.List;
  * first and last points of the input series.
  *
  * <p>Two strategies are supported; see {@link BucketizationStrategy}.
+ *
+ * <p>Besides {@link Bucket} lists, this class can describe buckets over primitive coordinate
+ * arrays as plain index boundaries; see {@link #boundaries}.
  */
 class OnePassBucketizer {
 
+  /**
+   * Minimum average number of points per {@link BucketizationStrategy#FIXED} window for
+   * searching window starts instead of scanning every point.
+   */
+  static final int SEARCH_SPAN = 64;
+
+  /**
+   * Minimum number of points for scanning {@link BucketizationStrategy#FIXED} windows in
+   * parallel.
+   */
+  static final int PARALLEL_SCAN = 1 << 17;
+
+  /**
+   * Minimum number of points in each chunk of a parallel {@link BucketizationStrategy#FIXED} scan.
+   */
+  private static final int SCAN_CHUNK = 1 << 15;
+
   /**
    * Returns the list of {@link Bucket} buckets from the {@code input} list of points using the
    * count-based strategy.
@@ -41,12 +63,378 @@ class OnePassBucketizer {
    */
   static <T extends Point> List<Bucket<T>> bucketize(
       List<T> input, int inputSize, int desiredBuckets, BucketizationStrategy strategy) {
+    return bucketize(input, inputSize, desiredBuckets, strategy, SelectionMode.INDEPENDENT);
+  }
+
+  /**
+   * Returns the list of {@link Bucket} buckets from the {@code input} list of points using the
+   * specified {@link BucketizationStrategy}, with the {@link BucketizationStrategy#DYNAMIC} layout
+   * of the provided {@link SelectionMode}. See {@link #boundariesByReference}.
+   */
+  static <T extends Point> List<Bucket<T>> bucketize(
+      List<T> input, int inputSize, int desiredBuckets, BucketizationStrategy strategy, SelectionMode mode) {
+    if (strategy == BucketizationStrategy.DYNAMIC && mode == SelectionMode.EXACT) {
+      int[] bounds = new int[Math.min(desiredBuckets, Math.max(inputSize - 2, 0)) + 1];
+      boundariesByReference(0, inputSize, desiredBuckets, bounds);
+      List<Bucket<T>> buckets = new ArrayList<>(desiredBuckets + 2);
+      buckets.add(Bucket.of(input.getFirst(), 0));
+      for (int bucket = 0; bucket < desiredBuckets; bucket++) {
+        buckets.add(Bucket.of(input.subList(bounds[bucket], bounds[bucket + 1]), bounds[bucket]));
+      }
+      buckets.add(Bucket.of(input.getLast(), input.size() - 1));
+      return buckets;
+    }
     return switch (strategy) {
       case DYNAMIC -> bucketizeByCount(input, inputSize, desiredBuckets);
       case FIXED -> bucketizeByFixedSpan(input, desiredBuckets);
     };
   }
 
+  /**
+   * Returns the list of {@link Bucket} buckets of the {@code input} list described by the
+   * provided {@link BucketPlan}. Middle buckets are {@code subList} views.
+   *
+   * @param input the input list of points
+   * @param plan  the bucket plan of the input list
+   * @param <T>   the type of the {@link Point} points in the input list
+   * @return the list of buckets
+   */
+  static <T extends Point> List<Bucket<T>> bucketize(List<T> input, BucketPlan plan) {
+    int desiredBuckets = plan.bucketCount();
+    List<Bucket<T>> buckets = new ArrayList<>(desiredBuckets + 2);
+    buckets.add(Bucket.of(input.getFirst(), 0));
+    for (int bucket = 0; bucket < desiredBuckets; bucket++) {
+      int start = plan.start(bucket);
+      buckets.add(Bucket.of(input.subList(start, plan.end(bucket)), start));
+    }
+    buckets.add(Bucket.of(input.getLast(), input.size() - 1));
+    return buckets;
+  }
+
+  /**
+   * Returns the boundaries of the middle buckets for the {@code length} points of the {@code xs}
+   * array starting at {@code offset}, using the specified {@link BucketizationStrategy}.
+   *
+   * <p>The returned array has one element more than the number of middle buckets: middle bucket
+   * {@code k} spans the indices {@code [bounds[k], bounds[k + 1])}. Indices are absolute positions
+   * in {@code xs}. The first and last points, at {@code offset} and {@code offset + length - 1},
+   * are not part of any middle bucket.
+   *
+   * <p>Buckets are identical to the ones produced by {@link #bucketize}: the remainder of a
+   * {@link BucketizationStrategy#DYNAMIC} split goes to the first buckets, and empty
+   * {@link BucketizationStrategy#FIXED} windows are skipped. The overloads taking a
+   * {@link SelectionMode} split {@link BucketizationStrategy#DYNAMIC} buckets as the reference
+   * algorithm does in {@link SelectionMode#EXACT} mode; see {@link #boundariesByReference}.
+   *
+   * @param xs             the x values of the input series
+   * @param offset         the index of the first point of the series in {@code xs}
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired bucket count
+   * @param strategy       the bucketization strategy to use
+   * @return the boundaries of the middle buckets
+   */
+  static int[] boundaries(
+      double[] xs, int offset, int length, int desiredBuckets, BucketizationStrategy strategy) {
+    return boundaries(xs, offset, length, desiredBuckets, strategy, TaskRunner.SEQUENTIAL);
+  }
+
+  /**
+   * Returns the boundaries of the middle buckets, searching {@link BucketizationStrategy#FIXED}
+   * boundaries of large inputs with the provided {@code runner}. See
+   * {@link #boundaries(double[], int, int, int, BucketizationStrategy)}.
+   */
+  static int[] boundaries(
+      double[] xs, int offset, int length, int desiredBuckets, BucketizationStrategy strategy, TaskRunner runner) {
+    return boundaries(xs, offset, length, desiredBuckets, strategy, SelectionMode.INDEPENDENT, runner);
+  }
+
+  /**
+   * Returns the boundaries of the middle buckets, with the {@link BucketizationStrategy#DYNAMIC}
+   * layout of the provided {@link SelectionMode}. See
+   * {@link #boundaries(double[], int, int, int, BucketizationStrategy)}.
+   */
+  static int[] boundaries(
+      double[] xs,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode,
+      TaskRunner runner) {
+    // Exact for DYNAMIC and an upper bound for FIXED, which can't have more buckets than points.
+    // The FIXED window search needs one slot per window, though.
+    int capacity = Math.min(desiredBuckets, Math.max(length - 2, 0)) + 1;
+    if (strategy == BucketizationStrategy.FIXED && desiredBuckets < length) {
+      capacity = desiredBuckets + 1;
+    }
+    int[] bounds = new int[capacity];
+    int buckets = boundaries(xs, offset, length, desiredBuckets, strategy, mode, bounds, runner);
+    return buckets + 1 == bounds.length ? bounds : Arrays.copyOf(bounds, buckets + 1);
+  }
+
+  /**
+   * Writes the boundaries of the middle buckets into the provided {@code bounds} array, and
+   * returns the number of middle buckets. See
+   * {@link #boundaries(double[], int, int, int, BucketizationStrategy)}.
+   *
+   * <p>Only the first {@code buckets + 1} elements of {@code bounds} are written, and
+   * {@code desiredBuckets + 1} elements are always enough.
+   *
+   * @param xs             the x values of the input series
+   * @param offset         the index of the first point of the series in {@code xs}
+   * @param length         the number of points in the series
+   * @param desiredBuckets the desired bucket count
+   * @param strategy       the bucketization strategy to use
+   * @param bounds         the array receiving the boundaries of the middle buckets
+   * @return the number of middle buckets
+   */
+  static int boundaries(
+      double[] xs, int offset, int length, int desiredBuckets, BucketizationStrategy strategy, int[] bounds) {
+    return boundaries(xs, offset, length, desiredBuckets, strategy, bounds, TaskRunner.SEQUENTIAL);
+  }
+
+  /**
+   * Writes the boundaries of the middle buckets into the provided {@code bounds} array, searching
+   * {@link BucketizationStrategy#FIXED} boundaries of large inputs with the provided
+   * {@code runner}, and returns the number of middle buckets. See
+   * {@link #boundaries(double[], int, int, int, BucketizationStrategy, int[])}.
+   */
+  static int boundaries(
+      double[] xs,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      int[] bounds,
+      TaskRunner runner) {
+    return boundaries(xs, offset, length, desiredBuckets, strategy, SelectionMode.INDEPENDENT, bounds, runner);
+  }
+
+  /**
+   * Writes the boundaries of the middle buckets into the provided {@code bounds} array, with the
+   * {@link BucketizationStrategy#DYNAMIC} layout of the provided {@link SelectionMode}, and
+   * returns the number of middle buckets. See
+   * {@link #boundaries(double[], int, int, int, BucketizationStrategy, int[])}.
+   */
+  static int boundaries(
+      double[] xs,
+      int offset,
+      int length,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode,
+      int[] bounds,
+      TaskRunner runner) {
+    if (strategy == BucketizationStrategy.DYNAMIC && mode == SelectionMode.EXACT) {
+      return boundariesByReference(offset, length, desiredBuckets, bounds);
+    }
+    return switch (strategy) {
+      case DYNAMIC -> boundariesByCount(offset, length, desiredBuckets, bounds);
+      case FIXED -> boundariesByFixedSpan(xs, offset, length, desiredBuckets, bounds, runner);
+    };
+  }
+
+  /**
+   * Count-based boundaries of the {@code length} points starting at {@code offset}. Mirrors
+   * {@link #bucketizeByCount} without touching the points, in {@code O(desiredBuckets)} time.
+   */
+  static int[] boundariesByCount(int offset, int length, int desiredBuckets) {
+    int[] bounds = new int[Math.min(desiredBuckets, Math.max(length - 2, 0)) + 1];
+    boundariesByCount(offset, length, desiredBuckets, bounds);
+    return bounds;
+  }
+
+  /**
+   * Count-based boundaries. Mirrors {@link #bucketizeByCount} without touching the points.
+   */
+  private static int boundariesByCount(int offset, int length, int desiredBuckets, int[] bounds) {
+    int middleSize = length - 2;
+    int bucketSize = middleSize / desiredBuckets;
+    int remainingElements = middleSize % desiredBuckets;
+
+    if (bucketSize == 0) {
+      throw new IllegalArgumentException(
+          "Can't produce " + desiredBuckets + " buckets from an input series of "
+              + length + " elements");
+    }
+
+    bounds[0] = offset + 1;
+    for (int bucketIndex = 0; bucketIndex < desiredBuckets; bucketIndex++) {
+      int currentBucketSize = bucketIndex < remainingElements ? bucketSize + 1 : bucketSize;
+      bounds[bucketIndex + 1] = bounds[bucketIndex] + currentBucketSize;
+    }
+    return desiredBuckets;
+  }
+
+  /**
+   * Count-based boundaries of the {@code length} points starting at {@code offset}, laid out as
+   * in the reference LTTB algorithm, described in
+   * <a href="https://skemman.is/bitstream/1946/15343/3/SS_MSthesis.pdf">Downsampling Time Series
+   * for Visual Representation</a> by Sveinn Steinarsson (2013).
+   *
+   * <p>With {@code every = (length - 2) / desiredBuckets} as a floating-point value, middle bucket
+   * {@code k} starts at {@code floor(k * every) + 1}, so the longer buckets are spread along the
+   * series instead of leading it. The last bucket always ends right before the last point.
+   */
+  static int[] boundariesByReference(int offset, int length, int desiredBuckets) {
+    int[] bounds = new int[Math.min(desiredBuckets, Math.max(length - 2, 0)) + 1];
+    boundariesByReference(offset, length, desiredBuckets, bounds);
+    return bounds;
+  }
+
+  /**
+   * Count-based boundaries of the reference LTTB algorithm. See
+   * {@link #boundariesByReference(int, int, int)}.
+   */
+  private static int boundariesByReference(int offset, int length, int desiredBuckets, int[] bounds) {
+    if ((length - 2) / desiredBuckets == 0) {
+      throw new IllegalArgumentException(
+          "Can't produce " + desiredBuckets + " buckets from an input series of "
+              + length + " elements");
+    }
+
+    double every = (double) (length - 2) / desiredBuckets;
+    for (int bucketIndex = 0; bucketIndex < desiredBuckets; bucketIndex++) {
+      bounds[bucketIndex] = offset + 1 + (int) Math.floor(bucketIndex * every);
+    }
+    bounds[desiredBuckets] = offset + length - 1;
+    return desiredBuckets;
+  }
+
+  /**
+   * Fixed-span boundaries. Mirrors {@link #bucketizeByFixedSpan}: since x values are
+   * monotonically non-decreasing, every x-span window is a contiguous index range, and a new
+   * bucket starts wherever the window index of consecutive points changes.
+   *
+   * <p>When windows hold {@value #SEARCH_SPAN} points or more on average, the start of every
+   * window is searched instead of scanning every point. Otherwise, inputs of at least
+   * {@value #PARALLEL_SCAN} points are scanned in chunks with a parallel {@code runner}. Both
+   * record the start of every window and then drop the empty ones, which yields the same
+   * boundaries as the sequential scan.
+   */
+  private static int boundariesByFixedSpan(
+      double[] xs, int offset, int length, int desiredBuckets, int[] bounds, TaskRunner runner) {
+    if (length < 2) {
+      throw new IllegalArgumentException(
+          "Fixed-span bucketization requires at least 2 points");
+    }
+
+    int last = offset + length - 1;
+    double x0 = xs[offset];
+    double bucketWidth = (xs[last] - x0) / desiredBuckets;
+
+    if (bucketWidth == 0) {
+      throw new IllegalArgumentException(
+          "Fixed-span bucketization requires points with distinct x() values");
+    }
+
+    if ((long) desiredBuckets * SEARCH_SPAN <= length) {
+      searchWindowStarts(xs, offset + 1, last, x0, bucketWidth, desiredBuckets, bounds);
+      return compactWindowStarts(bounds, desiredBuckets, last);
+    }
+    if (runner.isParallel() && length >= PARALLEL_SCAN && desiredBuckets < length) {
+      scanWindowStarts(xs, offset + 1, last, x0, bucketWidth, desiredBuckets, bounds, runner);
+      return compactWindowStarts(bounds, desiredBuckets, last);
+    }
+
+    int count = 0;
+    int currentWindow = -1;
+    int lastBucketIndex = desiredBuckets - 1;
+    for (int i = offset + 1; i < last; i++) {
+      // Clamp to last bucket to handle floating-point edge cases at x1
+      int window = Math.min((int) ((xs[i] - x0) / bucketWidth), lastBucketIndex);
+      if (window != currentWindow) {
+        bounds[count++] = i;
+        currentWindow = window;
+      }
+    }
+    bounds[count] = last;
+
+    return count;
+  }
+
+  /**
+   * Writes into {@code bounds[k]} the first index in {@code [first, last)} whose window is
+   * {@code k} or higher, or {@code last} when there is none, for every window {@code k}. Each
+   * start is found by a galloping search from the previous one, in
+   * {@code O(desiredBuckets * log(length / desiredBuckets))} time.
+   */
+  private static void searchWindowStarts(
+      double[] xs, int first, int last, double x0, double bucketWidth, int desiredBuckets, int[] bounds) {
+    int from = first;
+    for (int window = 0; window < desiredBuckets; window++) {
+      // Gallop to bracket the start of the window, then binary search within the bracket
+      int low = from;
+      int high = from;
+      int step = 1;
+      while (high < last && (int) ((xs[high] - x0) / bucketWidth) < window) {
+        low = high + 1;
+        high = (int) Math.min((long) high + step, last);
+        step <<= 1;
+      }
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if ((int) ((xs[middle] - x0) / bucketWidth) < window) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      bounds[window] = low;
+      from = low;
+    }
+  }
+
+  /**
+   * Writes the same window starts as {@link #searchWindowStarts} by scanning chunks of the
+   * {@code [first, last)} range concurrently. Chunks write disjoint windows: each one records the
+   * windows entered after the point preceding it.
+   */
+  private static void scanWindowStarts(
+      double[] xs,
+      int first,
+      int last,
+      double x0,
+      double bucketWidth,
+      int desiredBuckets,
+      int[] bounds,
+      TaskRunner runner) {
+    int lastBucketIndex = desiredBuckets - 1;
+    int points = last - first;
+    int chunks = Math.min(runner.parallelism(), points / SCAN_CHUNK);
+    runner.forEach(chunks, chunk -> {
+      int from = first + (int) ((long) points * chunk / chunks);
+      int to = first + (int) ((long) points * (chunk + 1) / chunks);
+      int previous = from == first ? -1 : Math.min((int) ((xs[from - 1] - x0) / bucketWidth), lastBucketIndex);
+      for (int i = from; i < to; i++) {
+        int window = Math.min((int) ((xs[i] - x0) / bucketWidth), lastBucketIndex);
+        while (previous < window) {
+          bounds[++previous] = i;
+        }
+      }
+    });
+    // Windows after the one of the last middle point are empty
+    int lastWindow = Math.min((int) ((xs[last - 1] - x0) / bucketWidth), lastBucketIndex);
+    Arrays.fill(bounds, lastWindow + 1, desiredBuckets, last);
+  }
+
+  /**
+   * Compacts the window starts written into {@code bounds} by dropping empty windows, and returns
+   * the number of remaining buckets. The start of a window is kept only when the next window
+   * starts later.
+   */
+  private static int compactWindowStarts(int[] bounds, int desiredBuckets, int last) {
+    bounds[desiredBuckets] = last;
+    int count = 0;
+    for (int window = 0; window < desiredBuckets; window++) {
+      if (bounds[window] < bounds[window + 1]) {
+        bounds[count++] = bounds[window];
+      }
+    }
+    bounds[count] = last;
+    return count;
+  }
+
   /**
    * Divides the input into buckets of equal point count.
    *
@@ -69,19 +457,19 @@ class OnePassBucketizer {
     List<Bucket<T>> buckets = new ArrayList<>(desiredBuckets + 2);
 
     // First point in its own bucket
-    buckets.add(Bucket.of(input.get(0)));
+    buckets.add(Bucket.of(input.get(0), 0));
 
     // Middle buckets as subList views — O(1) per bucket, no element copying
     int currentIndex = 1;
     for (int bucketIndex = 0; bucketIndex < desiredBuckets; bucketIndex++) {
       int currentBucketSize = bucketIndex < remainingElements ? bucketSize + 1 : bucketSize;
       int end = currentIndex + currentBucketSize;
-      buckets.add(Bucket.of(input.subList(currentIndex, end)));
+      buckets.add(Bucket.of(input.subList(currentIndex, end), currentIndex));
       currentIndex = end;
     }
 
     // Last point in its own bucket
-    buckets.add(Bucket.of(input.get(input.size() - 1)));
+    buckets.add(Bucket.of(input.get(input.size() - 1), input.size() - 1));
 
     return buckets;
   }
@@ -93,6 +481,7 @@ class OnePassBucketizer {
    * equal-width intervals. Each point (excluding the first and last) is assigned to the
    * interval that contains its {@link Point#x()} value. Empty intervals are silently skipped,
    * so the returned list may contain fewer than {@code desiredBuckets + 2} buckets.
+   * Middle buckets are represented as {@code subList} views — no element copying occurs.
    *
    * <p>Requires that {@code Point#x()} is monotonically non-decreasing.
    */
@@ -103,8 +492,9 @@ class OnePassBucketizer {
           "Fixed-span bucketization requires at least 2 points");
     }
 
+    int last = input.size() - 1;
     double x0 = input.get(0).x();
-    double x1 = input.get(input.size() - 1).x();
+    double x1 = input.get(last).x();
     double bucketWidth = (x1 - x0) / desiredBuckets;
 
     if (bucketWidth == 0) {
@@ -112,31 +502,31 @@ class OnePassBucketizer {
           "Fixed-span bucketization requires points with distinct x() values");
     }
 
-    // Group middle points (excluding first and last) into x-span windows
-    List<List<T>> windows = new ArrayList<>(desiredBuckets);
-    for (int i = 0; i < desiredBuckets; i++) {
-      windows.add(new ArrayList<>());
-    }
+    List<Bucket<T>> buckets = new ArrayList<>(Math.min(desiredBuckets, last) + 2);
+    buckets.add(Bucket.of(input.get(0), 0));
 
+    // Since x values are sorted, each non-empty window is a contiguous index range: middle
+    // buckets are subList views starting wherever the window of consecutive points changes
     int lastBucketIndex = desiredBuckets - 1;
-    for (int i = 1; i < input.size() - 1; i++) {
-      T point = input.get(i);
-      int bucketIndex = (int) ((point.x() - x0) / bucketWidth);
+    int currentWindow = -1;
+    int start = 1;
+    ListIterator<T> points = input.listIterator(1);
+    for (int i = 1; i < last; i++) {
       // Clamp to last bucket to handle floating-point edge cases at x1
-      windows.get(Math.min(bucketIndex, lastBucketIndex)).add(point);
-    }
-
-    // Build bucket list, skipping empty windows
-    List<Bucket<T>> buckets = new ArrayList<>(desiredBuckets + 2);
-    buckets.add(Bucket.of(input.get(0)));
-
-    for (List<T> window : windows) {
-      if (!window.isEmpty()) {
-        buckets.add(Bucket.of(window));
+      int window = Math.min((int) ((points.next().x() - x0) / bucketWidth), lastBucketIndex);
+      if (window != currentWindow) {
+        if (currentWindow >= 0) {
+          buckets.add(Bucket.of(input.subList(start, i), start));
+        }
+        start = i;
+        currentWindow = window;
       }
     }
+    if (currentWindow >= 0) {
+      buckets.add(Bucket.of(input.subList(start, last), start));
+    }
 
-    buckets.add(Bucket.of(input.get(input.size() - 1)));
+    buckets.add(Bucket.of(input.get(last), last));
 
     return buckets;
   }
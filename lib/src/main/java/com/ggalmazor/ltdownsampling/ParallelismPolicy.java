@@ -0,0 +1,92 @@
+package com.ggalmazor.ltdownsampling;
+
+/**
+ * Decides whether a downsampling request runs in parallel, from the size of its input and the
+ * number of buckets it asks for.
+ *
+ * <p>Running in parallel only pays off when the work saved exceeds the cost of coordinating
+ * threads. The {@link #costBased()} policy, used by default, estimates the work of a request as
+ * its number of points plus a fixed cost of {@value #BUCKET_COST} points per bucket, which
+ * accounts for the per-bucket bookkeeping of the selection step.
+ *
+ * @see Downsampler#withParallelismPolicy(ParallelismPolicy)
+ */
+@FunctionalInterface
+public interface ParallelismPolicy {
+
+  /**
+   * Estimated work, in points, above which the {@link #costBased()} policy runs in parallel.
+   */
+  long DEFAULT_MIN_WORK = 1L << 17;
+
+  /**
+   * Estimated work, in points, that every bucket adds to a request.
+   */
+  int BUCKET_COST = 256;
+
+  /**
+   * Returns whether a request over {@code points} points into {@code buckets} buckets should run
+   * in parallel.
+   *
+   * @param points  the number of points of the input series
+   * @param buckets the desired number of buckets
+   * @return {@code true} to run the request in parallel, {@code false} to run it in the calling
+   *     thread
+   */
+  boolean isParallel(int points, int buckets);
+
+  /**
+   * Returns a policy that always runs in the calling thread.
+   *
+   * @return a policy that never runs in parallel
+   */
+  static ParallelismPolicy sequential() {
+    return (points, buckets) -> false;
+  }
+
+  /**
+   * Returns a policy that always runs in parallel, regardless of the size of the request.
+   *
+   * @return a policy that always runs in parallel
+   */
+  static ParallelismPolicy parallel() {
+    return (points, buckets) -> true;
+  }
+
+  /**
+   * Returns a policy that runs in parallel when the estimated work of a request reaches
+   * {@value #DEFAULT_MIN_WORK} points.
+   *
+   * @return the default cost-based policy
+   */
+  static ParallelismPolicy costBased() {
+    return costBased(DEFAULT_MIN_WORK);
+  }
+
+  /**
+   * Returns a policy that runs in parallel when the estimated work of a request reaches
+   * {@code minWork} points.
+   *
+   * @param minWork the minimum estimated work, in points, to run in parallel
+   * @return a cost-based policy
+   * @throws IllegalArgumentException when {@code minWork} is negative
+   */
+  static ParallelismPolicy costBased(long minWork) {
+    if (minWork < 0) {
+      throw new IllegalArgumentException("Minimum work can't be negative, got " + minWork);
+    }
+    return (points, buckets) -> estimatedWork(points, buckets) >= minWork;
+  }
+
+  /**
+   * Returns the estimated work of a request over {@code points} points into {@code buckets}
+   * buckets: the number of points plus {@value #BUCKET_COST} points per bucket.
+   *
+   * @param points  the number of points of the input series
+   * @param buckets the desired number of buckets
+   * @return the estimated work, in points
+   */
+  static long estimatedWork(int points, int buckets) {
+    return (long) points + (long) buckets * BUCKET_COST;
+  }
+}
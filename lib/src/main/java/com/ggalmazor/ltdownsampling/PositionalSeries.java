@@ -0,0 +1,22 @@
+package com.ggalmazor.ltdownsampling;
+
+/**
+ * A series of points addressed by {@code long} positions, read by {@link SegmentKernel}.
+ */
+interface PositionalSeries {
+
+  /**
+   * Returns the number of points of this series.
+   */
+  long size();
+
+  /**
+   * Returns the x value of the point at {@code position}.
+   */
+  double x(long position);
+
+  /**
+   * Returns the y value of the point at {@code position}.
+   */
+  double y(long position);
+}
@@ -0,0 +1,254 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Downsampler of a sliding window over a live series, such as the last 15 minutes of a
+ * telemetry feed.
+ *
+ * <p>Points are appended in non-decreasing x order, and points more than {@code windowSpan}
+ * before the latest one are evicted. Middle buckets are the cells of a fixed x grid of width
+ * {@code windowSpan / (desiredBuckets - 1)} anchored at {@code x = 0}, so that a bucket keeps its
+ * boundaries while the window slides, and any window overlaps at most {@code desiredBuckets}
+ * cells. As in {@link LTThreeBuckets}, the first and last points of the window are kept, and each
+ * middle bucket selects the point forming the largest triangle with the first point of the bucket
+ * at its left and the center of the bucket at its right:
+ *
+ * <pre>{@code
+ * RollingDownsampler live = RollingDownsampler.create(Duration.ofMinutes(15).toMillis(), 300);
+ * // on every tick
+ * ticks.forEach(sample -> live.accept(sample.epochMillis(), sample.value()));
+ * DoubleColumns output = live.snapshot();
+ * }</pre>
+ *
+ * <p>The selected point of every bucket is kept across snapshots, and only recomputed when the
+ * bucket gained or lost points, or when the anchors of its triangle changed. Appending a few
+ * points to a long window only affects the buckets receiving them and their neighbours, plus the
+ * buckets at the head of the window when points are evicted, so the cost of a tick depends on the
+ * number of new points and on the size of those buckets, not on the size of the window.
+ *
+ * <p>Instances are not thread-safe. Accept points and take snapshots from a single thread, or
+ * synchronize externally.
+ */
+public final class RollingDownsampler {
+  private static final int INITIAL_CAPACITY = 1 << 10;
+
+  private final double windowSpan;
+  private final double cellWidth;
+  private final ArrayDeque<Cell> cells = new ArrayDeque<>();
+  private double[] xs = new double[INITIAL_CAPACITY];
+  private double[] ys = new double[INITIAL_CAPACITY];
+  // Points are identified by their position in the series: the point at position p is stored at
+  // index p - offset, and the window holds positions [head, tail)
+  private long offset;
+  private long head;
+  private long tail;
+  private long selections;
+
+  RollingDownsampler(double windowSpan, int desiredBuckets) {
+    if (!(windowSpan > 0) || Double.isInfinite(windowSpan)) {
+      throw new IllegalArgumentException("Window span must be positive and finite, got " + windowSpan);
+    }
+    if (desiredBuckets < 2) {
+      throw new IllegalArgumentException("Rolling downsampling requires at least 2 buckets, got " + desiredBuckets);
+    }
+    this.windowSpan = windowSpan;
+    this.cellWidth = windowSpan / (desiredBuckets - 1);
+  }
+
+  /**
+   * Returns a new rolling downsampler that keeps the points within {@code windowSpan} of the
+   * latest one, and downsamples them to at most {@code desiredBuckets + 2} points.
+   *
+   * <p>Same as {@code Downsampler.create().newRollingDownsampler(windowSpan, desiredBuckets)}.
+   *
+   * @param windowSpan     the x span of the window
+   * @param desiredBuckets the maximum number of middle buckets of the downsampled window
+   * @return a new rolling downsampler
+   * @throws IllegalArgumentException when {@code windowSpan} is not a positive finite value, or
+   *     {@code desiredBuckets} is lower than 2
+   * @see Downsampler#newRollingDownsampler(double, int)
+   */
+  public static RollingDownsampler create(double windowSpan, int desiredBuckets) {
+    return Downsampler.create().newRollingDownsampler(windowSpan, desiredBuckets);
+  }
+
+  /**
+   * Appends the next point of the series, and evicts the points that fall out of the window.
+   *
+   * @param x the x value of the point, not lower than the x value of the previous point
+   * @param y the y value of the point
+   * @throws IllegalArgumentException when {@code x} is lower than the x value of the previous point
+   */
+  public void accept(double x, double y) {
+    if (tail > head && x < xs[index(tail - 1)]) {
+      throw new IllegalArgumentException(
+          "x values must be non-decreasing, got " + x + " after " + xs[index(tail - 1)]);
+    }
+
+    ensureCapacity();
+    xs[index(tail)] = x;
+    ys[index(tail)] = y;
+    long cellId = (long) Math.floor(x / cellWidth);
+    Cell current = cells.peekLast();
+    if (current != null && current.id == cellId) {
+      current.end = tail + 1;
+    } else {
+      cells.addLast(new Cell(cellId, tail));
+    }
+    tail++;
+
+    double limit = x - windowSpan;
+    while (xs[index(head)] < limit) {
+      head++;
+    }
+    while (cells.getFirst().end <= head) {
+      cells.removeFirst();
+    }
+  }
+
+  /**
+   * Returns the number of points in the window.
+   *
+   * @return the number of points in the window
+   */
+  public int size() {
+    return (int) (tail - head);
+  }
+
+  /**
+   * Returns the downsampled version of the points in the window.
+   *
+   * @return the downsampled window, with at most {@code desiredBuckets + 2} points
+   * @throws IllegalStateException when a bucket has no comparable triangle area (e.g. NaN values)
+   */
+  public DoubleColumns snapshot() {
+    if (tail - head <= 2) {
+      return new DoubleColumns(
+          Arrays.copyOfRange(xs, index(head), index(tail)),
+          Arrays.copyOfRange(ys, index(head), index(tail)));
+    }
+
+    long first = head;
+    long last = tail - 1;
+    // The first and last points are buckets of their own, so the cells holding them may be empty
+    // once they are left out
+    List<Cell> buckets = new ArrayList<>(cells.size());
+    for (Cell cell : cells) {
+      if (from(cell, first) < Math.min(cell.end, last)) {
+        buckets.add(cell);
+      }
+    }
+
+    int count = buckets.size();
+    double[] outXs = new double[count + 2];
+    double[] outYs = new double[count + 2];
+    outXs[0] = xs[index(first)];
+    outYs[0] = ys[index(first)];
+    for (int bucket = 0; bucket < count; bucket++) {
+      Cell cell = buckets.get(bucket);
+      long anchor = bucket == 0 ? first : from(buckets.get(bucket - 1), first);
+      long rightFirst = last;
+      long rightLast = last;
+      if (bucket < count - 1) {
+        Cell right = buckets.get(bucket + 1);
+        rightFirst = from(right, first);
+        rightLast = Math.min(right.end, last) - 1;
+      }
+      int selected = index(select(cell, from(cell, first), Math.min(cell.end, last), anchor, rightFirst, rightLast));
+      outXs[bucket + 1] = xs[selected];
+      outYs[bucket + 1] = ys[selected];
+    }
+    outXs[count + 1] = xs[index(last)];
+    outYs[count + 1] = ys[index(last)];
+    return new DoubleColumns(outXs, outYs);
+  }
+
+  /**
+   * Returns the position of the point selected in the {@code cell} for the provided middle range
+   * and anchors, reusing the previous selection when none of them changed. Since the point at a
+   * given position never changes, equal inputs always produce the same selection.
+   */
+  private long select(Cell cell, long from, long to, long anchor, long rightFirst, long rightLast) {
+    if (cell.from != from
+        || cell.to != to
+        || cell.anchor != anchor
+        || cell.rightFirst != rightFirst
+        || cell.rightLast != rightLast) {
+      double rx = (xs[index(rightFirst)] + xs[index(rightLast)]) / 2.0;
+      double ry = (ys[index(rightFirst)] + ys[index(rightLast)]) / 2.0;
+      int selected = TriangleKernel.maxAreaIndex(
+          xs, ys, index(from), index(to), xs[index(anchor)], ys[index(anchor)], rx, ry, TaskRunner.SEQUENTIAL);
+      cell.selected = selected + offset;
+      selections++;
+      cell.from = from;
+      cell.to = to;
+      cell.anchor = anchor;
+      cell.rightFirst = rightFirst;
+      cell.rightLast = rightLast;
+    }
+    return cell.selected;
+  }
+
+  /**
+   * Returns the number of bucket selections computed so far, as opposed to reused.
+   */
+  long selections() {
+    return selections;
+  }
+
+  /**
+   * Returns the first position of the {@code cell} that belongs to a middle bucket.
+   */
+  private static long from(Cell cell, long first) {
+    return Math.max(cell.start, first + 1);
+  }
+
+  private int index(long position) {
+    return (int) (position - offset);
+  }
+
+  /**
+   * Makes room for one more point, either by moving the window to the start of the buffers, or
+   * by growing them when the window fills more than half of them.
+   */
+  private void ensureCapacity() {
+    if (index(tail) < xs.length) {
+      return;
+    }
+    int size = size();
+    int capacity = size * 2 > xs.length ? xs.length * 2 : xs.length;
+    double[] newXs = capacity == xs.length ? xs : new double[capacity];
+    double[] newYs = capacity == ys.length ? ys : new double[capacity];
+    System.arraycopy(xs, index(head), newXs, 0, size);
+    System.arraycopy(ys, index(head), newYs, 0, size);
+    xs = newXs;
+    ys = newYs;
+    offset = head;
+  }
+
+  /**
+   * A non-empty cell of the grid holding the positions {@code [start, end)}, and the inputs and
+   * result of its latest selection.
+   */
+  private static final class Cell {
+    private final long id;
+    private final long start;
+    private long end;
+    private long from = -1;
+    private long to;
+    private long anchor;
+    private long rightFirst;
+    private long rightLast;
+    private long selected;
+
+    private Cell(long id, long start) {
+      this.id = id;
+      this.start = start;
+      this.end = start + 1;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+
+/**
+ * Bucketization and triangle selection over a {@link PositionalSeries}, such as a
+ * {@link SegmentSeries} or a {@link SeriesBuffer.Snapshot}, with {@code long} positions.
+ *
+ * <p>Mirrors {@link OnePassBucketizer#boundaries} and {@link TriangleKernel} with the same
+ * buckets, anchors, area formula and tie-breaking, so a series selects the same points whether it
+ * is stored in a segment, in a buffer or in arrays. {@link BucketizationStrategy#FIXED} boundaries are always
+ * found by searching window starts, which reads {@code O(desiredBuckets * log(size))} x values
+ * instead of paging in the whole x column.
+ */
+final class SegmentKernel {
+
+  private SegmentKernel() {}
+
+  /**
+   * Returns the positions of the points selected from the {@code series}.
+   */
+  static long[] select(
+      PositionalSeries series,
+      int desiredBuckets,
+      BucketizationStrategy strategy,
+      SelectionMode mode,
+      TaskRunner runner) {
+    long[] bounds = switch (strategy) {
+      case DYNAMIC -> mode == SelectionMode.EXACT
+          ? boundariesByReference(series.size(), desiredBuckets)
+          : boundariesByCount(series.size(), desiredBuckets);
+      case FIXED -> boundariesByFixedSpan(series, desiredBuckets);
+    };
+    int buckets = bounds.length - 1;
+    long last = series.size() - 1;
+    long[] selected = new long[buckets + 2];
+    selected[0] = 0;
+    selected[buckets + 1] = last;
+
+    if (mode == SelectionMode.EXACT) {
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        selected[bucket + 1] = selectInBucketExact(series, bounds, bucket, selected[bucket], runner);
+      }
+    } else if (runner.isParallel()) {
+      runner.forEach(buckets, bucket -> selected[bucket + 1] = selectInBucket(series, bounds, bucket, runner));
+    } else {
+      for (int bucket = 0; bucket < buckets; bucket++) {
+        selected[bucket + 1] = selectInBucket(series, bounds, bucket, runner);
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Count-based boundaries. Mirrors {@link OnePassBucketizer#boundariesByCount} with
+   * {@code long} positions.
+   */
+  static long[] boundariesByCount(long size, int desiredBuckets) {
+    long middleSize = size - 2;
+    long bucketSize = middleSize / desiredBuckets;
+    long remainingElements = middleSize % desiredBuckets;
+
+    if (bucketSize == 0) {
+      throw new IllegalArgumentException(
+          "Can't produce " + desiredBuckets + " buckets from an input series of " + size + " elements");
+    }
+
+    long[] bounds = new long[desiredBuckets + 1];
+    bounds[0] = 1;
+    for (int bucketIndex = 0; bucketIndex < desiredBuckets; bucketIndex++) {
+      long currentBucketSize = bucketIndex < remainingElements ? bucketSize + 1 : bucketSize;
+      bounds[bucketIndex + 1] = bounds[bucketIndex] + currentBucketSize;
+    }
+    return bounds;
+  }
+
+  /**
+   * Count-based boundaries of the reference LTTB algorithm. Mirrors
+   * {@link OnePassBucketizer#boundariesByReference} with {@code long} positions.
+   */
+  static long[] boundariesByReference(long size, int desiredBuckets) {
+    if ((size - 2) / desiredBuckets == 0) {
+      throw new IllegalArgumentException(
+          "Can't produce " + desiredBuckets + " buckets from an input series of " + size + " elements");
+    }
+
+    double every = (double) (size - 2) / desiredBuckets;
+    long[] bounds = new long[desiredBuckets + 1];
+    for (int bucketIndex = 0; bucketIndex < desiredBuckets; bucketIndex++) {
+      bounds[bucketIndex] = 1 + (long) Math.floor(bucketIndex * every);
+    }
+    bounds[desiredBuckets] = size - 1;
+    return bounds;
+  }
+
+  /**
+   * Fixed-span boundaries, found with the galloping search of
+   * {@link OnePassBucketizer#boundaries} over {@code long} positions, skipping empty windows.
+   */
+  static long[] boundariesByFixedSpan(PositionalSeries series, int desiredBuckets) {
+    if (series.size() < 2) {
+      throw new IllegalArgumentException(
+          "Fixed-span bucketization requires at least 2 points");
+    }
+
+    long last = series.size() - 1;
+    double x0 = series.x(0);
+    double bucketWidth = (series.x(last) - x0) / desiredBuckets;
+
+    if (bucketWidth == 0) {
+      throw new IllegalArgumentException(
+          "Fixed-span bucketization requires points with distinct x() values");
+    }
+
+    // Start of every window: the first middle position whose window is that one or a later one
+    long[] starts = new long[desiredBuckets + 1];
+    long from = 1;
+    for (int window = 0; window < desiredBuckets; window++) {
+      long low = from;
+      long high = from;
+      long step = 1;
+      while (high < last && (int) ((series.x(high) - x0) / bucketWidth) < window) {
+        low = high + 1;
+        high = Math.min(high + step, last);
+        step <<= 1;
+      }
+      while (low < high) {
+        long middle = (low + high) >>> 1;
+        if ((int) ((series.x(middle) - x0) / bucketWidth) < window) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      starts[window] = low;
+      from = low;
+    }
+    starts[desiredBuckets] = last;
+
+    // Empty windows start where the next one does
+    int count = 0;
+    for (int window = 0; window < desiredBuckets; window++) {
+      if (starts[window] < starts[window + 1]) {
+        starts[count++] = starts[window];
+      }
+    }
+    starts[count] = last;
+    return Arrays.copyOf(starts, count + 1);
+  }
+
+  /**
+   * Selects the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the first point of the bucket at its left and the center of the bucket at its right.
+   */
+  private static long selectInBucket(PositionalSeries series, long[] bounds, int bucket, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    long anchor = bucket == 0 ? 0 : bounds[bucket - 1];
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = series.x(series.size() - 1);
+      ry = series.y(series.size() - 1);
+    } else {
+      long rightFirst = bounds[bucket + 1];
+      long rightLast = bounds[bucket + 2] - 1;
+      rx = (series.x(rightFirst) + series.x(rightLast)) / 2.0;
+      ry = (series.y(rightFirst) + series.y(rightLast)) / 2.0;
+    }
+    return maxAreaIndex(
+        series, bounds[bucket], bounds[bucket + 1], series.x(anchor), series.y(anchor), rx, ry, runner);
+  }
+
+  /**
+   * Selects the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the point at {@code anchor} and the average of the bucket at its right.
+   */
+  private static long selectInBucketExact(
+      PositionalSeries series, long[] bounds, int bucket, long anchor, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = series.x(series.size() - 1);
+      ry = series.y(series.size() - 1);
+    } else {
+      long rightFirst = bounds[bucket + 1];
+      long rightEnd = bounds[bucket + 2];
+      double sumX = 0;
+      double sumY = 0;
+      for (long i = rightFirst; i < rightEnd; i++) {
+        sumX += series.x(i);
+        sumY += series.y(i);
+      }
+      rx = sumX / (rightEnd - rightFirst);
+      ry = sumY / (rightEnd - rightFirst);
+    }
+    return maxAreaIndex(
+        series, bounds[bucket], bounds[bucket + 1], series.x(anchor), series.y(anchor), rx, ry, runner);
+  }
+
+  /**
+   * Returns the position in {@code [from, to)} of the point that forms the triangle with the
+   * largest area together with the {@code (lx, ly)} and {@code (rx, ry)} points, splitting ranges
+   * of at least {@value TriangleKernel#PARALLEL_CANDIDATES} candidates when the {@code runner} is
+   * parallel. Ties are resolved in favour of the lowest position.
+   *
+   * @throws IllegalStateException when no candidate produces a comparable area (e.g. NaN values)
+   */
+  static long maxAreaIndex(
+      PositionalSeries series, long from, long to, double lx, double ly, double rx, double ry, TaskRunner runner) {
+    long bestIndex;
+    if (runner.isParallel() && to - from >= TriangleKernel.PARALLEL_CANDIDATES) {
+      int pieces = (int) ((to - from + TriangleKernel.SPLIT_SIZE - 1) / TriangleKernel.SPLIT_SIZE);
+      long[] winners = new long[pieces];
+      runner.forEach(pieces, piece -> {
+        long pieceFrom = from + (long) piece * TriangleKernel.SPLIT_SIZE;
+        long pieceTo = Math.min(pieceFrom + TriangleKernel.SPLIT_SIZE, to);
+        winners[piece] = scalarMaxAreaIndex(series, pieceFrom, pieceTo, lx, ly, rx, ry);
+      });
+
+      bestIndex = -1;
+      double bestArea = -1.0;
+      for (long winner : winners) {
+        if (winner >= 0) {
+          double area = area(series, winner, lx, ly, rx, ry);
+          if (area > bestArea) {
+            bestArea = area;
+            bestIndex = winner;
+          }
+        }
+      }
+    } else {
+      bestIndex = scalarMaxAreaIndex(series, from, to, lx, ly, rx, ry);
+    }
+
+    if (bestIndex < 0) {
+      throw new IllegalStateException("Can't obtain max area triangle");
+    }
+    return bestIndex;
+  }
+
+  private static long scalarMaxAreaIndex(
+      PositionalSeries series, long from, long to, double lx, double ly, double rx, double ry) {
+    long bestIndex = -1;
+    double bestArea = -1.0;
+    for (long i = from; i < to; i++) {
+      double area = area(series, i, lx, ly, rx, ry);
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = i;
+      }
+    }
+    return bestIndex;
+  }
+
+  private static double area(PositionalSeries series, long i, double lx, double ly, double rx, double ry) {
+    // area of a triangle = |[Ax(By - Cy) + Bx(Cy - Ay) + Cx(Ay - By)] / 2|
+    double x = series.x(i);
+    double y = series.y(i);
+    return Math.abs(lx * (y - ry) + x * (ry - ly) + rx * (ly - y)) / 2.0;
+  }
+}
@@ -0,0 +1,151 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A series of little-endian {@code double} coordinates stored in {@link MemorySegment} memory,
+ * such as a memory-mapped file, downsampled in place by {@link Downsampler#sorted(SegmentSeries, int)}
+ * and {@link Downsampler#indices(SegmentSeries, int)}.
+ *
+ * <p>Two layouts are supported: interleaved {@code (x, y)} pairs, and columns holding all the x
+ * values and then all the y values. Points are addressed with {@code long} positions, so series
+ * can be larger than the heap and hold more than {@link Integer#MAX_VALUE} points:
+ *
+ * <pre>{@code
+ * try (FileChannel channel = FileChannel.open(path); Arena arena = Arena.ofShared()) {
+ *   MemorySegment file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+ *   DoubleColumns output = Downsampler.create().sorted(SegmentSeries.interleaved(file), 200);
+ * }
+ * }</pre>
+ *
+ * <p>Parallel requests read the segments from other threads. Segments of a confined arena can only
+ * be read by their owner thread, so series over them are always downsampled in the calling thread.
+ */
+public final class SegmentSeries implements PositionalSeries {
+  static final ValueLayout.OfDouble COORDINATE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+  private static final long COORDINATE_SIZE = COORDINATE.byteSize();
+  // A thread that owns no arena, which can only access segments of shared and global arenas
+  private static final Thread OTHER_THREAD = new Thread(() -> {});
+
+  private final MemorySegment xs;
+  private final long firstX;
+  private final MemorySegment ys;
+  private final long firstY;
+  private final long stride;
+  private final long size;
+
+  private SegmentSeries(MemorySegment xs, long firstX, MemorySegment ys, long firstY, long stride, long size) {
+    this.xs = xs;
+    this.firstX = firstX;
+    this.ys = ys;
+    this.firstY = firstY;
+    this.stride = stride;
+    this.size = size;
+  }
+
+  /**
+   * Returns the series of the {@code (x, y)} pairs stored one after the other in the provided
+   * {@code segment}.
+   *
+   * @param segment the segment holding the pairs of coordinates
+   * @return the series
+   * @throws IllegalArgumentException when the size of the segment is not a multiple of the size
+   *     of a pair of {@code double} values
+   */
+  public static SegmentSeries interleaved(MemorySegment segment) {
+    long pairSize = 2 * COORDINATE_SIZE;
+    if (segment.byteSize() % pairSize != 0) {
+      throw new IllegalArgumentException(
+          "Interleaved series must hold whole (x, y) pairs, got " + segment.byteSize() + " bytes");
+    }
+    return new SegmentSeries(segment, 0, segment, COORDINATE_SIZE, pairSize, segment.byteSize() / pairSize);
+  }
+
+  /**
+   * Returns the series whose x values fill the first half of the provided {@code segment}, and
+   * whose y values fill the second half.
+   *
+   * @param segment the segment holding the column of x values followed by the column of y values
+   * @return the series
+   * @throws IllegalArgumentException when the segment can't be split into two columns of
+   *     {@code double} values
+   */
+  public static SegmentSeries columnar(MemorySegment segment) {
+    long pairSize = 2 * COORDINATE_SIZE;
+    if (segment.byteSize() % pairSize != 0) {
+      throw new IllegalArgumentException(
+          "Columnar series must hold two columns of the same length, got " + segment.byteSize() + " bytes");
+    }
+    long size = segment.byteSize() / pairSize;
+    return new SegmentSeries(segment, 0, segment, size * COORDINATE_SIZE, COORDINATE_SIZE, size);
+  }
+
+  /**
+   * Returns the series whose x values fill the {@code xs} segment, and whose y values fill the
+   * {@code ys} segment.
+   *
+   * @param xs the segment holding the x values
+   * @param ys the segment holding the y values
+   * @return the series
+   * @throws IllegalArgumentException when the segments don't hold the same number of
+   *     {@code double} values
+   */
+  public static SegmentSeries columnar(MemorySegment xs, MemorySegment ys) {
+    if (xs.byteSize() != ys.byteSize() || xs.byteSize() % COORDINATE_SIZE != 0) {
+      throw new IllegalArgumentException(
+          "Columns must hold the same number of values, got " + xs.byteSize() + " and " + ys.byteSize() + " bytes");
+    }
+    return new SegmentSeries(xs, 0, ys, 0, COORDINATE_SIZE, xs.byteSize() / COORDINATE_SIZE);
+  }
+
+  /**
+   * Returns the number of points of this series.
+   *
+   * @return the number of points of this series
+   */
+  @Override
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns the x value of the point at {@code position}.
+   *
+   * @param position the position of the point
+   * @return the x value of the point
+   */
+  @Override
+  public double x(long position) {
+    return xs.get(COORDINATE, firstX + position * stride);
+  }
+
+  /**
+   * Returns the y value of the point at {@code position}.
+   *
+   * @param position the position of the point
+   * @return the y value of the point
+   */
+  @Override
+  public double y(long position) {
+    return ys.get(COORDINATE, firstY + position * stride);
+  }
+
+  /**
+   * Returns the series of the {@code length} points starting at {@code from}, without copying
+   * them.
+   */
+  SegmentSeries slice(long from, long length) {
+    Objects.checkFromIndexSize(from, length, size);
+    return new SegmentSeries(xs, firstX + from * stride, ys, firstY + from * stride, stride, length);
+  }
+
+  /**
+   * Returns whether threads other than the calling one can read this series.
+   */
+  boolean isShared() {
+    return xs.isAccessibleBy(OTHER_THREAD) && ys.isAccessibleBy(OTHER_THREAD);
+  }
+}
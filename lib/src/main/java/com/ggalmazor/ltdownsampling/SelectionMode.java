@@ -0,0 +1,41 @@
+package com.ggalmazor.ltdownsampling;
+
+/**
+ * Selects how the triangle of every bucket is anchored during the Largest-Triangle Three-Buckets
+ * selection step.
+ *
+ * <ul>
+ * <li>Use {@link #INDEPENDENT} (the default) for the fastest results. Every bucket is resolved
+ * on its own, so buckets can be processed in any order and in parallel.</li>
+ * <li>Use {@link #EXACT} when the output must match the reference algorithm described in
+ * <em>Downsampling Time Series for Visual Representation</em> by Sveinn Steinarsson (2013), for
+ * instance to compare it with other LTTB implementations.</li>
+ * </ul>
+ */
+public enum SelectionMode {
+
+  /**
+   * Independent buckets: each triangle is anchored on the first point of the bucket at its left
+   * and on the center between the first and last points of the bucket at its right.
+   *
+   * <p>This is the default mode. Since no bucket depends on the selection made in another one,
+   * the selection step can run in parallel.
+   */
+  INDEPENDENT,
+
+  /**
+   * Reference LTTB: each triangle is anchored on the point selected in the bucket at its left
+   * and on the average of the points of the bucket at its right.
+   *
+   * <p>With the {@link BucketizationStrategy#DYNAMIC} strategy, buckets are also laid out as in
+   * the reference algorithm: middle bucket {@code k} of a series of {@code n} points starts at
+   * {@code floor(k * (n - 2) / buckets) + 1}, instead of giving the remainder of the split to the
+   * first buckets.
+   *
+   * <p>Every selection depends on the previous one, so buckets are resolved in order. On large
+   * bucket counts, the series is split into chunks that are resolved in parallel from a
+   * speculative anchor, and then repaired in order wherever the speculation was wrong. The output
+   * is always identical to a sequential run.
+   */
+  EXACT
+}
@@ -0,0 +1,159 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Objects;
+
+/**
+ * Append-only series of {@code (x, y)} coordinates stored in chunks of primitive
+ * {@code double} values, which can be downsampled while points are being appended.
+ *
+ * <p>Coordinates take 16 bytes per point. Chunks double in size as the series grows, starting at
+ * {@value #FIRST_CHUNK} points, so appending never copies previous points and at most half of the
+ * allocated memory is unused. Positions are {@code long} values, and a buffer holds up to
+ * {@value #CAPACITY} points.
+ *
+ * <p>Appending doesn't take locks nor wait for readers. Points must be appended in non-decreasing
+ * x order by a single thread at a time, e.g. the thread that ingests the series. Any thread can
+ * take a {@link #snapshot()} at any time: it holds every point appended before it was taken, and
+ * is downsampled in place by {@link Downsampler#sorted(Snapshot, int)} and
+ * {@link Downsampler#indices(Snapshot, int)} while appending continues:
+ *
+ * <pre>{@code
+ * SeriesBuffer buffer = SeriesBuffer.create();
+ * source.forEach(sample -> buffer.append(sample.time(), sample.value())); // writer thread
+ * DoubleColumns output = Downsampler.create().sorted(buffer.snapshot(), 200); // any thread
+ * }</pre>
+ */
+public final class SeriesBuffer {
+  private static final int FIRST_CHUNK_BITS = 4;
+  static final int FIRST_CHUNK = 1 << FIRST_CHUNK_BITS;
+  private static final int CHUNKS = 26;
+  static final long CAPACITY = ((1L << CHUNKS) - 1) << FIRST_CHUNK_BITS;
+
+  // Chunk k holds the interleaved (x, y) coordinates of FIRST_CHUNK << k points. Chunks are
+  // written before the size that makes their points visible to readers.
+  private final double[][] chunks = new double[CHUNKS][];
+  private volatile long size;
+  private double lastX;
+
+  private SeriesBuffer() {
+  }
+
+  /**
+   * Returns a new, empty buffer.
+   *
+   * @return a new, empty buffer
+   */
+  public static SeriesBuffer create() {
+    return new SeriesBuffer();
+  }
+
+  /**
+   * Appends a point to the series.
+   *
+   * @param x the x value of the point
+   * @param y the y value of the point
+   * @throws IllegalArgumentException when {@code x} is lower than the x value of the previous point
+   * @throws IllegalStateException when the buffer already holds {@value #CAPACITY} points
+   */
+  public void append(double x, double y) {
+    long position = size;
+    if (position > 0 && x < lastX) {
+      throw new IllegalArgumentException("x values must be non-decreasing, got " + x + " after " + lastX);
+    }
+    if (position == CAPACITY) {
+      throw new IllegalStateException("Series buffers can't hold more than " + CAPACITY + " points");
+    }
+    int chunk = chunkOf(position);
+    double[] coordinates = chunks[chunk];
+    if (coordinates == null) {
+      coordinates = new double[2 * (FIRST_CHUNK << chunk)];
+      chunks[chunk] = coordinates;
+    }
+    int index = 2 * (int) (position - chunkStart(chunk));
+    coordinates[index] = x;
+    coordinates[index + 1] = y;
+    lastX = x;
+    // Publishes the point, and the chunk holding it
+    size = position + 1;
+  }
+
+  /**
+   * Returns the number of points appended to this buffer.
+   *
+   * @return the number of points appended to this buffer
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns a view of the points appended to this buffer so far, without copying them.
+   *
+   * @return a view of the points appended to this buffer so far
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(chunks, size);
+  }
+
+  private static int chunkOf(long position) {
+    return 63 - Long.numberOfLeadingZeros((position >>> FIRST_CHUNK_BITS) + 1);
+  }
+
+  private static long chunkStart(int chunk) {
+    return ((1L << chunk) - 1) << FIRST_CHUNK_BITS;
+  }
+
+  /**
+   * The points appended to a {@link SeriesBuffer} before a snapshot was taken. Points appended
+   * afterwards are not part of the snapshot, which can be read from any thread.
+   */
+  public static final class Snapshot implements PositionalSeries {
+    private final double[][] chunks;
+    private final long size;
+
+    private Snapshot(double[][] chunks, long size) {
+      this.chunks = chunks;
+      this.size = size;
+    }
+
+    /**
+     * Returns the number of points of this snapshot.
+     *
+     * @return the number of points of this snapshot
+     */
+    @Override
+    public long size() {
+      return size;
+    }
+
+    /**
+     * Returns the x value of the point at {@code position}.
+     *
+     * @param position the position of the point
+     * @return the x value of the point
+     * @throws IndexOutOfBoundsException when {@code position} is not lower than {@link #size()}
+     */
+    @Override
+    public double x(long position) {
+      return coordinate(position, 0);
+    }
+
+    /**
+     * Returns the y value of the point at {@code position}.
+     *
+     * @param position the position of the point
+     * @return the y value of the point
+     * @throws IndexOutOfBoundsException when {@code position} is not lower than {@link #size()}
+     */
+    @Override
+    public double y(long position) {
+      return coordinate(position, 1);
+    }
+
+    private double coordinate(long position, int axis) {
+      Objects.checkIndex(position, size);
+      int chunk = chunkOf(position);
+      return chunks[chunk][2 * (int) (position - chunkStart(chunk)) + axis];
+    }
+  }
+}
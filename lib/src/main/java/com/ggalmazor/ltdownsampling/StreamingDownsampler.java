@@ -0,0 +1,224 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Arrays;
+
+/**
+ * Push-style downsampler for unbounded series, which keeps a bounded summary of every point it
+ * has accepted.
+ *
+ * <p>Points are accepted one at a time, in non-decreasing x order, and grouped into at most
+ * {@code maxBuckets} buckets of consecutive points. Each bucket only retains its first, last,
+ * lowest and highest points. When all buckets are full, adjacent pairs are merged, so that every
+ * bucket covers twice as many points as before. Memory stays {@code O(maxBuckets)} regardless of
+ * the length of the series, and accepting a point takes amortized constant time:
+ *
+ * <pre>{@code
+ * StreamingDownsampler stream = Downsampler.create().newStreamingDownsampler(4_096);
+ * source.forEach(sample -> stream.accept(sample.time(), sample.value()));
+ * DoubleColumns output = stream.snapshot(200); // at any time, as often as needed
+ * }</pre>
+ *
+ * <p>A {@link #snapshot()} holds the retained points of every bucket in acceptance order: up to
+ * four points per bucket, always including the first and last accepted points and the lowest and
+ * highest y values of the whole series. {@link #snapshot(int)} downsamples them with the
+ * {@link Downsampler} configuration this instance was created from.
+ *
+ * <p>Instances are not thread-safe. Accept points from a single thread, or synchronize externally.
+ *
+ * @see Downsampler#newStreamingDownsampler(int)
+ */
+public final class StreamingDownsampler {
+  // Roles of the points retained by every bucket. Coordinates are stored in COORDINATES-sized
+  // strides of (x, y) pairs, and positions in the series in ROLES-sized strides.
+  private static final int FIRST = 0;
+  private static final int LOWEST = 1;
+  private static final int HIGHEST = 2;
+  private static final int LAST = 3;
+  private static final int ROLES = 4;
+  private static final int COORDINATES = 2 * ROLES;
+
+  private final Downsampler downsampler;
+  private final int maxBuckets;
+  private final double[] coordinates;
+  private final long[] positions;
+  private int buckets;
+  private long span = 1;
+  private long count;
+
+  StreamingDownsampler(Downsampler downsampler, int maxBuckets) {
+    if (maxBuckets < 1) {
+      throw new IllegalArgumentException("Streaming downsampling requires at least 1 bucket, got " + maxBuckets);
+    }
+    this.downsampler = downsampler;
+    this.maxBuckets = maxBuckets;
+    this.coordinates = new double[maxBuckets * COORDINATES];
+    this.positions = new long[maxBuckets * ROLES];
+  }
+
+  /**
+   * Accepts the next point of the series.
+   *
+   * @param x the x value of the point, not lower than the x value of the previous point
+   * @param y the y value of the point
+   * @throws IllegalArgumentException when {@code x} is lower than the x value of the previous point
+   */
+  public void accept(double x, double y) {
+    if (count > 0) {
+      double previous = x(buckets - 1, LAST);
+      if (x < previous) {
+        throw new IllegalArgumentException("x values must be non-decreasing, got " + x + " after " + previous);
+      }
+    }
+
+    if (buckets == maxBuckets && tailSize() == span) {
+      mergePairs();
+    }
+    if (buckets > 0 && tailSize() < span) {
+      extend(buckets - 1, x, y);
+    } else {
+      open(x, y);
+    }
+    count++;
+  }
+
+  /**
+   * Returns the number of points accepted so far.
+   *
+   * @return the number of points accepted so far
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * Returns the number of buckets currently summarizing the accepted points, which never exceeds
+   * the {@code maxBuckets} this instance was created with.
+   *
+   * @return the number of buckets
+   */
+  public int bucketCount() {
+    return buckets;
+  }
+
+  /**
+   * Returns the points retained by every bucket, in acceptance order. Points retained in several
+   * roles (e.g. the first point of a bucket that is also its highest point) appear once.
+   *
+   * @return the retained points, at most {@code 4 * bucketCount()} of them
+   */
+  public DoubleColumns snapshot() {
+    double[] xs = new double[buckets * ROLES];
+    double[] ys = new double[buckets * ROLES];
+    int[] roles = new int[ROLES];
+    int size = 0;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      sortRoles(bucket, roles);
+      long previous = -1;
+      for (int role : roles) {
+        long position = positions[bucket * ROLES + role];
+        if (position != previous) {
+          xs[size] = x(bucket, role);
+          ys[size] = y(bucket, role);
+          size++;
+          previous = position;
+        }
+      }
+    }
+    return new DoubleColumns(Arrays.copyOf(xs, size), Arrays.copyOf(ys, size));
+  }
+
+  /**
+   * Returns the downsampled version of the {@link #snapshot()}, produced with the configuration of
+   * the {@link Downsampler} this instance was created from. Snapshots of at most
+   * {@code desiredBuckets + 2} points are returned as they are.
+   *
+   * @param desiredBuckets the desired number of buckets for the downsampled output
+   * @return the downsampled snapshot
+   */
+  public DoubleColumns snapshot(int desiredBuckets) {
+    DoubleColumns snapshot = snapshot();
+    if (snapshot.size() <= desiredBuckets + 2) {
+      return snapshot;
+    }
+    return downsampler.sorted(snapshot.xs(), snapshot.ys(), 0, snapshot.size(), desiredBuckets);
+  }
+
+  private long tailSize() {
+    return positions[(buckets - 1) * ROLES + LAST] - positions[(buckets - 1) * ROLES + FIRST] + 1;
+  }
+
+  private void open(double x, double y) {
+    int bucket = buckets++;
+    for (int role = 0; role < ROLES; role++) {
+      set(bucket, role, count, x, y);
+    }
+  }
+
+  private void extend(int bucket, double x, double y) {
+    set(bucket, LAST, count, x, y);
+    // Strict comparisons keep the earliest point among equal extremes
+    if (y < y(bucket, LOWEST)) {
+      set(bucket, LOWEST, count, x, y);
+    }
+    if (y > y(bucket, HIGHEST)) {
+      set(bucket, HIGHEST, count, x, y);
+    }
+  }
+
+  /**
+   * Merges buckets {@code 2k} and {@code 2k + 1} into bucket {@code k}. An odd bucket out, the
+   * most recent one, is moved as it is and keeps filling up to the doubled span.
+   */
+  private void mergePairs() {
+    int merged = 0;
+    for (int bucket = 0; bucket + 1 < buckets; bucket += 2) {
+      int next = bucket + 1;
+      copy(bucket, FIRST, merged, FIRST);
+      copy(next, LAST, merged, LAST);
+      copy(y(next, LOWEST) < y(bucket, LOWEST) ? next : bucket, LOWEST, merged, LOWEST);
+      copy(y(next, HIGHEST) > y(bucket, HIGHEST) ? next : bucket, HIGHEST, merged, HIGHEST);
+      merged++;
+    }
+    if (buckets % 2 == 1) {
+      for (int role = 0; role < ROLES; role++) {
+        copy(buckets - 1, role, merged, role);
+      }
+      merged++;
+    }
+    buckets = merged;
+    span *= 2;
+  }
+
+  /**
+   * Writes the roles of the {@code bucket} into {@code roles}, sorted by position.
+   */
+  private void sortRoles(int bucket, int[] roles) {
+    for (int i = 0; i < ROLES; i++) {
+      int role = i;
+      int j = i;
+      while (j > 0 && positions[bucket * ROLES + roles[j - 1]] > positions[bucket * ROLES + role]) {
+        roles[j] = roles[j - 1];
+        j--;
+      }
+      roles[j] = role;
+    }
+  }
+
+  private double x(int bucket, int role) {
+    return coordinates[bucket * COORDINATES + 2 * role];
+  }
+
+  private double y(int bucket, int role) {
+    return coordinates[bucket * COORDINATES + 2 * role + 1];
+  }
+
+  private void set(int bucket, int role, long position, double x, double y) {
+    positions[bucket * ROLES + role] = position;
+    coordinates[bucket * COORDINATES + 2 * role] = x;
+    coordinates[bucket * COORDINATES + 2 * role + 1] = y;
+  }
+
+  private void copy(int fromBucket, int fromRole, int toBucket, int toRole) {
+    set(toBucket, toRole, positions[fromBucket * ROLES + fromRole], x(fromBucket, fromRole), y(fromBucket, fromRole));
+  }
+}
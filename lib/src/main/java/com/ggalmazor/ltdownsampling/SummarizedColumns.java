@@ -0,0 +1,28 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Objects;
+
+/**
+ * A downsampled series together with the statistics of the buckets its points were selected
+ * from, as returned by {@link LTThreeBuckets#summarized}.
+ *
+ * @param points     the coordinates of the downsampled series
+ * @param statistics the statistics of the bucket of every point, at the same positions
+ */
+public record SummarizedColumns(DoubleColumns points, BucketStatistics statistics) {
+
+  /**
+   * Validates that the points and the statistics are present and have the same size.
+   *
+   * @param points     the coordinates of the downsampled series
+   * @param statistics the statistics of the bucket of every point, at the same positions
+   */
+  public SummarizedColumns {
+    Objects.requireNonNull(points, "points");
+    Objects.requireNonNull(statistics, "statistics");
+    if (points.size() != statistics.size()) {
+      throw new IllegalArgumentException(
+          "Points and statistics must have the same size, got " + points.size() + " and " + statistics.size());
+    }
+  }
+}
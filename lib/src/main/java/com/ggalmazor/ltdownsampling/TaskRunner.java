@@ -0,0 +1,145 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the independent tasks of a selection step, either in the calling thread or on an
+ * {@link Executor}.
+ *
+ * <p>On a {@link ForkJoinPool}, tasks are run by a parallel stream submitted to that pool, so
+ * they never reach the common pool unless it is the configured one. Any other {@link Executor}
+ * (e.g. a virtual-thread executor) receives up to {@code parallelism - 1} helpers that claim
+ * tasks from a shared counter while the calling thread claims them too. The calling thread only
+ * waits for tasks that a helper has already started, so nested calls can't starve a bounded
+ * executor.
+ */
+final class TaskRunner {
+
+  /**
+   * Runs every task in order in the calling thread.
+   */
+  static final TaskRunner SEQUENTIAL = new TaskRunner(null, 1);
+
+  private final Executor executor;
+  private final int parallelism;
+
+  private TaskRunner(Executor executor, int parallelism) {
+    this.executor = executor;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Returns a runner that runs tasks on the common {@link ForkJoinPool}.
+   */
+  static TaskRunner commonPool() {
+    return of(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+  }
+
+  /**
+   * Returns a runner that runs tasks on the provided {@code executor} with up to
+   * {@code parallelism} threads, or {@link #SEQUENTIAL} when {@code parallelism} is lower than 2.
+   */
+  static TaskRunner of(Executor executor, int parallelism) {
+    return parallelism < 2 ? SEQUENTIAL : new TaskRunner(executor, parallelism);
+  }
+
+  /**
+   * Returns whether tasks may run concurrently.
+   */
+  boolean isParallel() {
+    return executor != null;
+  }
+
+  /**
+   * Returns the maximum number of threads running tasks at the same time.
+   */
+  int parallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Runs {@code task} once for every index in {@code [0, count)}, and returns when all of them
+   * are done. Tasks must be independent of each other.
+   *
+   * <p>The first exception thrown by a task is rethrown once every started task is done.
+   */
+  void forEach(int count, IntConsumer task) {
+    if (executor == null || count < 2) {
+      for (int i = 0; i < count; i++) {
+        task.accept(i);
+      }
+      return;
+    }
+
+    if (executor instanceof ForkJoinPool pool) {
+      if (ForkJoinTask.getPool() == pool) {
+        IntStream.range(0, count).parallel().forEach(task);
+      } else {
+        pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, count).parallel().forEach(task)));
+      }
+      return;
+    }
+
+    forEachClaimed(count, task);
+  }
+
+  private void forEachClaimed(int count, IntConsumer task) {
+    AtomicInteger next = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(count);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Runnable worker = () -> {
+      for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+        try {
+          task.accept(i);
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        } finally {
+          done.countDown();
+        }
+      }
+    };
+
+    int helpers = Math.min(parallelism, count) - 1;
+    try {
+      for (int helper = 0; helper < helpers; helper++) {
+        executor.execute(worker);
+      }
+    } catch (RejectedExecutionException e) {
+      // The calling thread claims the tasks no helper will run
+    }
+    worker.run();
+    awaitUninterruptibly(done);
+
+    Throwable t = failure.get();
+    if (t instanceof RuntimeException runtimeException) {
+      throw runtimeException;
+    }
+    if (t instanceof Error error) {
+      throw error;
+    }
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        latch.await();
+        break;
+      } catch (InterruptedException e) {
+        // Helpers write into arrays owned by the caller, so they must finish before returning
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -74,4 +74,51 @@ class Triangle<T extends Point> {
 
     return bestPoint;
   }
+
+  /**
+   * Returns the index in the input series of the point of the middle bucket that produces the
+   * triangle with the largest area.
+   *
+   * <p>Ties are resolved in favour of the lowest index, as in {@link #getResult()}.
+   *
+   * @return the input index of the point of the middle bucket of this {@link Triangle} that
+   *     produces the largest area
+   */
+  int getResultIndex() {
+    return maxAreaIndex(left.getResult(), right.getCenter());
+  }
+
+  /**
+   * Returns the index in the input series of the point of the middle bucket that produces the
+   * triangle with the largest area in {@link SelectionMode#EXACT} mode, where the triangle is
+   * anchored on the provided {@code leftPoint} and on the average of the bucket at the right.
+   *
+   * @param leftPoint the point selected in the bucket at the left
+   * @return the input index of the point of the middle bucket of this {@link Triangle} that
+   *     produces the largest area
+   */
+  int getExactResultIndex(Point leftPoint) {
+    return maxAreaIndex(leftPoint, right.getAverage());
+  }
+
+  private int maxAreaIndex(Point leftPoint, Point rightCenter) {
+    int bestIndex = -1;
+    double bestArea = -1.0;
+
+    int index = center.getOffset();
+    for (T candidate : center.points()) {
+      double area = Area.ofTriangle(leftPoint, candidate, rightCenter);
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = index;
+      }
+      index++;
+    }
+
+    if (bestIndex < 0) {
+      throw new IllegalStateException("Can't obtain max area triangle");
+    }
+
+    return bestIndex;
+  }
 }
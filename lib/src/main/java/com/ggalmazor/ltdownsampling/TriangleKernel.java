@@ -0,0 +1,494 @@
+package com.ggalmazor.ltdownsampling;
+
+/**
+ * Index-range implementation of the LTTB triangle selection over primitive coordinate arrays.
+ *
+ * <p>Buckets are described by the index boundaries produced by
+ * {@link OnePassBucketizer#boundaries}, so the selection loop never touches {@link Point} objects
+ * or {@link Bucket} instances.
+ *
+ * <p>The max-area search dispatches to {@link VectorTriangleKernel} when the
+ * {@code jdk.incubator.vector} module is present at runtime (e.g. with
+ * {@code --add-modules jdk.incubator.vector}), and to a scalar loop otherwise. Setting the
+ * {@value #VECTOR_PROPERTY} system property to {@code false} forces the scalar loop.
+ *
+ * <p>Whether a series is processed in parallel is decided by the caller, through the provided
+ * {@link TaskRunner}. When it is, buckets are resolved concurrently, and any single bucket of at
+ * least {@value #PARALLEL_CANDIDATES} candidates is itself split into pieces of
+ * {@value #SPLIT_SIZE} candidates, whose partial winners are merged. This keeps all threads busy
+ * when a few huge buckets are requested.
+ */
+final class TriangleKernel {
+
+  /**
+   * System property that disables the Vector API kernel when set to {@code false}.
+   */
+  static final String VECTOR_PROPERTY = "com.ggalmazor.ltdownsampling.vector";
+
+  /**
+   * Whether the Vector API kernel is used. {@link VectorTriangleKernel} is never loaded otherwise.
+   */
+  static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+      && !"false".equalsIgnoreCase(System.getProperty(VECTOR_PROPERTY));
+
+  /**
+   * Minimum number of candidates in a single bucket to split it across threads.
+   */
+  static final int PARALLEL_CANDIDATES = 1 << 17;
+
+  /**
+   * Number of candidates in each of the pieces a large bucket is split into.
+   */
+  static final int SPLIT_SIZE = 1 << 15;
+
+  private TriangleKernel() {}
+
+  /**
+   * Returns the indices of the points selected from the series delimited by {@code first} and
+   * {@code last}, whose middle buckets are described by {@code bounds}.
+   *
+   * <p>As in {@link Triangle#getResult()}, each triangle is anchored on the first point of the
+   * bucket at the left and on the center of the bucket at the right, which makes every bucket
+   * independent of the others.
+   *
+   * @param xs     the x values of the series
+   * @param ys     the y values of the series
+   * @param first  the index of the first point of the series
+   * @param last   the index of the last point of the series
+   * @param bounds the boundaries of the middle buckets
+   * @param runner runs the selection of every bucket
+   * @return the indices of the selected points, including {@code first} and {@code last}
+   */
+  static int[] select(double[] xs, double[] ys, int first, int last, int[] bounds, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    int[] selected = new int[buckets + 2];
+    select(xs, ys, first, last, bounds, buckets, selected, runner);
+    return selected;
+  }
+
+  /**
+   * Writes the indices of the points selected from the series delimited by {@code first} and
+   * {@code last} into the first {@code buckets + 2} elements of {@code selected}, and returns how
+   * many were written. Only the first {@code buckets + 1} elements of {@code bounds} are read.
+   *
+   * <p>Allocates nothing when the {@code runner} is sequential.
+   */
+  static int select(
+      double[] xs, double[] ys, int first, int last, int[] bounds, int buckets, int[] selected, TaskRunner runner) {
+    return selectFrom(xs, ys, first, last, bounds, buckets, 0, selected, runner);
+  }
+
+  /**
+   * Same as {@link #select(double[], double[], int, int, int[], int, int[], TaskRunner)}, but
+   * only selects the points of the middle buckets from {@code fromBucket} onwards. The elements
+   * of {@code selected} for the buckets before it are left untouched.
+   */
+  static int selectFrom(
+      double[] xs,
+      double[] ys,
+      int first,
+      int last,
+      int[] bounds,
+      int buckets,
+      int fromBucket,
+      int[] selected,
+      TaskRunner runner) {
+    selected[0] = first;
+    selected[buckets + 1] = last;
+
+    if (!runner.isParallel()) {
+      // A plain loop avoids allocating the capturing lambda below
+      for (int bucket = fromBucket; bucket < buckets; bucket++) {
+        selected[bucket + 1] = selectInBucket(xs, ys, first, last, bounds, buckets, bucket, null, runner);
+      }
+      return buckets + 2;
+    }
+
+    // Disjoint slots of the selected array are written by each bucket
+    runner.forEach(buckets - fromBucket, task -> {
+      int bucket = fromBucket + task;
+      selected[bucket + 1] = selectInBucket(xs, ys, first, last, bounds, buckets, bucket, null, runner);
+    });
+    return buckets + 2;
+  }
+
+  /**
+   * Returns the indices of the points selected in {@link SelectionMode#EXACT} mode from the series
+   * delimited by {@code first} and {@code last}, whose middle buckets are described by
+   * {@code bounds}.
+   *
+   * <p>Each triangle is anchored on the point selected in the bucket at its left and on the
+   * average of the bucket at its right.
+   *
+   * @param xs     the x values of the series
+   * @param ys     the y values of the series
+   * @param first  the index of the first point of the series
+   * @param last   the index of the last point of the series
+   * @param bounds the boundaries of the middle buckets
+   * @param runner runs the chunks of the selection, and the pieces of large buckets
+   * @return the indices of the selected points, including {@code first} and {@code last}
+   */
+  static int[] selectExact(double[] xs, double[] ys, int first, int last, int[] bounds, TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    int[] selected = new int[buckets + 2];
+    selectExact(xs, ys, first, last, bounds, buckets, selected, runner);
+    return selected;
+  }
+
+  /**
+   * Writes the indices of the points selected in {@link SelectionMode#EXACT} mode into the first
+   * {@code buckets + 2} elements of {@code selected}, and returns how many were written. Only the
+   * first {@code buckets + 1} elements of {@code bounds} are read.
+   *
+   * <p>Allocates nothing when the {@code runner} is sequential.
+   */
+  static int selectExact(
+      double[] xs, double[] ys, int first, int last, int[] bounds, int buckets, int[] selected, TaskRunner runner) {
+    if (runner.isParallel()) {
+      int[] chained = ExactSelection.select(
+          buckets,
+          first,
+          last,
+          (bucket, anchor) -> selectInBucketExact(xs, ys, last, bounds, buckets, bucket, anchor, null, runner),
+          bucket -> bounds[bucket],
+          runner
+      );
+      System.arraycopy(chained, 0, selected, 0, buckets + 2);
+      return buckets + 2;
+    }
+
+    return selectExactFrom(xs, ys, first, last, bounds, buckets, 0, selected, runner);
+  }
+
+  /**
+   * Continues the {@link SelectionMode#EXACT} chain from the middle bucket at {@code fromBucket},
+   * anchored on the point already selected at {@code selected[fromBucket]}. The chain itself runs
+   * in the calling thread, and only the pieces of large buckets use the {@code runner}.
+   */
+  static int selectExactFrom(
+      double[] xs,
+      double[] ys,
+      int first,
+      int last,
+      int[] bounds,
+      int buckets,
+      int fromBucket,
+      int[] selected,
+      TaskRunner runner) {
+    // Same chain as ExactSelection#selectSequential, without the selector lambda
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    for (int bucket = fromBucket; bucket < buckets; bucket++) {
+      selected[bucket + 1] =
+          selectInBucketExact(xs, ys, last, bounds, buckets, bucket, selected[bucket], null, runner);
+    }
+    return buckets + 2;
+  }
+
+  /**
+   * Returns the indices of the points selected in the provided {@link SelectionMode} from the
+   * series delimited by {@code first} and {@code last}, and writes the statistics of every middle
+   * bucket {@code k} into position {@code k + 1} of {@code statistics}.
+   *
+   * <p>Statistics are accumulated by the same loop that searches the max-area point of each
+   * bucket, so the series is only read once.
+   */
+  static int[] selectSummarized(
+      double[] xs,
+      double[] ys,
+      int first,
+      int last,
+      int[] bounds,
+      SelectionMode mode,
+      BucketStatistics statistics,
+      TaskRunner runner) {
+    int buckets = bounds.length - 1;
+    if (mode == SelectionMode.EXACT) {
+      // Repaired guesses search the same bucket again, which rewrites the same statistics
+      return ExactSelection.select(
+          buckets,
+          first,
+          last,
+          (bucket, anchor) -> selectInBucketExact(xs, ys, last, bounds, buckets, bucket, anchor, statistics, runner),
+          bucket -> bounds[bucket],
+          runner
+      );
+    }
+
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    runner.forEach(buckets, bucket -> {
+      selected[bucket + 1] = selectInBucket(xs, ys, first, last, bounds, buckets, bucket, statistics, runner);
+    });
+    return selected;
+  }
+
+  /**
+   * Selects the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the point at {@code anchor} and the average of the bucket at its right. Writes the statistics
+   * of the bucket when {@code statistics} is not {@code null}.
+   */
+  private static int selectInBucketExact(
+      double[] xs,
+      double[] ys,
+      int last,
+      int[] bounds,
+      int buckets,
+      int bucket,
+      int anchor,
+      BucketStatistics statistics,
+      TaskRunner runner) {
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = xs[last];
+      ry = ys[last];
+    } else {
+      int rightFirst = bounds[bucket + 1];
+      int rightEnd = bounds[bucket + 2];
+      double sumX = 0;
+      double sumY = 0;
+      for (int i = rightFirst; i < rightEnd; i++) {
+        sumX += xs[i];
+        sumY += ys[i];
+      }
+      rx = sumX / (rightEnd - rightFirst);
+      ry = sumY / (rightEnd - rightFirst);
+    }
+    return statistics == null
+        ? maxAreaIndex(xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, runner)
+        : summarizedMaxAreaIndex(
+            xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, statistics, bucket + 1, runner);
+  }
+
+  /**
+   * Selects the point of the middle bucket at {@code bucket} that forms the largest triangle with
+   * the first point of the bucket at its left and the center of the bucket at its right. Writes
+   * the statistics of the bucket when {@code statistics} is not {@code null}.
+   */
+  private static int selectInBucket(
+      double[] xs,
+      double[] ys,
+      int first,
+      int last,
+      int[] bounds,
+      int buckets,
+      int bucket,
+      BucketStatistics statistics,
+      TaskRunner runner) {
+    int anchor = bucket == 0 ? first : bounds[bucket - 1];
+    double rx;
+    double ry;
+    if (bucket == buckets - 1) {
+      rx = xs[last];
+      ry = ys[last];
+    } else {
+      int rightFirst = bounds[bucket + 1];
+      int rightLast = bounds[bucket + 2] - 1;
+      rx = (xs[rightFirst] + xs[rightLast]) / 2.0;
+      ry = (ys[rightFirst] + ys[rightLast]) / 2.0;
+    }
+    return statistics == null
+        ? maxAreaIndex(xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, runner)
+        : summarizedMaxAreaIndex(
+            xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, statistics, bucket + 1, runner);
+  }
+
+  /**
+   * Returns the index in {@code [from, to)} of the point that forms the triangle with the largest
+   * area together with the {@code (lx, ly)} and {@code (rx, ry)} points. Ties are resolved in
+   * favour of the lowest index.
+   *
+   * <p>When the {@code runner} is parallel, ranges of at least {@value #PARALLEL_CANDIDATES}
+   * candidates are split into pieces that are searched concurrently.
+   *
+   * @throws IllegalStateException when no candidate produces a comparable area (e.g. NaN values)
+   */
+  static int maxAreaIndex(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry, TaskRunner runner) {
+    int bestIndex = runner.isParallel() && to - from >= PARALLEL_CANDIDATES
+        ? splitMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry, runner)
+        : findMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry);
+
+    if (bestIndex < 0) {
+      throw new IllegalStateException("Can't obtain max area triangle");
+    }
+
+    return bestIndex;
+  }
+
+  /**
+   * Searches pieces of {@value #SPLIT_SIZE} candidates with the {@code runner}, then merges their
+   * winners in order so that ties are still resolved in favour of the lowest index.
+   */
+  static int splitMaxAreaIndex(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry, TaskRunner runner) {
+    int pieces = (to - from + SPLIT_SIZE - 1) / SPLIT_SIZE;
+    int[] winners = new int[pieces];
+    runner.forEach(pieces, piece -> {
+      int pieceFrom = from + piece * SPLIT_SIZE;
+      winners[piece] = findMaxAreaIndex(xs, ys, pieceFrom, Math.min(pieceFrom + SPLIT_SIZE, to), lx, ly, rx, ry);
+    });
+
+    int bestIndex = -1;
+    double bestArea = -1.0;
+    for (int winner : winners) {
+      if (winner >= 0) {
+        double area = Math.abs(lx * (ys[winner] - ry) + xs[winner] * (ry - ly) + rx * (ly - ys[winner])) / 2.0;
+        if (area > bestArea) {
+          bestArea = area;
+          bestIndex = winner;
+        }
+      }
+    }
+    return bestIndex;
+  }
+
+  /**
+   * Same as {@link #maxAreaIndex}, but also writes the count, lowest, highest and sum of the y
+   * values in {@code [from, to)} into position {@code slot} of {@code statistics}.
+   */
+  static int summarizedMaxAreaIndex(
+      double[] xs,
+      double[] ys,
+      int from,
+      int to,
+      double lx,
+      double ly,
+      double rx,
+      double ry,
+      BucketStatistics statistics,
+      int slot,
+      TaskRunner runner) {
+    int bestIndex;
+    if (runner.isParallel() && to - from >= PARALLEL_CANDIDATES) {
+      // Every piece summarizes its own range, and the pieces are merged in order
+      int pieces = (to - from + SPLIT_SIZE - 1) / SPLIT_SIZE;
+      BucketStatistics partial = BucketStatistics.of(pieces);
+      int[] winners = new int[pieces];
+      runner.forEach(pieces, piece -> {
+        int pieceFrom = from + piece * SPLIT_SIZE;
+        int pieceTo = Math.min(pieceFrom + SPLIT_SIZE, to);
+        winners[piece] = findSummarizedMaxAreaIndex(xs, ys, pieceFrom, pieceTo, lx, ly, rx, ry, partial, piece);
+      });
+
+      bestIndex = -1;
+      double bestArea = -1.0;
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      double sum = 0;
+      for (int piece = 0; piece < pieces; piece++) {
+        int winner = winners[piece];
+        if (winner >= 0) {
+          double area = Math.abs(lx * (ys[winner] - ry) + xs[winner] * (ry - ly) + rx * (ly - ys[winner])) / 2.0;
+          if (area > bestArea) {
+            bestArea = area;
+            bestIndex = winner;
+          }
+        }
+        min = Math.min(min, partial.mins()[piece]);
+        max = Math.max(max, partial.maxs()[piece]);
+        sum += partial.sums()[piece];
+      }
+      statistics.set(slot, to - from, min, max, sum);
+    } else {
+      bestIndex = findSummarizedMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry, statistics, slot);
+    }
+
+    if (bestIndex < 0) {
+      throw new IllegalStateException("Can't obtain max area triangle");
+    }
+
+    return bestIndex;
+  }
+
+  /**
+   * Sequential search of {@link #summarizedMaxAreaIndex}, returning {@code -1} when no candidate
+   * produces a comparable area. Uses the Vector API kernel when available.
+   */
+  private static int findSummarizedMaxAreaIndex(
+      double[] xs,
+      double[] ys,
+      int from,
+      int to,
+      double lx,
+      double ly,
+      double rx,
+      double ry,
+      BucketStatistics statistics,
+      int slot) {
+    return VECTORIZED && to - from >= VectorTriangleKernel.MIN_LENGTH
+        ? VectorTriangleKernel.summarizedMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry, statistics, slot)
+        : scalarSummarizedMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry, statistics, slot);
+  }
+
+  /**
+   * Sequential search of {@link #maxAreaIndex}, returning {@code -1} when no candidate produces a
+   * comparable area. Uses the Vector API kernel when available.
+   */
+  private static int findMaxAreaIndex(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry) {
+    return VECTORIZED && to - from >= VectorTriangleKernel.MIN_LENGTH
+        ? VectorTriangleKernel.maxAreaIndex(xs, ys, from, to, lx, ly, rx, ry)
+        : scalarMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry);
+  }
+
+  /**
+   * Scalar implementation of {@link #maxAreaIndex}, returning {@code -1} when no candidate
+   * produces a comparable area.
+   */
+  static int scalarMaxAreaIndex(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry) {
+    int bestIndex = -1;
+    double bestArea = -1.0;
+
+    for (int i = from; i < to; i++) {
+      // area of a triangle = |[Ax(By - Cy) + Bx(Cy - Ay) + Cx(Ay - By)] / 2|
+      double area = Math.abs(lx * (ys[i] - ry) + xs[i] * (ry - ly) + rx * (ly - ys[i])) / 2.0;
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = i;
+      }
+    }
+
+    return bestIndex;
+  }
+
+  /**
+   * Scalar implementation of {@link #summarizedMaxAreaIndex}, returning {@code -1} when no
+   * candidate produces a comparable area.
+   */
+  static int scalarSummarizedMaxAreaIndex(
+      double[] xs,
+      double[] ys,
+      int from,
+      int to,
+      double lx,
+      double ly,
+      double rx,
+      double ry,
+      BucketStatistics statistics,
+      int slot) {
+    int bestIndex = -1;
+    double bestArea = -1.0;
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum = 0;
+
+    for (int i = from; i < to; i++) {
+      double y = ys[i];
+      double area = Math.abs(lx * (y - ry) + xs[i] * (ry - ly) + rx * (ly - y)) / 2.0;
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = i;
+      }
+      min = y < min ? y : min;
+      max = y > max ? y : max;
+      sum += y;
+    }
+
+    statistics.set(slot, to - from, min, max, sum);
+    return bestIndex;
+  }
+}
@@ -0,0 +1,86 @@
+package com.ggalmazor.ltdownsampling;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of the partition scan of {@link MinMaxPreselection}.
+ *
+ * <p>Every lane keeps the first position where it saw its lowest and highest y values, using the
+ * same strict comparisons as the scalar loop, so both implementations always select the same
+ * points.
+ *
+ * <p>This class must only be loaded when the {@code jdk.incubator.vector} module is present; see
+ * {@link TriangleKernel#VECTORIZED}.
+ */
+final class VectorMinMaxKernel {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> INDEX_SPECIES =
+      VectorSpecies.of(long.class, SPECIES.vectorShape());
+
+  /**
+   * Minimum number of points for which the vector loop is worth its setup and reduction.
+   */
+  static final int MIN_LENGTH = 4 * SPECIES.length();
+
+  private VectorMinMaxKernel() {}
+
+  /**
+   * Writes the positions in {@code [from, to)} of the first lowest and the first highest y values
+   * into {@code extremes[slot]} and {@code extremes[slot + 1]}, in ascending order. NaN values are
+   * never selected, unless the partition starts with one.
+   */
+  static void extremes(double[] ys, int from, int to, int[] extremes, int slot) {
+    int lanes = SPECIES.length();
+    int upper = from + 1 + SPECIES.loopBound(to - from - 1);
+
+    DoubleVector minValues = DoubleVector.broadcast(SPECIES, ys[from]);
+    DoubleVector maxValues = minValues;
+    LongVector minIndices = LongVector.broadcast(INDEX_SPECIES, from);
+    LongVector maxIndices = minIndices;
+    LongVector indices = LongVector.zero(INDEX_SPECIES).addIndex(1).add(from + 1);
+    LongVector step = LongVector.broadcast(INDEX_SPECIES, lanes);
+
+    for (int i = from + 1; i < upper; i += lanes) {
+      DoubleVector y = DoubleVector.fromArray(SPECIES, ys, i);
+      VectorMask<Double> lower = y.compare(VectorOperators.LT, minValues);
+      VectorMask<Double> higher = y.compare(VectorOperators.GT, maxValues);
+      minValues = minValues.blend(y, lower);
+      minIndices = minIndices.blend(indices, lower.cast(INDEX_SPECIES));
+      maxValues = maxValues.blend(y, higher);
+      maxIndices = maxIndices.blend(indices, higher.cast(INDEX_SPECIES));
+      indices = indices.add(step);
+    }
+
+    // Among the lanes holding the extreme value, the lowest position came first
+    double minY = minValues.reduceLanes(VectorOperators.MIN);
+    double maxY = maxValues.reduceLanes(VectorOperators.MAX);
+    int min = firstOf(minValues, minIndices, minY);
+    int max = firstOf(maxValues, maxIndices, maxY);
+
+    for (int i = upper; i < to; i++) {
+      double y = ys[i];
+      if (y < minY) {
+        minY = y;
+        min = i;
+      }
+      if (y > maxY) {
+        maxY = y;
+        max = i;
+      }
+    }
+    extremes[slot] = Math.min(min, max);
+    extremes[slot + 1] = Math.max(min, max);
+  }
+
+  private static int firstOf(DoubleVector values, LongVector indices, double value) {
+    VectorMask<Long> matches = values.compare(VectorOperators.EQ, value).cast(INDEX_SPECIES);
+    // Every lane holds the first value of the partition when it is NaN
+    return matches.anyTrue()
+        ? (int) indices.blend(Long.MAX_VALUE, matches.not()).reduceLanes(VectorOperators.MIN)
+        : (int) indices.lane(0);
+  }
+}
@@ -0,0 +1,182 @@
+package com.ggalmazor.ltdownsampling;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API implementation of {@link TriangleKernel#maxAreaIndex}.
+ *
+ * <p>Evaluates as many candidates per instruction as the preferred {@code double} vector shape
+ * of the platform holds (4 with AVX2, 8 with AVX-512). Areas are computed with the same
+ * operations, in the same order, as the scalar loop, so both implementations always select the
+ * same point.
+ *
+ * <p>This class must only be loaded when the {@code jdk.incubator.vector} module is present; see
+ * {@link TriangleKernel}.
+ */
+final class VectorTriangleKernel {
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> INDEX_SPECIES =
+      VectorSpecies.of(long.class, SPECIES.vectorShape());
+
+  /**
+   * Minimum number of candidates for which the vector loop is worth its setup and reduction.
+   */
+  static final int MIN_LENGTH = 4 * SPECIES.length();
+
+  private VectorTriangleKernel() {}
+
+  /**
+   * Returns the index in {@code [from, to)} of the point that forms the triangle with the largest
+   * area together with the {@code (lx, ly)} and {@code (rx, ry)} points, or {@code -1} when no
+   * candidate produces a comparable area. Ties are resolved in favour of the lowest index.
+   */
+  static int maxAreaIndex(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry) {
+    int lanes = SPECIES.length();
+    int upper = from + SPECIES.loopBound(to - from);
+    double ryMinusLy = ry - ly;
+
+    // Each lane keeps the first index where it saw its largest area
+    DoubleVector bestAreas = DoubleVector.broadcast(SPECIES, -1.0);
+    LongVector bestIndices = LongVector.broadcast(INDEX_SPECIES, -1L);
+    LongVector indices = LongVector.zero(INDEX_SPECIES).addIndex(1).add(from);
+    LongVector step = LongVector.broadcast(INDEX_SPECIES, lanes);
+
+    for (int i = from; i < upper; i += lanes) {
+      DoubleVector cx = DoubleVector.fromArray(SPECIES, xs, i);
+      DoubleVector cy = DoubleVector.fromArray(SPECIES, ys, i);
+      // area of a triangle = |[Ax(By - Cy) + Bx(Cy - Ay) + Cx(Ay - By)] / 2|
+      DoubleVector area = cy.sub(ry).mul(lx)
+          .add(cx.mul(ryMinusLy))
+          .add(DoubleVector.broadcast(SPECIES, ly).sub(cy).mul(rx))
+          .abs()
+          .div(2.0);
+      VectorMask<Double> better = area.compare(VectorOperators.GT, bestAreas);
+      bestAreas = bestAreas.blend(area, better);
+      bestIndices = bestIndices.blend(indices, better.cast(INDEX_SPECIES));
+      indices = indices.add(step);
+    }
+
+    // Among the lanes holding the largest area, the lowest index came first
+    double bestArea = bestAreas.reduceLanes(VectorOperators.MAX);
+    int bestIndex = -1;
+    if (bestArea >= 0) {
+      VectorMask<Long> winners = bestAreas.compare(VectorOperators.EQ, bestArea).cast(INDEX_SPECIES);
+      bestIndex = (int) bestIndices.blend(Long.MAX_VALUE, winners.not()).reduceLanes(VectorOperators.MIN);
+    }
+
+    for (int i = upper; i < to; i++) {
+      double area = Math.abs(lx * (ys[i] - ry) + xs[i] * (ry - ly) + rx * (ly - ys[i])) / 2.0;
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = i;
+      }
+    }
+
+    return bestIndex;
+  }
+
+  /**
+   * Adds the area of the triangle that every point in {@code [from, to)} forms together with the
+   * {@code (lx, ly)} and {@code (rx, ry)} points to the element of {@code areas} at its position
+   * relative to {@code from}. Areas are computed as in {@link #maxAreaIndex}, so they match the
+   * scalar loop exactly.
+   */
+  static void addAreas(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry, double[] areas) {
+    int lanes = SPECIES.length();
+    int upper = from + SPECIES.loopBound(to - from);
+    double ryMinusLy = ry - ly;
+
+    for (int i = from; i < upper; i += lanes) {
+      DoubleVector cx = DoubleVector.fromArray(SPECIES, xs, i);
+      DoubleVector cy = DoubleVector.fromArray(SPECIES, ys, i);
+      DoubleVector area = cy.sub(ry).mul(lx)
+          .add(cx.mul(ryMinusLy))
+          .add(DoubleVector.broadcast(SPECIES, ly).sub(cy).mul(rx))
+          .abs()
+          .div(2.0);
+      DoubleVector.fromArray(SPECIES, areas, i - from).add(area).intoArray(areas, i - from);
+    }
+
+    for (int i = upper; i < to; i++) {
+      areas[i - from] += Math.abs(lx * (ys[i] - ry) + xs[i] * (ry - ly) + rx * (ly - ys[i])) / 2.0;
+    }
+  }
+
+  /**
+   * Same as {@link #maxAreaIndex}, but also writes the count, lowest, highest and sum of the y
+   * values in {@code [from, to)} into position {@code slot} of {@code statistics}. The lowest and
+   * highest values match the scalar loop, while the sum adds the values in a different order.
+   */
+  static int summarizedMaxAreaIndex(
+      double[] xs,
+      double[] ys,
+      int from,
+      int to,
+      double lx,
+      double ly,
+      double rx,
+      double ry,
+      BucketStatistics statistics,
+      int slot) {
+    int lanes = SPECIES.length();
+    int upper = from + SPECIES.loopBound(to - from);
+    double ryMinusLy = ry - ly;
+
+    DoubleVector bestAreas = DoubleVector.broadcast(SPECIES, -1.0);
+    LongVector bestIndices = LongVector.broadcast(INDEX_SPECIES, -1L);
+    LongVector indices = LongVector.zero(INDEX_SPECIES).addIndex(1).add(from);
+    LongVector step = LongVector.broadcast(INDEX_SPECIES, lanes);
+    DoubleVector mins = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+    DoubleVector maxs = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+    DoubleVector sums = DoubleVector.zero(SPECIES);
+
+    for (int i = from; i < upper; i += lanes) {
+      DoubleVector cx = DoubleVector.fromArray(SPECIES, xs, i);
+      DoubleVector cy = DoubleVector.fromArray(SPECIES, ys, i);
+      DoubleVector area = cy.sub(ry).mul(lx)
+          .add(cx.mul(ryMinusLy))
+          .add(DoubleVector.broadcast(SPECIES, ly).sub(cy).mul(rx))
+          .abs()
+          .div(2.0);
+      VectorMask<Double> better = area.compare(VectorOperators.GT, bestAreas);
+      bestAreas = bestAreas.blend(area, better);
+      bestIndices = bestIndices.blend(indices, better.cast(INDEX_SPECIES));
+      indices = indices.add(step);
+      // Comparisons skip NaN values, as the scalar loop does
+      mins = mins.blend(cy, cy.compare(VectorOperators.LT, mins));
+      maxs = maxs.blend(cy, cy.compare(VectorOperators.GT, maxs));
+      sums = sums.add(cy);
+    }
+
+    double bestArea = bestAreas.reduceLanes(VectorOperators.MAX);
+    int bestIndex = -1;
+    if (bestArea >= 0) {
+      VectorMask<Long> winners = bestAreas.compare(VectorOperators.EQ, bestArea).cast(INDEX_SPECIES);
+      bestIndex = (int) bestIndices.blend(Long.MAX_VALUE, winners.not()).reduceLanes(VectorOperators.MIN);
+    }
+    double min = mins.reduceLanes(VectorOperators.MIN);
+    double max = maxs.reduceLanes(VectorOperators.MAX);
+    double sum = sums.reduceLanes(VectorOperators.ADD);
+
+    for (int i = upper; i < to; i++) {
+      double y = ys[i];
+      double area = Math.abs(lx * (y - ry) + xs[i] * (ry - ly) + rx * (ly - y)) / 2.0;
+      if (area > bestArea) {
+        bestArea = area;
+        bestIndex = i;
+      }
+      min = y < min ? y : min;
+      max = y > max ? y : max;
+      sum += y;
+    }
+
+    statistics.set(slot, to - from, min, max, sum);
+    return bestIndex;
+  }
+}
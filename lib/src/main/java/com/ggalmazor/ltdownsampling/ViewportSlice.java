@@ -0,0 +1,92 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.List;
+
+/**
+ * The level of detail and the range of its points that answer a viewport query, shared by
+ * {@link LodPyramid} and {@link MappedPyramid}.
+ *
+ * @param level  the chosen level, where level 0 is the series itself
+ * @param from   the position of the first point of the slice in the level
+ * @param length the number of points of the slice
+ */
+record ViewportSlice(int level, long from, long length) {
+
+  /**
+   * Returns the slice of the coarsest of the provided {@code levels} that still holds at least
+   * {@value LodPyramid#OVERSAMPLING} points per pixel between {@code minX} and {@code maxX}, or the
+   * slice of level 0 when none does.
+   *
+   * <p>The slice starts at the last point at or before {@code minX}, and ends at the first point
+   * at or after {@code maxX}, so that lines can be drawn up to both edges of the viewport.
+   *
+   * @throws IllegalArgumentException when {@code minX} is greater than {@code maxX}, or
+   *     {@code pixels} is lower than 1
+   */
+  static ViewportSlice of(List<? extends PositionalSeries> levels, double minX, double maxX, int pixels) {
+    if (!(minX <= maxX)) {
+      throw new IllegalArgumentException("Viewports must satisfy minX <= maxX, got " + minX + " and " + maxX);
+    }
+    if (pixels < 1) {
+      throw new IllegalArgumentException("Viewports must be at least 1 pixel wide, got " + pixels);
+    }
+
+    for (int level = levels.size() - 1; level > 0; level--) {
+      ViewportSlice slice = slice(levels.get(level), level, minX, maxX);
+      if (slice.length >= (long) LodPyramid.OVERSAMPLING * pixels) {
+        return slice;
+      }
+    }
+    return slice(levels.getFirst(), 0, minX, maxX);
+  }
+
+  /**
+   * Returns whether the slice is short enough to be returned as it is, instead of being
+   * downsampled to {@code pixels} buckets.
+   */
+  boolean fits(int pixels) {
+    return length <= pixels + 2;
+  }
+
+  private static ViewportSlice slice(PositionalSeries points, int level, double minX, double maxX) {
+    long from = Math.max(upperBound(points, minX) - 1, 0);
+    long to = Math.min(lowerBound(points, maxX), points.size() - 1) + 1;
+    return new ViewportSlice(level, from, to - from);
+  }
+
+  /**
+   * Returns the position of the first point of the {@code series} whose x value is not lower than
+   * {@code x}, or {@code series.size()} if there is none.
+   */
+  private static long lowerBound(PositionalSeries series, double x) {
+    long low = 0;
+    long high = series.size();
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (series.x(middle) < x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the position of the first point of the {@code series} whose x value is greater than
+   * {@code x}, or {@code series.size()} if there is none.
+   */
+  private static long upperBound(PositionalSeries series, double x) {
+    long low = 0;
+    long high = series.size();
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      if (series.x(middle) <= x) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
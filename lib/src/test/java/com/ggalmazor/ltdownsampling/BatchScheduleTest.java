@@ -0,0 +1,132 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BatchScheduleTest {
+
+  @Test
+  public void every_series_of_a_batch_selects_the_same_points_as_a_separate_request() {
+    List<DoubleColumns> batch = batch(300, 42);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    ExecutorService threads = Executors.newFixedThreadPool(2);
+    try {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        for (SelectionMode mode : SelectionMode.values()) {
+          Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+          List<int[]> expected = new ArrayList<>();
+          for (DoubleColumns series : batch) {
+            expected.add(downsampler.indices(series.xs(), series.ys(), 0, series.size(), 100));
+          }
+
+          assertThat(arrays(downsampler.indicesAll(batch, 100)), equalTo(arrays(expected)));
+          assertThat(arrays(downsampler.withExecutor(pool).indicesAll(batch, 100)), equalTo(arrays(expected)));
+          assertThat(
+              arrays(downsampler.withExecutor(threads, 3).withParallelismPolicy(ParallelismPolicy.parallel())
+                  .indicesAll(batch, 100)),
+              equalTo(arrays(expected))
+          );
+          List<DoubleColumns> sorted = downsampler.withExecutor(pool).sortedAll(batch, 100);
+          for (int i = 0; i < batch.size(); i++) {
+            assertThat(sorted.get(i), equalTo(DoubleColumns.gather(batch.get(i).xs(), batch.get(i).ys(), expected.get(i))));
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+      threads.shutdown();
+    }
+  }
+
+  @Test
+  public void light_series_are_grouped_and_heavy_ones_are_split() {
+    long[] work = new long[1_000];
+    Random random = new Random(5);
+    for (int i = 0; i < work.length; i++) {
+      work[i] = random.nextInt(50) == 0 ? 2_000_000 + random.nextInt(1_000_000) : 1_000 + random.nextInt(20_000);
+    }
+    long total = 0;
+    for (long seriesWork : work) {
+      total += seriesWork;
+    }
+    long grain = Math.max(BatchSchedule.MIN_GRAIN, total / (BatchSchedule.TASKS_PER_THREAD * 8));
+
+    BatchSchedule schedule = BatchSchedule.of(work, 8);
+    boolean[] seen = new boolean[work.length];
+    long previousWork = Long.MAX_VALUE;
+    for (int task = 0; task < schedule.taskCount(); task++) {
+      int[] series = schedule.task(task);
+      long taskWork = 0;
+      for (int i = 0; i < series.length; i++) {
+        assertThat(seen[series[i]], equalTo(false));
+        seen[series[i]] = true;
+        taskWork += work[series[i]];
+        if (i > 0) {
+          // Groups are made of neighbouring series
+          assertThat(series[i], equalTo(series[i - 1] + 1));
+        }
+      }
+      assertThat(schedule.isSplit(task), equalTo(work[series[0]] > grain));
+      if (schedule.isSplit(task)) {
+        assertThat(series.length, equalTo(1));
+      } else {
+        assertThat(taskWork - work[series[series.length - 1]], lessThanOrEqualTo(grain));
+      }
+      // The heaviest tasks come first
+      assertThat(previousWork, greaterThanOrEqualTo(taskWork));
+      previousWork = taskWork;
+    }
+    for (boolean scheduled : seen) {
+      assertThat(scheduled, equalTo(true));
+    }
+  }
+
+  @Test
+  public void series_too_short_for_the_buckets_are_rejected() {
+    List<DoubleColumns> batch = new ArrayList<>(batch(20, 7));
+    batch.add(new DoubleColumns(new double[]{1, 2, 3}, new double[]{1, 2, 3}));
+
+    assertThrows(IllegalArgumentException.class, () -> Downsampler.create().indicesAll(batch, 100));
+    assertThat(Downsampler.create().indicesAll(List.of(), 100), equalTo(List.of()));
+  }
+
+  private static int[][] arrays(List<int[]> selections) {
+    return selections.toArray(new int[0][]);
+  }
+
+  /**
+   * Builds random walks with lengths spread over several orders of magnitude. Every 100th series
+   * is heavy enough to be split on 4 threads.
+   */
+  private static List<DoubleColumns> batch(int count, long seed) {
+    Random random = new Random(seed);
+    List<DoubleColumns> batch = new ArrayList<>();
+    for (int series = 0; series < count; series++) {
+      int size = series % 100 == 0 ? 1_500_000 : 200 + (int) Math.pow(10, 2 + 2 * random.nextDouble());
+      double[] xs = new double[size];
+      double[] ys = new double[size];
+      double x = 0;
+      double y = 0;
+      for (int i = 0; i < size; i++) {
+        x += 0.5 + random.nextDouble();
+        y += random.nextGaussian();
+        xs[i] = x;
+        ys[i] = y;
+      }
+      batch.add(new DoubleColumns(xs, ys));
+    }
+    return batch;
+  }
+}
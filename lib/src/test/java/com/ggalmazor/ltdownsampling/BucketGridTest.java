@@ -0,0 +1,154 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BucketGridTest {
+  private static final DoubleColumns SERIES = TestSeries.randomWalk(200_000, 3, 2_000, 500);
+
+  @Test
+  public void grid_buckets_select_the_same_points_regardless_of_the_viewport() {
+    double origin = -3.5;
+    double width = 7.25;
+    DoubleColumns expected = reference(SERIES.xs(), SERIES.ys(), origin, width);
+    BucketGrid grid = Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), origin, width, 1_000);
+
+    double lastX = SERIES.xs()[SERIES.size() - 1];
+    assertThat(grid.query(-1e300, 1e300), equalTo(expected));
+    assertThat(grid.query(SERIES.xs()[0], lastX), equalTo(expected));
+
+    // Any viewport gets the same selections, plus the closest ones beyond both of its edges
+    Random random = new Random(7);
+    for (int i = 0; i < 50; i++) {
+      double minX = random.nextDouble() * lastX;
+      double maxX = minX + random.nextDouble() * 5_000;
+      int from = 0;
+      while (from < expected.size() && bucket(expected.xs()[from], origin, width) < bucket(minX, origin, width)) {
+        from++;
+      }
+      int to = from;
+      while (to < expected.size() && bucket(expected.xs()[to], origin, width) <= bucket(maxX, origin, width)) {
+        to++;
+      }
+      from = Math.max(from - 1, 0);
+      to = Math.min(to + 1, expected.size());
+      assertThat(grid.query(minX, maxX), equalTo(slice(expected, from, to - from)));
+    }
+    assertThat(grid.query(-10, -5), equalTo(slice(expected, 0, 1)));
+    assertThat(grid.query(lastX + 1, lastX + 2), equalTo(slice(expected, expected.size() - 1, 1)));
+  }
+
+  @Test
+  public void panning_reuses_cached_tiles() {
+    double width = 1.0;
+    BucketGrid grid = Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), 0, width, 16);
+    double span = 2 * BucketGrid.TILE_BUCKETS * width;
+
+    DoubleColumns frame = grid.query(10_000, 10_000 + span);
+    long misses = grid.missCount();
+    assertThat(grid.hitCount(), equalTo(0L));
+
+    // Panning by a fraction of a tile only touches tiles that are already cached
+    DoubleColumns panned = grid.query(10_000 + 100.5, 10_000 + 100.5 + span);
+    assertThat(grid.missCount(), equalTo(misses));
+    assertThat(grid.hitCount(), equalTo(misses));
+    BucketGrid fresh = Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), 0, width, 16);
+    assertThat(panned, equalTo(fresh.query(10_000 + 100.5, 10_000 + 100.5 + span)));
+    assertThat(frame, equalTo(fresh.query(10_000, 10_000 + span)));
+  }
+
+  @Test
+  public void gaps_only_compute_the_tiles_holding_points() {
+    // Two dense runs of 10 tiles each, a million tiles apart
+    double tile = BucketGrid.TILE_BUCKETS;
+    double[] xs = new double[20 * BucketGrid.TILE_BUCKETS];
+    double[] ys = new double[xs.length];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i < xs.length / 2 ? i : 1e6 * tile + i;
+      ys[i] = Math.sin(i);
+    }
+    BucketGrid grid = Downsampler.create().newBucketGrid(xs, ys, 0, 1.0, 64);
+
+    assertThat(grid.query(0, xs[xs.length - 1]), equalTo(reference(xs, ys, 0, 1.0)));
+    assertThat(grid.missCount(), equalTo(20L));
+
+    // A viewport inside the gap only fetches the tiles of its closest points at both sides
+    DoubleColumns gap = grid.query(5e5 * tile, 6e5 * tile);
+    assertThat(gap.xs(), equalTo(new double[]{xs.length / 2 - 1, xs[xs.length / 2]}));
+    assertThat(grid.missCount(), equalTo(20L));
+    assertThat(grid.hitCount(), equalTo(2L));
+  }
+
+  @Test
+  public void least_recently_used_tiles_are_evicted() {
+    double width = 1.0;
+    BucketGrid grid = Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), 0, width, 2);
+    double tile = BucketGrid.TILE_BUCKETS * width;
+
+    grid.query(0.5 * tile, 0.6 * tile);
+    grid.query(10.5 * tile, 10.6 * tile);
+    grid.query(0.5 * tile, 0.6 * tile);
+    assertThat(grid.hitCount(), equalTo(1L));
+    assertThat(grid.missCount(), equalTo(2L));
+
+    // Tile 10 is evicted in favour of tile 20, while tile 0 stays
+    grid.query(20.5 * tile, 20.6 * tile);
+    grid.query(0.5 * tile, 0.6 * tile);
+    grid.query(10.5 * tile, 10.6 * tile);
+    assertThat(grid.hitCount(), equalTo(2L));
+    assertThat(grid.missCount(), equalTo(4L));
+
+    assertThrows(IllegalArgumentException.class, () -> grid.query(2, 1));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), 0, 0, 2)
+    );
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Downsampler.create().newBucketGrid(SERIES.xs(), SERIES.ys(), 0, 1, 0)
+    );
+  }
+
+  /**
+   * Selects one point per non-empty grid bucket of the whole series by scanning every bucket.
+   */
+  private static DoubleColumns reference(double[] xs, double[] ys, double origin, double width) {
+    List<Integer> starts = new ArrayList<>();
+    for (int i = 0; i < xs.length; i++) {
+      if (i == 0 || bucket(xs[i], origin, width) != bucket(xs[i - 1], origin, width)) {
+        starts.add(i);
+      }
+    }
+    starts.add(xs.length);
+
+    int buckets = starts.size() - 1;
+    int[] selected = new int[buckets];
+    for (int k = 0; k < buckets; k++) {
+      int left = k == 0 ? 0 : starts.get(k - 1);
+      double rx = k == buckets - 1 ? xs[xs.length - 1] : (xs[starts.get(k + 1)] + xs[starts.get(k + 2) - 1]) / 2.0;
+      double ry = k == buckets - 1 ? ys[ys.length - 1] : (ys[starts.get(k + 1)] + ys[starts.get(k + 2) - 1]) / 2.0;
+      selected[k] = TriangleKernel.scalarMaxAreaIndex(
+          xs, ys, starts.get(k), starts.get(k + 1), xs[left], ys[left], rx, ry);
+    }
+    return DoubleColumns.gather(xs, ys, selected);
+  }
+
+  private static long bucket(double x, double origin, double width) {
+    return (long) Math.floor((x - origin) / width);
+  }
+
+  private static DoubleColumns slice(DoubleColumns points, int from, int length) {
+    double[] xs = new double[length];
+    double[] ys = new double[length];
+    System.arraycopy(points.xs(), from, xs, 0, length);
+    System.arraycopy(points.ys(), from, ys, 0, length);
+    return new DoubleColumns(xs, ys);
+  }
+}
@@ -0,0 +1,103 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BucketPlanTest {
+  private static final int SIZE = 5_000;
+  private static final int OFFSET = 7;
+
+  private final double[] xs = new double[OFFSET + SIZE];
+  private final double[] ys = new double[OFFSET + SIZE];
+  private final List<DoublePoint> points = new ArrayList<>(SIZE);
+  private final List<Point> objectPoints = new ArrayList<>(SIZE);
+
+  public BucketPlanTest() {
+    Random random = new Random(42);
+    double x = 0;
+    for (int i = 0; i < OFFSET + SIZE; i++) {
+      // Uneven gaps, so that FIXED skips some windows
+      x += random.nextInt(10) == 0 ? 40 : 1;
+      xs[i] = x;
+      ys[i] = Math.sin(i * 0.01) * 10 + random.nextGaussian();
+      if (i >= OFFSET) {
+        points.add(DoublePoint.of(xs[i], ys[i]));
+        objectPoints.add(new ObjectPoint(xs[i], ys[i]));
+      }
+    }
+  }
+
+  @Test
+  public void dynamic_plan_distributes_remainder_across_first_buckets() {
+    BucketPlan plan = BucketPlan.dynamic(10, 3);
+
+    assertThat(plan.size(), equalTo(10));
+    assertThat(plan.bucketCount(), equalTo(3));
+    assertThat(plan.boundaries(), equalTo(new int[]{1, 4, 7, 9}));
+    assertThat(plan.start(1), equalTo(4));
+    assertThat(plan.end(1), equalTo(7));
+  }
+
+  @Test
+  public void plans_are_relative_to_the_start_of_the_series() {
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      BucketPlan plan = BucketPlan.of(xs, OFFSET, SIZE, 100, strategy);
+
+      assertThat(plan, equalTo(BucketPlan.of(points, 100, strategy)));
+      assertThat(plan.start(0), equalTo(1));
+      assertThat(plan.end(plan.bucketCount() - 1), equalTo(SIZE - 1));
+    }
+  }
+
+  @Test
+  public void downsampling_with_a_plan_matches_downsampling_with_its_strategy() {
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        BucketPlan plan = strategy == BucketizationStrategy.DYNAMIC && mode == SelectionMode.EXACT
+            ? BucketPlan.reference(SIZE, 100)
+            : BucketPlan.of(xs, OFFSET, SIZE, 100, strategy);
+        Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+        int[] expected = downsampler.indices(xs, ys, OFFSET, SIZE, 100);
+
+        assertThat(downsampler.indices(xs, ys, OFFSET, plan), equalTo(expected));
+        assertThat(downsampler.sorted(xs, ys, OFFSET, plan), equalTo(downsampler.sorted(xs, ys, OFFSET, SIZE, 100)));
+        assertThat(downsampler.sorted(points, plan), equalTo(downsampler.sorted(points, 100)));
+        assertThat(downsampler.sorted(objectPoints, plan), equalTo(downsampler.sorted(objectPoints, 100)));
+        assertThat(downsampler.indices(objectPoints, plan), equalTo(downsampler.indices(objectPoints, 100)));
+
+        int[] out = new int[plan.bucketCount() + 2];
+        int count = downsampler.newWorkspace().indices(xs, ys, OFFSET, plan, out);
+        assertThat(Arrays.copyOf(out, count), equalTo(expected));
+      }
+    }
+  }
+
+  @Test
+  public void plans_are_reusable_across_series_of_the_same_size() {
+    BucketPlan plan = BucketPlan.dynamic(SIZE, 100);
+
+    assertThat(LTThreeBuckets.sorted(points, plan), equalTo(LTThreeBuckets.sorted(points, 100)));
+    assertThat(LTThreeBuckets.indices(ys, xs, OFFSET, plan), equalTo(LTThreeBuckets.indices(ys, xs, OFFSET, SIZE, 100)));
+  }
+
+  @Test
+  public void plans_reject_series_of_another_size() {
+    BucketPlan plan = BucketPlan.dynamic(SIZE - 1, 100);
+
+    assertThrows(IllegalArgumentException.class, () -> LTThreeBuckets.sorted(points, plan));
+    assertThrows(IllegalArgumentException.class, () -> BucketPlan.dynamic(10, 9));
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.start(100));
+  }
+
+  // Not a DoublePoint, so that the generic Bucket / Triangle path is used
+  private record ObjectPoint(double x, double y) implements Point {
+  }
+}
@@ -0,0 +1,116 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+public class BucketStatisticsTest {
+  private static final DoubleColumns SERIES = TestSeries.randomWalk(400_000, 19, 1_000, 100);
+
+  @Test
+  public void statistics_describe_the_bucket_of_every_selected_point() {
+    double[] xs = SERIES.xs();
+    double[] ys = SERIES.ys();
+    int offset = 777;
+    int length = 300_000;
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        for (int buckets : new int[]{1, 2, 500}) {
+          SummarizedColumns summarized = LTThreeBuckets.summarized(xs, ys, offset, length, buckets, strategy, mode);
+
+          assertThat(
+              summarized.points(),
+              equalTo(LTThreeBuckets.sorted(xs, ys, offset, length, buckets, strategy, mode))
+          );
+          int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, buckets, strategy, mode, TaskRunner.SEQUENTIAL);
+          assertStatistics(summarized.statistics(), ys, offset, offset + length - 1, bounds);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void large_buckets_are_summarized_in_parallel_pieces() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Downsampler downsampler = Downsampler.create()
+          .withExecutor(pool)
+          .withParallelismPolicy(ParallelismPolicy.parallel());
+      double[] xs = SERIES.xs();
+      double[] ys = SERIES.ys();
+
+      for (SelectionMode mode : SelectionMode.values()) {
+        // Buckets of about 200,000 points are split into pieces of TriangleKernel.SPLIT_SIZE
+        SummarizedColumns summarized = downsampler.withSelectionMode(mode).summarized(xs, ys, 0, xs.length, 2);
+
+        assertThat(summarized.points(), equalTo(downsampler.withSelectionMode(mode).sorted(xs, ys, 0, xs.length, 2)));
+        int[] bounds = OnePassBucketizer.boundaries(xs, 0, xs.length, 2, BucketizationStrategy.DYNAMIC);
+        assertStatistics(summarized.statistics(), ys, 0, xs.length - 1, bounds);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void vector_and_scalar_kernels_agree_on_selections_and_statistics() {
+    double[] xs = SERIES.xs();
+    double[] ys = SERIES.ys().clone();
+    ys[1_000] = Double.NaN;
+    Random random = new Random(23);
+    for (int length = 1; length < 300; length++) {
+      int from = random.nextInt(xs.length - length);
+      BucketStatistics vector = BucketStatistics.of(1);
+      BucketStatistics scalar = BucketStatistics.of(1);
+      int expected = TriangleKernel.scalarMaxAreaIndex(xs, ys, from, from + length, 0, 0, 1e6, 10);
+
+      assertThat(
+          VectorTriangleKernel.summarizedMaxAreaIndex(xs, ys, from, from + length, 0, 0, 1e6, 10, vector, 0),
+          equalTo(expected)
+      );
+      assertThat(
+          TriangleKernel.scalarSummarizedMaxAreaIndex(xs, ys, from, from + length, 0, 0, 1e6, 10, scalar, 0),
+          equalTo(expected)
+      );
+      assertThat(vector.counts()[0], equalTo(length));
+      assertThat(vector.mins()[0], equalTo(scalar.mins()[0]));
+      assertThat(vector.maxs()[0], equalTo(scalar.maxs()[0]));
+      assertThat(vector.sums()[0], closeTo(scalar.sums()[0], 1e-6));
+    }
+    // NaN values are skipped by the lowest and highest values, and propagated by the sum
+    BucketStatistics statistics = BucketStatistics.of(1);
+    TriangleKernel.scalarSummarizedMaxAreaIndex(xs, ys, 990, 1_010, 0, 0, 1e6, 10, statistics, 0);
+    assertThat(Double.isNaN(statistics.sums()[0]), equalTo(true));
+    assertThat(Double.isNaN(statistics.mins()[0]), equalTo(false));
+  }
+
+  private static void assertStatistics(BucketStatistics statistics, double[] ys, int first, int last, int[] bounds) {
+    assertThat(statistics.size(), equalTo(bounds.length + 1));
+    assertBucket(statistics, 0, ys, first, first + 1);
+    for (int bucket = 0; bucket + 1 < bounds.length; bucket++) {
+      assertBucket(statistics, bucket + 1, ys, bounds[bucket], bounds[bucket + 1]);
+    }
+    assertBucket(statistics, bounds.length, ys, last, last + 1);
+  }
+
+  private static void assertBucket(BucketStatistics statistics, int slot, double[] ys, int from, int to) {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    double sum = 0;
+    for (int i = from; i < to; i++) {
+      min = Math.min(min, ys[i]);
+      max = Math.max(max, ys[i]);
+      sum += ys[i];
+    }
+    assertThat(statistics.counts()[slot], equalTo(to - from));
+    assertThat(statistics.mins()[slot], equalTo(min));
+    assertThat(statistics.maxs()[slot], equalTo(max));
+    assertThat(statistics.sums()[slot], closeTo(sum, 1e-6 * Math.max(1, Math.abs(sum))));
+    assertThat(statistics.mean(slot), closeTo(sum / (to - from), 1e-6 * Math.max(1, Math.abs(sum))));
+  }
+}
@@ -0,0 +1,154 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChannelKernelTest {
+  private static final double[] XS = TestSeries.randomWalk(200_000, 29, 1_000, 100).xs();
+  private static final double[][] CHANNELS = {ys(200_000, 1, 1), ys(200_000, 2, 10), ys(200_000, 3, 0.1)};
+
+  @Test
+  public void independent_channels_select_the_same_points_as_separate_requests() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        for (SelectionMode mode : SelectionMode.values()) {
+          Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+          Downsampler parallel = downsampler.withExecutor(pool).withParallelismPolicy(ParallelismPolicy.parallel());
+          for (int buckets : new int[]{1, 3, 1_000}) {
+            int[][] selected = downsampler.channelIndices(XS, CHANNELS, 500, 150_000, buckets);
+            List<DoubleColumns> sorted = parallel.channelSorted(XS, CHANNELS, 500, 150_000, buckets);
+
+            for (int channel = 0; channel < CHANNELS.length; channel++) {
+              int[] expected = downsampler.indices(XS, CHANNELS[channel], 500, 150_000, buckets);
+              assertThat(selected[channel], equalTo(expected));
+              assertThat(sorted.get(channel), equalTo(DoubleColumns.gather(XS, CHANNELS[channel], expected)));
+            }
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void shared_selection_maximizes_the_sum_of_areas_across_channels() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        for (SelectionMode mode : SelectionMode.values()) {
+          Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+          Downsampler parallel = downsampler.withExecutor(pool).withParallelismPolicy(ParallelismPolicy.parallel());
+          // 3 buckets span many blocks of candidates, 1000 buckets fit in one
+          for (int buckets : new int[]{3, 1_000}) {
+            int[] bounds = OnePassBucketizer.boundaries(XS, 500, 150_000, buckets, strategy, mode, TaskRunner.SEQUENTIAL);
+            int[] expected = reference(XS, CHANNELS, 500, 150_499, bounds, mode);
+
+            assertThat(downsampler.sharedIndices(XS, CHANNELS, 500, 150_000, buckets), equalTo(expected));
+            assertThat(parallel.sharedIndices(XS, CHANNELS, 500, 150_000, buckets), equalTo(expected));
+            assertThat(
+                parallel.sharedSorted(XS, CHANNELS, 500, 150_000, buckets),
+                equalTo(ChannelColumns.gather(XS, CHANNELS, expected))
+            );
+          }
+          // A single channel shares its selection with nobody
+          assertThat(
+              downsampler.sharedIndices(XS, new double[][]{CHANNELS[1]}, 500, 150_000, 1_000),
+              equalTo(downsampler.indices(XS, CHANNELS[1], 500, 150_000, 1_000))
+          );
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void vector_and_scalar_kernels_add_the_same_areas() {
+    Random random = new Random(31);
+    for (int length = 1; length < 300; length++) {
+      int from = random.nextInt(XS.length - length);
+      double[] vector = new double[length];
+      double[] scalar = new double[length];
+      for (double[] ys : CHANNELS) {
+        VectorTriangleKernel.addAreas(XS, ys, from, from + length, XS[from], ys[from], 1e6, 10, vector);
+        ChannelKernel.scalarAddAreas(XS, ys, from, from + length, XS[from], ys[from], 1e6, 10, scalar);
+      }
+
+      assertThat(vector, equalTo(scalar));
+    }
+  }
+
+  @Test
+  public void missing_or_short_channels_are_rejected() {
+    Downsampler downsampler = Downsampler.create();
+    assertThrows(IllegalArgumentException.class, () -> downsampler.channelIndices(XS, new double[0][], 0, 100, 10));
+    assertThrows(IllegalArgumentException.class, () -> downsampler.sharedIndices(XS, new double[0][], 0, 100, 10));
+    assertThrows(
+        IndexOutOfBoundsException.class,
+        () -> downsampler.sharedIndices(XS, new double[][]{CHANNELS[0], new double[50]}, 0, 100, 10)
+    );
+    assertThrows(IllegalArgumentException.class, () -> new ChannelColumns(new double[2], new double[][]{new double[3]}));
+  }
+
+  /**
+   * Scans every bucket, channel by channel, for the point with the largest sum of areas.
+   */
+  private static int[] reference(double[] xs, double[][] channels, int first, int last, int[] bounds, SelectionMode mode) {
+    int buckets = bounds.length - 1;
+    int[] selected = new int[buckets + 2];
+    selected[0] = first;
+    selected[buckets + 1] = last;
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      int anchor = mode == SelectionMode.EXACT ? selected[bucket] : bucket == 0 ? first : bounds[bucket - 1];
+      double[] areas = new double[bounds[bucket + 1] - bounds[bucket]];
+      for (double[] ys : channels) {
+        double rx = right(xs, last, bounds, bucket, mode);
+        double ry = right(ys, last, bounds, bucket, mode);
+        for (int i = bounds[bucket]; i < bounds[bucket + 1]; i++) {
+          areas[i - bounds[bucket]] +=
+              Math.abs(xs[anchor] * (ys[i] - ry) + xs[i] * (ry - ys[anchor]) + rx * (ys[anchor] - ys[i])) / 2.0;
+        }
+      }
+      int best = 0;
+      for (int i = 1; i < areas.length; i++) {
+        best = areas[i] > areas[best] ? i : best;
+      }
+      selected[bucket + 1] = bounds[bucket] + best;
+    }
+    return selected;
+  }
+
+  private static double right(double[] values, int last, int[] bounds, int bucket, SelectionMode mode) {
+    if (bucket == bounds.length - 2) {
+      return values[last];
+    }
+    if (mode == SelectionMode.INDEPENDENT) {
+      return (values[bounds[bucket + 1]] + values[bounds[bucket + 2] - 1]) / 2.0;
+    }
+    double sum = 0;
+    for (int i = bounds[bucket + 1]; i < bounds[bucket + 2]; i++) {
+      sum += values[i];
+    }
+    return sum / (bounds[bucket + 2] - bounds[bucket + 1]);
+  }
+
+  private static double[] ys(int size, long seed, double scale) {
+    Random random = new Random(seed);
+    double[] ys = new double[size];
+    double y = 0;
+    for (int i = 0; i < size; i++) {
+      y += scale * random.nextGaussian();
+      ys[i] = y;
+    }
+    return ys;
+  }
+}
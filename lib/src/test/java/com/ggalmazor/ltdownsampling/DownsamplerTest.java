@@ -0,0 +1,236 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.hamcrest.Description;
+import org.hamcrest.Matcher;
+import org.hamcrest.TypeSafeMatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DownsamplerTest {
+  private static final int SIZE = 50_000;
+
+  private final double[] xs = new double[SIZE];
+  private final double[] ys = new double[SIZE];
+  private final Set<Thread> readers = ConcurrentHashMap.newKeySet();
+  private final List<Point> points = new ArrayList<>(SIZE);
+
+  public DownsamplerTest() {
+    Random random = new Random(42);
+    for (int i = 0; i < SIZE; i++) {
+      xs[i] = i;
+      ys[i] = Math.sin(i * 0.001) * 10 + random.nextGaussian();
+      points.add(new RecordingPoint(xs[i], ys[i], readers));
+    }
+  }
+
+  @Test
+  public void default_downsampler_matches_the_static_api() {
+    assertThat(Downsampler.create().indices(points, 1000), equalTo(LTThreeBuckets.indices(points, 1000)));
+    assertThat(
+      Downsampler.create().withStrategy(BucketizationStrategy.FIXED).withSelectionMode(SelectionMode.EXACT)
+        .sorted(xs, ys, 0, SIZE, 1000),
+      equalTo(LTThreeBuckets.sorted(xs, ys, 0, SIZE, 1000, BucketizationStrategy.FIXED, SelectionMode.EXACT))
+    );
+  }
+
+  @Test
+  public void sequential_policy_reads_points_in_the_calling_thread_only() {
+    Downsampler downsampler = Downsampler.create().withParallelismPolicy(ParallelismPolicy.sequential());
+
+    assertThat(downsampler.indices(points, 1000), equalTo(LTThreeBuckets.indices(points, 1000)));
+    readers.clear();
+    downsampler.sorted(points, 1000);
+
+    assertThat(readers, contains(Thread.currentThread()));
+  }
+
+  @Test
+  public void parallel_requests_run_on_the_provided_pool_instead_of_the_common_pool() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Downsampler downsampler = Downsampler.create()
+          .withExecutor(pool)
+          .withParallelismPolicy(ParallelismPolicy.parallel());
+
+      for (SelectionMode mode : SelectionMode.values()) {
+        readers.clear();
+        int[] indices = downsampler.withSelectionMode(mode).indices(points, 1000);
+
+        assertThat(indices, equalTo(LTThreeBuckets.indices(points, 1000, BucketizationStrategy.DYNAMIC, mode)));
+        assertThat(readers, everyItem(not(commonPoolWorker())));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void parallel_requests_run_on_a_virtual_thread_executor() {
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      Downsampler downsampler = Downsampler.create()
+          .withExecutor(executor, 4)
+          .withParallelismPolicy(ParallelismPolicy.parallel());
+
+      for (SelectionMode mode : SelectionMode.values()) {
+        readers.clear();
+        DoubleColumns columns = downsampler.withSelectionMode(mode).sorted(xs, ys, 0, SIZE, 1000);
+
+        assertThat(columns, equalTo(LTThreeBuckets.sorted(xs, ys, 0, SIZE, 1000, BucketizationStrategy.DYNAMIC, mode)));
+        assertThat(downsampler.withSelectionMode(mode).indices(points, 1000), equalTo(
+          LTThreeBuckets.indices(points, 1000, BucketizationStrategy.DYNAMIC, mode)
+        ));
+        assertThat(readers, everyItem(not(commonPoolWorker())));
+      }
+    }
+  }
+
+  @Test
+  @Timeout(60)
+  public void nested_parallel_work_completes_on_a_single_thread_executor() {
+    // Huge buckets split into pieces while buckets themselves run on the same saturated executor
+    int size = 4 * TriangleKernel.PARALLEL_CANDIDATES;
+    double[] hugeXs = new double[size];
+    double[] hugeYs = new double[size];
+    for (int i = 0; i < size; i++) {
+      hugeXs[i] = i;
+      hugeYs[i] = Math.sin(i * 0.0001);
+    }
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Downsampler downsampler = Downsampler.create().withExecutor(executor, 4);
+      for (SelectionMode mode : SelectionMode.values()) {
+        assertThat(
+          downsampler.withSelectionMode(mode).indices(hugeXs, hugeYs, 0, size, 2),
+          equalTo(LTThreeBuckets.indices(hugeXs, hugeYs, 0, size, 2, BucketizationStrategy.DYNAMIC, mode))
+        );
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void cost_based_policy_weighs_points_and_buckets() {
+    ParallelismPolicy policy = ParallelismPolicy.costBased(10_000);
+
+    assertThat(ParallelismPolicy.estimatedWork(1_000, 10), equalTo(1_000L + 10L * ParallelismPolicy.BUCKET_COST));
+    assertThat(policy.isParallel(9_999, 0), equalTo(false));
+    assertThat(policy.isParallel(10_000, 0), equalTo(true));
+    assertThat(policy.isParallel(100, 40), equalTo(true));
+    assertThat(ParallelismPolicy.costBased().isParallel(0, LTThreeBuckets.PARALLEL_THRESHOLD), equalTo(true));
+  }
+
+  @Test
+  public void invalid_configurations_are_rejected() {
+    assertThrows(IllegalArgumentException.class, () -> ParallelismPolicy.costBased(-1));
+    assertThrows(IllegalArgumentException.class, () -> Downsampler.create().withExecutor(Runnable::run, 0));
+    assertThrows(NullPointerException.class, () -> Downsampler.create().withStrategy(null));
+  }
+
+  @Test
+  public void appending_matches_a_full_recompute() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        for (SelectionMode mode : SelectionMode.values()) {
+          Downsampler sequential = Downsampler.create().withStrategy(strategy).withSelectionMode(mode)
+            .withParallelismPolicy(ParallelismPolicy.sequential());
+          Downsampler parallel = sequential.withExecutor(pool).withParallelismPolicy(ParallelismPolicy.parallel());
+          Random random = new Random(7);
+          int length = 10_000;
+          int[] previous = sequential.indices(xs, ys, 0, length, 300);
+          while (length < SIZE) {
+            int appended = Math.min(SIZE, length + 1 + random.nextInt(200));
+            int[] expected = sequential.indices(xs, ys, 0, appended, 300);
+
+            assertThat(parallel.indicesAfterAppend(xs, ys, 0, appended, 300, previous, length), equalTo(expected));
+            previous = sequential.indicesAfterAppend(xs, ys, 0, appended, 300, previous, length);
+            assertThat(strategy + " / " + mode + " at " + appended, previous, equalTo(expected));
+            length = appended;
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void appending_keeps_the_selections_of_unaffected_buckets() {
+    // 100 * 99 + 90 middle points: the first 90 buckets are one point larger than the rest
+    int length = 100 * 99 + 90 + 2;
+    int[] previous = Downsampler.create().indices(xs, ys, 0, length, 100);
+    // Replaced by a marker, which is only kept if the first bucket isn't selected again
+    previous[1] = 42;
+
+    int[] updated = Downsampler.create().indicesAfterAppend(xs, ys, 0, length + 5, 100, previous, length);
+
+    assertThat(updated[1], equalTo(42));
+    assertThat(updated[100], equalTo(Downsampler.create().indices(xs, ys, 0, length + 5, 100)[100]));
+    assertThrows(IllegalArgumentException.class, () ->
+      Downsampler.create().indicesAfterAppend(xs, ys, 0, length - 1, 100, previous, length)
+    );
+  }
+
+  @Test
+  public void collectors_match_downsampling_the_collected_list() {
+    List<DoublePoint> doublePoints = points.stream().map(point -> new DoublePoint(point.x(), point.y())).toList();
+
+    for (SelectionMode mode : SelectionMode.values()) {
+      Downsampler downsampler = Downsampler.create().withSelectionMode(mode);
+      List<DoublePoint> expected = downsampler.sorted(doublePoints, 1000);
+
+      assertThat(doublePoints.stream().collect(downsampler.collector(1000)), equalTo(expected));
+      assertThat(doublePoints.parallelStream().collect(downsampler.collector(1000)), equalTo(expected));
+      // Points of other types are returned as they are
+      List<Point> collected = points.parallelStream().collect(downsampler.collector(1000));
+      List<Point> sorted = downsampler.sorted(points, 1000);
+      assertThat(collected.size(), equalTo(sorted.size()));
+      for (int i = 0; i < sorted.size(); i++) {
+        assertThat(collected.get(i), sameInstance(sorted.get(i)));
+      }
+    }
+  }
+
+  private static Matcher<Thread> commonPoolWorker() {
+    return new TypeSafeMatcher<>() {
+      @Override
+      protected boolean matchesSafely(Thread thread) {
+        return thread instanceof ForkJoinWorkerThread worker && worker.getPool() == ForkJoinPool.commonPool();
+      }
+
+      @Override
+      public void describeTo(Description description) {
+        description.appendText("a common pool worker");
+      }
+    };
+  }
+
+  // Not a DoublePoint, so that the generic Bucket / Triangle path reads points from worker threads
+  private record RecordingPoint(double x, double y, Set<Thread> readers) implements Point {
+    @Override
+    public double y() {
+      readers.add(Thread.currentThread());
+      return y;
+    }
+  }
+}
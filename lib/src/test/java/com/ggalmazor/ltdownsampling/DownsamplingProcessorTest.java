@@ -0,0 +1,83 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DownsamplingProcessorTest {
+
+  @Test
+  public void every_window_is_downsampled_and_published() throws Exception {
+    List<DoublePoint> points = new ArrayList<>();
+    for (int i = 0; i < 10_050; i++) {
+      points.add(new DoublePoint(i, Math.sin(i * 0.01) * 10));
+    }
+    List<List<DoublePoint>> windows = new ArrayList<>();
+
+    DownsamplingProcessor<DoublePoint> processor = Downsampler.create().newProcessor(1_000, 20);
+    CompletableFuture<Void> done = processor.consume(windows::add);
+    try (SubmissionPublisher<DoublePoint> source = new SubmissionPublisher<>()) {
+      source.subscribe(processor);
+      points.forEach(source::submit);
+    }
+    done.get(10, TimeUnit.SECONDS);
+
+    assertThat(windows.size(), equalTo(11));
+    for (int window = 0; window < 10; window++) {
+      List<DoublePoint> input = points.subList(window * 1_000, (window + 1) * 1_000);
+      assertThat(windows.get(window), equalTo(LTThreeBuckets.sorted(input, 20)));
+    }
+    // Trailing 50 points, more than the 22 points of a downsampled window
+    assertThat(windows.get(10), equalTo(LTThreeBuckets.sorted(points.subList(10_000, 10_050), 20)));
+  }
+
+  @Test
+  public void short_trailing_windows_are_published_as_they_are() throws Exception {
+    List<List<DoublePoint>> windows = new ArrayList<>();
+
+    DownsamplingProcessor<DoublePoint> processor = Downsampler.create().newProcessor(100, 10);
+    CompletableFuture<Void> done = processor.consume(windows::add);
+    try (SubmissionPublisher<DoublePoint> source = new SubmissionPublisher<>()) {
+      source.subscribe(processor);
+      for (int i = 0; i < 105; i++) {
+        source.submit(new DoublePoint(i, i % 7));
+      }
+    }
+    done.get(10, TimeUnit.SECONDS);
+
+    assertThat(windows.size(), equalTo(2));
+    assertThat(windows.get(1), equalTo(List.of(
+      new DoublePoint(100, 2), new DoublePoint(101, 3), new DoublePoint(102, 4),
+      new DoublePoint(103, 5), new DoublePoint(104, 6)
+    )));
+  }
+
+  @Test
+  public void downsampling_failures_are_passed_on_to_subscribers() {
+    DownsamplingProcessor<DoublePoint> processor = Downsampler.create().newProcessor(10, 2);
+    List<List<DoublePoint>> windows = new ArrayList<>();
+    CompletableFuture<Void> done = processor.consume(windows::add);
+    try (SubmissionPublisher<DoublePoint> source = new SubmissionPublisher<>()) {
+      source.subscribe(processor);
+      for (int i = 0; i < 30; i++) {
+        source.submit(new DoublePoint(i, i < 15 ? 1 : Double.NaN));
+      }
+    }
+
+    ExecutionException failure = assertThrows(ExecutionException.class, () -> done.get(10, TimeUnit.SECONDS));
+    assertThat(failure.getCause(), instanceOf(IllegalStateException.class));
+    assertThat(windows.size(), lessThan(2));
+    assertThrows(IllegalArgumentException.class, () -> Downsampler.create().newProcessor(11, 10));
+  }
+}
@@ -0,0 +1,143 @@
+package com.ggalmazor.ltdownsampling;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class DownsamplingWorkspaceTest {
+  private static final int SIZE = 10_000;
+  private static final int BUCKETS = 200;
+
+  private final double[] xs = new double[SIZE];
+  private final double[] ys = new double[SIZE];
+  private final List<DoublePoint> points = new ArrayList<>(SIZE);
+
+  public DownsamplingWorkspaceTest() {
+    Random random = new Random(42);
+    double x = 0;
+    for (int i = 0; i < SIZE; i++) {
+      // Uneven gaps, so that FIXED skips some windows
+      x += random.nextInt(10) == 0 ? 50 : 1;
+      xs[i] = x;
+      ys[i] = Math.sin(i * 0.01) * 10 + random.nextGaussian();
+      points.add(DoublePoint.of(xs[i], ys[i]));
+    }
+  }
+
+  @Test
+  public void workspace_selects_the_same_points_as_the_allocating_api() {
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+        DownsamplingWorkspace workspace = downsampler.newWorkspace();
+
+        int[] expected = downsampler.indices(xs, ys, 0, SIZE, BUCKETS);
+        int[] out = new int[BUCKETS + 2];
+        int count = workspace.indices(xs, ys, 0, SIZE, BUCKETS, out);
+        assertThat(Arrays.copyOf(out, count), equalTo(expected));
+
+        count = workspace.indices(points, BUCKETS, out);
+        assertThat(Arrays.copyOf(out, count), equalTo(downsampler.indices(points, BUCKETS)));
+
+        double[] outXs = new double[BUCKETS + 2];
+        double[] outYs = new double[BUCKETS + 2];
+        count = workspace.sorted(xs, ys, 0, SIZE, BUCKETS, outXs, outYs);
+        assertThat(
+          new DoubleColumns(Arrays.copyOf(outXs, count), Arrays.copyOf(outYs, count)),
+          equalTo(downsampler.sorted(xs, ys, 0, SIZE, BUCKETS))
+        );
+
+        DoublePoint[] outPoints = new DoublePoint[BUCKETS + 2];
+        count = workspace.sorted(points, BUCKETS, outPoints);
+        assertThat(Arrays.asList(outPoints).subList(0, count), equalTo(downsampler.sorted(points, BUCKETS)));
+      }
+    }
+  }
+
+  @Test
+  public void workspace_grows_and_resets_its_buffers() {
+    DownsamplingWorkspace workspace = Downsampler.create().newWorkspace();
+    int[] out = new int[BUCKETS + 2];
+
+    workspace.indices(points.subList(0, 100), 10, out);
+    int count = workspace.indices(points, BUCKETS, out);
+    assertThat(Arrays.copyOf(out, count), equalTo(LTThreeBuckets.indices(points, BUCKETS)));
+
+    workspace.reset();
+    count = workspace.indices(points.subList(0, 100), 10, out);
+    assertThat(Arrays.copyOf(out, count), equalTo(LTThreeBuckets.indices(points.subList(0, 100), 10)));
+  }
+
+  @Test
+  public void undersized_outputs_are_rejected() {
+    DownsamplingWorkspace workspace = Downsampler.create().newWorkspace();
+
+    assertThrows(IllegalArgumentException.class, () -> workspace.indices(xs, ys, 0, SIZE, BUCKETS, new int[BUCKETS + 1]));
+    assertThrows(IllegalArgumentException.class, () ->
+      workspace.sorted(xs, ys, 0, SIZE, BUCKETS, new double[BUCKETS + 2], new double[BUCKETS])
+    );
+  }
+
+  @Test
+  public void steady_state_downsampling_allocates_nothing() {
+    assumeTrue(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean);
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+    // Vector temporaries are only eliminated if C2 inlines the whole kernel, which isn't guaranteed.
+    // The scalarTest task runs this test with the vector kernel disabled.
+    assumeFalse(TriangleKernel.VECTORIZED);
+
+    for (SelectionMode mode : SelectionMode.values()) {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        DownsamplingWorkspace workspace = Downsampler.create()
+            .withStrategy(strategy)
+            .withSelectionMode(mode)
+            .withParallelismPolicy(ParallelismPolicy.sequential())
+            .newWorkspace();
+        int[] out = new int[BUCKETS + 2];
+        double[] outXs = new double[BUCKETS + 2];
+        double[] outYs = new double[BUCKETS + 2];
+        DoublePoint[] outPoints = new DoublePoint[BUCKETS + 2];
+
+        // Warm up until the JIT compiler has compiled the kernels
+        for (int i = 0; i < 3_000; i++) {
+          downsampleAll(workspace, out, outXs, outYs, outPoints);
+        }
+
+        long allocated = 0;
+        for (int attempt = 0; attempt < 10; attempt++) {
+          long before = threads.getCurrentThreadAllocatedBytes();
+          for (int i = 0; i < 100; i++) {
+            downsampleAll(workspace, out, outXs, outYs, outPoints);
+          }
+          allocated = threads.getCurrentThreadAllocatedBytes() - before;
+          if (allocated == 0) {
+            break;
+          }
+        }
+
+        assertThat(strategy + " / " + mode + " allocated bytes", allocated, equalTo(0L));
+      }
+    }
+  }
+
+  private void downsampleAll(
+    DownsamplingWorkspace workspace, int[] out, double[] outXs, double[] outYs, DoublePoint[] outPoints
+  ) {
+    workspace.indices(xs, ys, 0, SIZE, BUCKETS, out);
+    workspace.sorted(xs, ys, 0, SIZE, BUCKETS, outXs, outYs);
+    workspace.indices(points, BUCKETS, out);
+    workspace.sorted(points, BUCKETS, outPoints);
+  }
+}
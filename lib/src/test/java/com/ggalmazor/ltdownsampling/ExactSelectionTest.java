@@ -0,0 +1,78 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.IntBinaryOperator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class ExactSelectionTest {
+
+  @Test
+  public void chunked_selection_matches_sequential_selection() {
+    Random random = new Random(42);
+    int size = 20_000;
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    for (int i = 0; i < size; i++) {
+      xs[i] = i;
+      ys[i] = Math.sin(i * 0.01) * 10 + random.nextGaussian();
+    }
+    int[] bounds = OnePassBucketizer.boundaries(xs, 0, size, 1000, BucketizationStrategy.DYNAMIC);
+    int buckets = bounds.length - 1;
+    IntBinaryOperator selector = (bucket, anchor) -> {
+      int rightFirst = bucket == buckets - 1 ? size - 1 : bounds[bucket + 1];
+      int rightEnd = bucket == buckets - 1 ? size : bounds[bucket + 2];
+      double rx = 0;
+      double ry = 0;
+      for (int i = rightFirst; i < rightEnd; i++) {
+        rx += xs[i];
+        ry += ys[i];
+      }
+      rx /= rightEnd - rightFirst;
+      ry /= rightEnd - rightFirst;
+      return TriangleKernel.maxAreaIndex(xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], rx, ry, TaskRunner.SEQUENTIAL);
+    };
+
+    int[] sequential = ExactSelection.selectSequential(buckets, 0, size - 1, selector);
+
+    for (int chunks : new int[]{2, 3, 7, 64, buckets}) {
+      int[] chunked = ExactSelection.selectChunked(
+        buckets, 0, size - 1, () -> selector, bucket -> bounds[bucket], chunks, TaskRunner.commonPool()
+      );
+      assertThat(chunked, equalTo(sequential));
+    }
+  }
+
+  @Test
+  public void chunked_selection_repairs_every_wrong_guess() {
+    // A zig-zag series where the selection flips between the first and last point of each bucket
+    // depending on the anchor, so speculative anchors are often wrong
+    int size = 4_002;
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    for (int i = 0; i < size; i++) {
+      xs[i] = i;
+      ys[i] = (i % 4 < 2 ? 1 : -1) * (1 + (i % 7));
+    }
+    int[] bounds = OnePassBucketizer.boundaries(xs, 0, size, 1000, BucketizationStrategy.DYNAMIC);
+    int buckets = bounds.length - 1;
+    IntBinaryOperator selector = (bucket, anchor) -> {
+      int right = bucket == buckets - 1 ? size - 1 : bounds[bucket + 1];
+      return TriangleKernel.maxAreaIndex(
+        xs, ys, bounds[bucket], bounds[bucket + 1], xs[anchor], ys[anchor], xs[right], ys[right], TaskRunner.SEQUENTIAL
+      );
+    };
+
+    int[] sequential = ExactSelection.selectSequential(buckets, 0, size - 1, selector);
+
+    for (int chunks = 2; chunks <= 50; chunks++) {
+      int[] chunked = ExactSelection.selectChunked(
+        buckets, 0, size - 1, () -> selector, bucket -> bounds[bucket], chunks, TaskRunner.commonPool()
+      );
+      assertThat(chunked, equalTo(sequential));
+    }
+  }
+}
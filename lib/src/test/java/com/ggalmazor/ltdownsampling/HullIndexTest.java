@@ -0,0 +1,68 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HullIndexTest {
+
+  @Test
+  public void indexes_select_the_same_points_as_scanning_every_bucket() {
+    DoubleColumns series = TestSeries.randomWalk(300_000, 5, 1_000, 300);
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+        HullIndex index = downsampler.newHullIndex(series.xs(), series.ys());
+
+        for (int buckets : new int[]{1, 7, 100, 2_000, 50_000}) {
+          assertThat(
+              index.indices(buckets),
+              equalTo(LTThreeBuckets.indices(series.xs(), series.ys(), 0, series.size(), buckets, strategy, mode))
+          );
+        }
+        // Viewports that start and end in the middle of blocks
+        assertThat(
+            index.sorted(12_345, 98_765, 500),
+            equalTo(LTThreeBuckets.sorted(series.xs(), series.ys(), 12_345, 98_765, 500, strategy, mode))
+        );
+      }
+    }
+  }
+
+  @Test
+  public void ties_go_to_the_first_candidate_and_repeated_x_values_are_supported() {
+    int size = 10_000;
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    for (int i = 0; i < size; i++) {
+      // Pairs of points share their x value, and plateaus produce many equal areas
+      xs[i] = i / 2;
+      ys[i] = (i / 500) % 2 == 0 ? 0 : 8;
+    }
+    HullIndex index = Downsampler.create().newHullIndex(xs, ys);
+
+    for (int buckets : new int[]{3, 10, 99}) {
+      assertThat(index.indices(buckets), equalTo(LTThreeBuckets.indices(xs, ys, 0, size, buckets)));
+    }
+  }
+
+  @Test
+  public void series_with_values_that_are_not_finite_are_rejected() {
+    double[] xs = {0, 1, 2, 3};
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> Downsampler.create().newHullIndex(xs, new double[]{0, Double.NaN, 1, 2})
+    );
+    assertThrows(IllegalArgumentException.class, () -> Downsampler.create().newHullIndex(xs, new double[3]));
+  }
+
+  @Test
+  public void hull_pools_grow_up_to_the_largest_array() {
+    assertThat(HullIndex.grownCapacity(16, 100), equalTo(32));
+    assertThat(HullIndex.grownCapacity(1 << 30, 100), equalTo(HullIndex.MAX_POOL));
+    assertThrows(IllegalArgumentException.class, () -> HullIndex.grownCapacity(HullIndex.MAX_POOL, 100));
+  }
+}
@@ -3,12 +3,16 @@ package com.ggalmazor.ltdownsampling;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.function.ToDoubleFunction;
 
 import static com.ggalmazor.ltdownsampling.PointMatcher.pointAt;
 import static java.util.Arrays.asList;
@@ -219,6 +223,262 @@ public class LargestTriangleThreeBucketsTest {
     );
   }
 
+  // ---- Primitive arrays ----
+
+  @Test
+  public void columns_select_the_same_points_as_the_point_list() {
+    double[] xs = {0, 1, 2, 3, 4, 5, 6};
+    double[] ys = {0, 1, 3, 1, 3, 2, 0};
+
+    DoubleColumns output = LTThreeBuckets.sorted(xs, ys, 0, xs.length, 2);
+
+    assertThat(output, equalTo(new DoubleColumns(
+      new double[]{0, 2, 4, 6},
+      new double[]{0, 3, 3, 0}
+    )));
+  }
+
+  @Test
+  public void columns_only_read_the_range_between_offset_and_length() {
+    // Same series as above, surrounded by points that would win every triangle if read
+    double[] xs = {-2, -1, 0, 1, 2, 3, 4, 5, 6, 7, 8};
+    double[] ys = {99, 99, 0, 1, 3, 1, 3, 2, 0, 99, 99};
+
+    DoubleColumns output = LTThreeBuckets.sorted(xs, ys, 2, 7, 2);
+
+    assertThat(output, equalTo(new DoubleColumns(
+      new double[]{0, 2, 4, 6},
+      new double[]{0, 3, 3, 0}
+    )));
+  }
+
+  @Test
+  public void columns_with_fixed_strategy_skip_empty_buckets() {
+    double[] xs = {0, 1, 2, 3, 9, 10};
+    double[] ys = {0, 5, 3, 4, 1, 0};
+
+    DoubleColumns output = LTThreeBuckets.sorted(xs, ys, 0, xs.length, 4, BucketizationStrategy.FIXED);
+    List<DoublePoint> expected = LTThreeBuckets.sorted(
+      asList(
+        DoublePoint.of(0, 0),
+        DoublePoint.of(1, 5),
+        DoublePoint.of(2, 3),
+        DoublePoint.of(3, 4),
+        DoublePoint.of(9, 1),
+        DoublePoint.of(10, 0)
+      ),
+      4,
+      BucketizationStrategy.FIXED
+    );
+
+    assertThat(output.size(), equalTo(5));
+    for (int i = 0; i < expected.size(); i++) {
+      assertThat(output.get(i), equalTo(expected.get(i)));
+    }
+  }
+
+  @Test
+  public void columns_throw_when_the_range_is_out_of_bounds() {
+    double[] xs = {0, 1, 2, 3};
+    double[] ys = {0, 1, 2};
+
+    assertThrows(IndexOutOfBoundsException.class, () ->
+      LTThreeBuckets.sorted(xs, ys, 0, xs.length, 1)
+    );
+  }
+
+  // ---- Indices ----
+
+  @Test
+  public void indices_point_to_the_selected_points() {
+    List<DoublePoint> input = asList(
+      DoublePoint.of(0, 0),
+      DoublePoint.of(1, 1),
+      DoublePoint.of(2, 3),
+      DoublePoint.of(3, 1),
+      DoublePoint.of(4, 3),
+      DoublePoint.of(5, 2),
+      DoublePoint.of(6, 0)
+    );
+
+    int[] indices = LTThreeBuckets.indices(input, 2);
+
+    assertThat(indices, equalTo(new int[]{0, 2, 4, 6}));
+  }
+
+  @Test
+  public void indices_with_fixed_strategy_point_to_the_selected_points() {
+    List<DoublePoint> input = asList(
+      DoublePoint.of(0, 0),
+      DoublePoint.of(1, 1),
+      DoublePoint.of(2, 1),
+      DoublePoint.of(3, 1),
+      DoublePoint.of(8, 10),
+      DoublePoint.of(9, 0)
+    );
+
+    int[] indices = LTThreeBuckets.indices(input, 2, BucketizationStrategy.FIXED);
+    List<DoublePoint> output = LTThreeBuckets.sorted(input, 2, BucketizationStrategy.FIXED);
+
+    assertThat(indices.length, equalTo(output.size()));
+    for (int i = 0; i < indices.length; i++) {
+      assertThat(input.get(indices[i]), equalTo(output.get(i)));
+    }
+  }
+
+  @Test
+  public void columns_indices_are_absolute_positions_in_the_arrays() {
+    double[] xs = {-2, -1, 0, 1, 2, 3, 4, 5, 6, 7, 8};
+    double[] ys = {99, 99, 0, 1, 3, 1, 3, 2, 0, 99, 99};
+
+    int[] indices = LTThreeBuckets.indices(xs, ys, 2, 7, 2);
+
+    assertThat(indices, equalTo(new int[]{2, 4, 6, 8}));
+  }
+
+  // ---- EXACT selection ----
+
+  @Test
+  public void exact_mode_anchors_on_the_point_selected_in_the_previous_bucket() {
+    List<DoublePoint> input = asList(
+      DoublePoint.of(0, 0),
+      DoublePoint.of(1, 5),
+      DoublePoint.of(2, -5),
+      DoublePoint.of(3, 0),
+      DoublePoint.of(4, 3),
+      DoublePoint.of(5, 0)
+    );
+
+    List<DoublePoint> independent = LTThreeBuckets.sorted(input, 2, BucketizationStrategy.DYNAMIC, SelectionMode.INDEPENDENT);
+    List<DoublePoint> exact = LTThreeBuckets.sorted(input, 2, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT);
+
+    // (3, 0) wins when anchored on (1, 5), the first point of the previous bucket,
+    // (4, 3) wins when anchored on (2, -5), the point selected in the previous bucket
+    assertThat(independent, contains(pointAt(0, 0), pointAt(2, -5), pointAt(3, 0), pointAt(5, 0)));
+    assertThat(exact, contains(pointAt(0, 0), pointAt(2, -5), pointAt(4, 3), pointAt(5, 0)));
+  }
+
+  @Test
+  public void exact_mode_anchors_on_the_average_of_the_next_bucket() {
+    List<DoublePoint> input = asList(
+      DoublePoint.of(0, 0),
+      DoublePoint.of(1, 2), DoublePoint.of(2, -1), DoublePoint.of(3, 0),
+      DoublePoint.of(4, 0), DoublePoint.of(5, 9), DoublePoint.of(6, 0),
+      DoublePoint.of(7, 0), DoublePoint.of(8, 0),
+      DoublePoint.of(9, 0)
+    );
+
+    // The center of the second bucket, from (4, 0) to (6, 0), is (5, 0): (1, 2) forms the largest
+    // triangle with it. The reference layout starts it at (3, 0), and (2, -1) forms the largest
+    // triangle with its average (4, 3)
+    assertThat(
+      LTThreeBuckets.sorted(input, 3, BucketizationStrategy.DYNAMIC, SelectionMode.INDEPENDENT).get(1),
+      equalTo(DoublePoint.of(1, 2))
+    );
+    assertThat(
+      LTThreeBuckets.sorted(input, 3, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT).get(1),
+      equalTo(DoublePoint.of(2, -1))
+    );
+  }
+
+  @SuppressWarnings({"DataFlowIssue", "resource"})
+  @Test
+  public void exact_mode_selects_the_same_points_for_every_input_type() throws URISyntaxException, IOException {
+    URI uri = LTThreeBuckets.class.getResource("/daily-foreign-exchange-rates-31-.csv").toURI();
+    List<DateSeriesPoint> series = Files.lines(Paths.get(uri))
+      .map(line -> line.split(";"))
+      .map(cols -> new DateSeriesPoint(LocalDate.parse(cols[0]), Double.parseDouble(cols[1])))
+      .sorted(comparing(Point::x))
+      .collect(toList());
+    List<DoublePoint> doublePoints = series.stream()
+      .map(point -> new DoublePoint(point.x(), point.y()))
+      .collect(toList());
+    double[] xs = series.stream().mapToDouble(Point::x).toArray();
+    double[] ys = series.stream().mapToDouble(Point::y).toArray();
+
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      // 1000 buckets engage the chunked parallel variant
+      for (int desiredBuckets : new int[]{10, 1000}) {
+        int[] expected = LTThreeBuckets.indices(series, desiredBuckets, strategy, SelectionMode.EXACT);
+
+        assertThat(LTThreeBuckets.indices(doublePoints, desiredBuckets, strategy, SelectionMode.EXACT), equalTo(expected));
+        assertThat(LTThreeBuckets.indices(xs, ys, 0, xs.length, desiredBuckets, strategy, SelectionMode.EXACT), equalTo(expected));
+        List<DateSeriesPoint> output = LTThreeBuckets.sorted(series, desiredBuckets, strategy, SelectionMode.EXACT);
+        for (int i = 0; i < expected.length; i++) {
+          assertThat(output.get(i), equalTo(series.get(expected[i])));
+        }
+      }
+    }
+  }
+
+  @SuppressWarnings({"DataFlowIssue", "resource"})
+  @Test
+  public void exact_mode_matches_the_reference_algorithm() throws URISyntaxException, IOException {
+    URI uri = LTThreeBuckets.class.getResource("/daily-foreign-exchange-rates-31-.csv").toURI();
+    List<DateSeriesPoint> series = Files.lines(Paths.get(uri))
+      .map(line -> line.split(";"))
+      .map(cols -> new DateSeriesPoint(LocalDate.parse(cols[0]), Double.parseDouble(cols[1])))
+      .sorted(comparing(Point::x))
+      .collect(toList());
+    double[] xs = series.stream().mapToDouble(Point::x).toArray();
+    double[] ys = series.stream().mapToDouble(Point::y).toArray();
+
+    // Neither bucket count divides the middle of the series, which spreads the remainder
+    for (int desiredBuckets : new int[]{97, 1000}) {
+      assertThat((series.size() - 2) % desiredBuckets == 0, equalTo(false));
+      int[] expected = referenceIndices(xs, ys, desiredBuckets + 2);
+
+      assertThat(LTThreeBuckets.indices(series, desiredBuckets, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT), equalTo(expected));
+      assertThat(LTThreeBuckets.indices(xs, ys, 0, xs.length, desiredBuckets, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT), equalTo(expected));
+    }
+  }
+
+  /**
+   * Direct port of the reference LTTB implementation by Sveinn Steinarsson, returning the
+   * positions of the {@code threshold} selected points.
+   */
+  private static int[] referenceIndices(double[] xs, double[] ys, int threshold) {
+    int dataLength = xs.length;
+    int[] sampled = new int[threshold];
+    int sampledIndex = 0;
+    double every = (double) (dataLength - 2) / (threshold - 2);
+    int a = 0;
+    int nextA = 0;
+
+    sampled[sampledIndex++] = a;
+    for (int i = 0; i < threshold - 2; i++) {
+      double avgX = 0;
+      double avgY = 0;
+      int avgRangeStart = (int) Math.floor((i + 1) * every) + 1;
+      int avgRangeEnd = Math.min((int) Math.floor((i + 2) * every) + 1, dataLength);
+      int avgRangeLength = avgRangeEnd - avgRangeStart;
+      for (; avgRangeStart < avgRangeEnd; avgRangeStart++) {
+        avgX += xs[avgRangeStart];
+        avgY += ys[avgRangeStart];
+      }
+      avgX /= avgRangeLength;
+      avgY /= avgRangeLength;
+
+      int rangeOffs = (int) Math.floor(i * every) + 1;
+      int rangeTo = (int) Math.floor((i + 1) * every) + 1;
+      double pointAx = xs[a];
+      double pointAy = ys[a];
+      double maxArea = -1;
+      for (; rangeOffs < rangeTo; rangeOffs++) {
+        double area = Math.abs((pointAx - avgX) * (ys[rangeOffs] - pointAy)
+          - (pointAx - xs[rangeOffs]) * (avgY - pointAy)) * 0.5;
+        if (area > maxArea) {
+          maxArea = area;
+          nextA = rangeOffs;
+        }
+      }
+      sampled[sampledIndex++] = nextA;
+      a = nextA;
+    }
+    sampled[sampledIndex] = dataLength - 1;
+    return sampled;
+  }
+
   @SuppressWarnings({"DataFlowIssue", "resource"})
   @Test
   public void complex_downsampling_scenario() throws URISyntaxException, IOException {
@@ -250,4 +510,63 @@ public class LargestTriangleThreeBucketsTest {
       LocalDate.of(1998, 12, 31)
     ));
   }
+
+  @SuppressWarnings({"DataFlowIssue", "resource"})
+  @Test
+  public void double_point_fast_path_selects_the_same_points_as_the_generic_path() throws URISyntaxException, IOException {
+    URI uri = LTThreeBuckets.class.getResource("/daily-foreign-exchange-rates-31-.csv").toURI();
+    List<DateSeriesPoint> series = Files.lines(Paths.get(uri))
+      .map(line -> line.split(";"))
+      .map(cols -> new DateSeriesPoint(LocalDate.parse(cols[0]), Double.parseDouble(cols[1])))
+      .sorted(comparing(Point::x))
+      .collect(toList());
+    List<DoublePoint> doublePoints = series.stream()
+      .map(point -> new DoublePoint(point.x(), point.y()))
+      .collect(toList());
+
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (int desiredBuckets : new int[]{10, 100, 1000}) {
+        List<DoublePoint> expected = LTThreeBuckets.sorted(series, desiredBuckets, strategy).stream()
+          .map(point -> new DoublePoint(point.x(), point.y()))
+          .collect(toList());
+
+        assertThat(LTThreeBuckets.sorted(doublePoints, desiredBuckets, strategy), equalTo(expected));
+      }
+    }
+  }
+
+  @SuppressWarnings({"DataFlowIssue", "resource"})
+  @Test
+  public void accessors_select_the_same_elements_as_the_point_list() throws URISyntaxException, IOException {
+    URI uri = LTThreeBuckets.class.getResource("/daily-foreign-exchange-rates-31-.csv").toURI();
+    List<Rate> rates = Files.lines(Paths.get(uri))
+      .map(line -> line.split(";"))
+      .map(cols -> new Rate(LocalDate.parse(cols[0]), new BigDecimal(cols[1])))
+      .sorted(comparing(Rate::date))
+      .collect(toList());
+    List<DateSeriesPoint> series = rates.stream()
+      .map(rate -> new DateSeriesPoint(rate.date(), rate.value().doubleValue()))
+      .collect(toList());
+    ToDoubleFunction<Rate> x = rate -> rate.date().atStartOfDay().atOffset(ZoneOffset.UTC).toEpochSecond();
+    ToDoubleFunction<Rate> y = rate -> rate.value().doubleValue();
+
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        List<LocalDate> expected = LTThreeBuckets.sorted(series, 100, strategy, mode).stream()
+          .map(DateSeriesPoint::getDate)
+          .collect(toList());
+
+        List<Rate> output = LTThreeBuckets.sorted(rates, x, y, 100, strategy, mode);
+        assertThat(output.stream().map(Rate::date).collect(toList()), equalTo(expected));
+      }
+    }
+    int[] selected = LTThreeBuckets.indices(new LinkedList<>(rates), x, y, 100);
+    assertThat(selected, equalTo(LTThreeBuckets.indices(series, 100)));
+    assertThat(DoubleColumns.from(rates, x, y), equalTo(DoubleColumns.from(series, Point::x, Point::y)));
+  }
+
+  /**
+   * A row that can't implement {@link Point}.
+   */
+  private record Rate(LocalDate date, BigDecimal value) {}
 }
@@ -0,0 +1,102 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LodFileTest {
+
+  @Test
+  public void mapped_pyramids_answer_queries_like_the_pyramids_they_were_written_from(@TempDir Path directory)
+      throws IOException {
+    Path path = directory.resolve("overviews.lod");
+    DoubleColumns load = TestSeries.randomWalk(200_000, 1, 1_000, 100);
+    DoubleColumns latency = TestSeries.randomWalk(5_000, 2, 1_000, 100);
+    Downsampler downsampler = Downsampler.create();
+    try (LodFileWriter writer = LodFileWriter.create(path, downsampler)) {
+      writer.add("cpu.load", load.xs(), load.ys());
+      writer.add("http.latency", latency.xs(), latency.ys());
+    }
+
+    try (LodFile file = LodFile.open(path)) {
+      assertThat(file.names(), equalTo(Set.of("cpu.load", "http.latency")));
+      for (String name : file.names()) {
+        DoubleColumns series = name.equals("cpu.load") ? load : latency;
+        LodPyramid expected = downsampler.newPyramid(series.xs(), series.ys());
+        MappedPyramid pyramid = file.pyramid(name);
+
+        assertThat(pyramid.levelCount(), equalTo(expected.levelCount()));
+        for (int level = 0; level < expected.levelCount(); level++) {
+          DoubleColumns points = expected.level(level);
+          assertThat(pyramid.level(level).size(), equalTo((long) points.size()));
+          assertThat(pyramid.level(level).x(points.size() - 1), equalTo(points.xs()[points.size() - 1]));
+        }
+        double last = series.xs()[series.size() - 1];
+        for (double[] viewport : new double[][]{{0, last}, {last / 3, last / 2}, {10.5, 20.5}}) {
+          assertThat(
+              pyramid.query(viewport[0], viewport[1], 300),
+              equalTo(expected.query(viewport[0], viewport[1], 300))
+          );
+        }
+      }
+      assertThrows(IllegalArgumentException.class, () -> file.pyramid("disk.usage"));
+    }
+  }
+
+  @Test
+  public void unfinished_files_and_duplicated_series_are_rejected(@TempDir Path directory) throws IOException {
+    Path path = directory.resolve("overviews.lod");
+    DoubleColumns series = TestSeries.randomWalk(1_000, 3, 1_000, 100);
+    LodFileWriter writer = LodFileWriter.create(path, Downsampler.create());
+    writer.add("cpu.load", series.xs(), series.ys());
+
+    assertThrows(IllegalArgumentException.class, () -> writer.add("cpu.load", series.xs(), series.ys()));
+    assertThrows(IOException.class, () -> LodFile.open(path));
+
+    writer.close();
+    try (LodFile file = LodFile.open(path)) {
+      assertThat(file.names(), equalTo(Set.of("cpu.load")));
+    }
+    Files.write(path, new byte[]{1, 2, 3});
+    assertThrows(IOException.class, () -> LodFile.open(path));
+  }
+
+  @Test
+  public void corrupt_indexes_are_rejected(@TempDir Path directory) throws IOException {
+    Path path = directory.resolve("overviews.lod");
+    DoubleColumns series = TestSeries.randomWalk(1_000, 3, 1_000, 100);
+    try (LodFileWriter writer = LodFileWriter.create(path, Downsampler.create())) {
+      writer.add("cpu", series.xs(), series.ys());
+    }
+    byte[] valid = Files.readAllBytes(path);
+    // The index starts with the length of the name, the name, and the level count
+    int levelCount = (int) ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN).getLong(16) + Integer.BYTES + 3;
+    int firstLevelSize = levelCount + Integer.BYTES + Long.BYTES;
+
+    assertCorrupt(path, valid, index -> index.putInt(12, -1));
+    assertCorrupt(path, valid, index -> index.putInt(12, Integer.MAX_VALUE));
+    assertCorrupt(path, valid, index -> index.putLong(16, -1));
+    assertCorrupt(path, valid, index -> index.putInt(levelCount, -1));
+    assertCorrupt(path, valid, index -> index.putInt(levelCount, Integer.MAX_VALUE));
+    assertCorrupt(path, valid, index -> index.putLong(firstLevelSize, -1));
+    assertCorrupt(path, valid, index -> index.putLong(firstLevelSize, Long.MAX_VALUE / Double.BYTES));
+  }
+
+  private static void assertCorrupt(Path path, byte[] valid, Consumer<ByteBuffer> corruption) throws IOException {
+    byte[] corrupt = valid.clone();
+    corruption.accept(ByteBuffer.wrap(corrupt).order(ByteOrder.LITTLE_ENDIAN));
+    Files.write(path, corrupt);
+    assertThrows(IOException.class, () -> LodFile.open(path));
+  }
+}
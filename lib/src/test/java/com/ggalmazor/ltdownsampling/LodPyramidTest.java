@@ -0,0 +1,81 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LodPyramidTest {
+  private static final int SIZE = 1_000_000;
+  private static final DoubleColumns SERIES = series();
+
+  @Test
+  public void every_level_downsamples_the_previous_one_to_a_quarter() {
+    LodPyramid pyramid = Downsampler.create().newPyramid(SERIES.xs(), SERIES.ys());
+
+    assertThat(pyramid.level(0), equalTo(SERIES));
+    assertThat(pyramid.levelCount(), equalTo(7));
+    for (int level = 1; level < pyramid.levelCount(); level++) {
+      DoubleColumns previous = pyramid.level(level - 1);
+      assertThat(
+          pyramid.level(level),
+          equalTo(LTThreeBuckets.sorted(previous.xs(), previous.ys(), 0, previous.size(), previous.size() / 4 - 2))
+      );
+    }
+    assertThat(pyramid.level(pyramid.levelCount() - 1).size(), lessThan(LodPyramid.MIN_LEVEL_SIZE * 4));
+  }
+
+  @Test
+  public void queries_downsample_the_slice_of_the_coarsest_level_with_enough_points() {
+    LodPyramid pyramid = Downsampler.create().newPyramid(SERIES.xs(), SERIES.ys());
+
+    // The whole series over 1000 pixels: level 3 holds 15625 points, level 4 only 3906
+    DoubleColumns level = pyramid.level(3);
+    assertThat(level.size(), greaterThanOrEqualTo(4_000));
+    assertThat(
+        pyramid.query(SERIES.xs()[0], SERIES.xs()[SIZE - 1], 1_000),
+        equalTo(LTThreeBuckets.sorted(level.xs(), level.ys(), 0, level.size(), 1_000))
+    );
+
+    // A viewport over ~5000 raw points, strictly between them, only has enough points at level 0
+    double xMin = SERIES.xs()[500_000] + 0.001;
+    double xMax = SERIES.xs()[505_000] - 0.001;
+    assertThat(
+        pyramid.query(xMin, xMax, 800),
+        equalTo(LTThreeBuckets.sorted(SERIES.xs(), SERIES.ys(), 500_000, 5_001, 800))
+    );
+  }
+
+  @Test
+  public void narrow_viewports_return_the_raw_points_around_them() {
+    LodPyramid pyramid = Downsampler.create().newPyramid(SERIES.xs(), SERIES.ys());
+    double xMin = SERIES.xs()[10];
+    double xMax = SERIES.xs()[20] - 0.001;
+
+    DoubleColumns output = pyramid.query(xMin, xMax, 100);
+
+    assertThat(output.size(), equalTo(11));
+    assertThat(output.get(0), equalTo(SERIES.get(10)));
+    assertThat(output.get(10), equalTo(SERIES.get(20)));
+    assertThrows(IllegalArgumentException.class, () -> pyramid.query(xMax, xMin, 100));
+    assertThrows(IllegalArgumentException.class, () -> pyramid.query(xMin, xMax, 0));
+  }
+
+  private static DoubleColumns series() {
+    Random random = new Random(3);
+    double[] xs = new double[SIZE];
+    double[] ys = new double[SIZE];
+    double y = 0;
+    for (int i = 0; i < SIZE; i++) {
+      y += random.nextGaussian();
+      xs[i] = i;
+      ys[i] = y;
+    }
+    return new DoubleColumns(xs, ys);
+  }
+}
@@ -0,0 +1,103 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class M4Test {
+  private static final DoubleColumns SERIES = TestSeries.randomWalk(300_000, 17, 500, 100);
+
+  @Test
+  public void every_column_keeps_its_first_last_lowest_and_highest_points() {
+    double[] xs = SERIES.xs();
+    double[] ys = SERIES.ys();
+    for (int pixels : new int[]{1, 7, 640, 1_920, 100_000}) {
+      int offset = 1_000;
+      int length = 250_000;
+      int last = offset + length - 1;
+      double width = (xs[last] - xs[offset]) / pixels;
+
+      // Columns of the middle points, computed as FIXED buckets are
+      TreeSet<Integer> expected = new TreeSet<>(List.of(offset, last));
+      int start = offset + 1;
+      for (int i = offset + 1; i <= last; i++) {
+        if (i == last || column(xs, offset, i, width, pixels) != column(xs, offset, start, width, pixels)) {
+          int min = start;
+          int max = start;
+          for (int j = start; j < i; j++) {
+            min = ys[j] < ys[min] ? j : min;
+            max = ys[j] > ys[max] ? j : max;
+          }
+          expected.addAll(List.of(start, min, max, i - 1));
+          start = i;
+        }
+      }
+
+      int[] indices = M4.indices(xs, ys, offset, length, pixels);
+      assertThat(indices, equalTo(expected.stream().mapToInt(Integer::intValue).toArray()));
+      assertThat(indices.length, lessThanOrEqualTo(4 * pixels + 2));
+    }
+  }
+
+  @Test
+  public void lists_select_the_same_points_as_arrays() {
+    List<DoublePoint> points = new ArrayList<>();
+    for (int i = 0; i < 20_000; i++) {
+      points.add(new DoublePoint(SERIES.xs()[i], SERIES.ys()[i]));
+    }
+
+    int[] indices = M4.indices(SERIES.xs(), SERIES.ys(), 0, points.size(), 300);
+    assertThat(M4.indices(points, 300), equalTo(indices));
+    assertThat(
+        new DoubleColumns(
+            M4.sorted(points, 300).stream().mapToDouble(DoublePoint::x).toArray(),
+            M4.sorted(points, 300).stream().mapToDouble(DoublePoint::y).toArray()
+        ),
+        equalTo(M4.sorted(SERIES.xs(), SERIES.ys(), 0, points.size(), 300))
+    );
+  }
+
+  @Test
+  public void configured_downsamplers_scan_columns_with_their_executor() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Downsampler parallel = Downsampler.create()
+          .withExecutor(pool)
+          .withParallelismPolicy(ParallelismPolicy.parallel());
+      for (int pixels : new int[]{1, 640, 100_000}) {
+        int[] expected = M4.indices(SERIES.xs(), SERIES.ys(), 1_000, 250_000, pixels);
+
+        assertThat(parallel.m4Indices(SERIES.xs(), SERIES.ys(), 1_000, 250_000, pixels), equalTo(expected));
+        assertThat(
+            parallel.m4Sorted(SERIES.xs(), SERIES.ys(), 1_000, 250_000, pixels),
+            equalTo(DoubleColumns.gather(SERIES.xs(), SERIES.ys(), expected))
+        );
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void short_series_are_kept_and_invalid_widths_are_rejected() {
+    assertThat(M4.indices(SERIES.xs(), SERIES.ys(), 5, 2, 100), equalTo(new int[]{5, 6}));
+    assertThat(M4.indices(SERIES.xs(), SERIES.ys(), 5, 0, 100), equalTo(new int[0]));
+    assertThrows(IllegalArgumentException.class, () -> M4.indices(SERIES.xs(), SERIES.ys(), 0, 100, 0));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> M4.indices(new double[]{1, 1, 1}, new double[]{0, 1, 2}, 0, 3, 10)
+    );
+  }
+
+  private static int column(double[] xs, int offset, int i, double width, int pixels) {
+    return Math.min((int) ((xs[i] - xs[offset]) / width), pixels - 1);
+  }
+}
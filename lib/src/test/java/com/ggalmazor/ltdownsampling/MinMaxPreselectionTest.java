@@ -0,0 +1,107 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MinMaxPreselectionTest {
+  private static final DoubleColumns SERIES = TestSeries.randomWalk(500_000, 11, 1_000, 200);
+
+  @Test
+  public void survivors_are_the_extremes_of_every_partition() {
+    double[] xs = SERIES.xs();
+    double[] ys = SERIES.ys();
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      int offset = 1_234;
+      int length = 300_000;
+      int[] bounds = OnePassBucketizer.boundaries(xs, offset, length, 2_000, strategy);
+      TreeSet<Integer> expected = new TreeSet<>();
+      expected.add(offset);
+      expected.add(offset + length - 1);
+      for (int partition = 0; partition + 1 < bounds.length; partition++) {
+        int min = bounds[partition];
+        int max = bounds[partition];
+        for (int i = bounds[partition]; i < bounds[partition + 1]; i++) {
+          min = ys[i] < ys[min] ? i : min;
+          max = ys[i] > ys[max] ? i : max;
+        }
+        expected.add(min);
+        expected.add(max);
+      }
+
+      assertThat(
+          MinMaxPreselection.survivors(xs, ys, offset, length, 2_000, strategy, TaskRunner.SEQUENTIAL),
+          equalTo(expected.stream().mapToInt(Integer::intValue).toArray())
+      );
+    }
+  }
+
+  @Test
+  public void min_max_lttb_downsamples_the_survivors() {
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+        for (SelectionMode mode : SelectionMode.values()) {
+          Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+          int[] survivors = MinMaxPreselection.survivors(
+              SERIES.xs(), SERIES.ys(), 0, SERIES.size(), 2_000, strategy, TaskRunner.SEQUENTIAL);
+          DoubleColumns preselected = DoubleColumns.gather(SERIES.xs(), SERIES.ys(), survivors);
+          int[] expected = downsampler.indices(preselected.xs(), preselected.ys(), 0, survivors.length, 1_000);
+          for (int i = 0; i < expected.length; i++) {
+            expected[i] = survivors[expected[i]];
+          }
+
+          assertThat(downsampler.minMaxIndices(SERIES.xs(), SERIES.ys(), 0, SERIES.size(), 1_000, 4), equalTo(expected));
+          Downsampler parallel = downsampler.withExecutor(pool).withParallelismPolicy(ParallelismPolicy.parallel());
+          assertThat(parallel.minMaxIndices(SERIES.xs(), SERIES.ys(), 0, SERIES.size(), 1_000, 4), equalTo(expected));
+          assertThat(
+              downsampler.minMaxSorted(SERIES.xs(), SERIES.ys(), 0, SERIES.size(), 1_000, 4),
+              equalTo(DoubleColumns.gather(SERIES.xs(), SERIES.ys(), expected))
+          );
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void short_series_fall_back_to_plain_lttb() {
+    Downsampler downsampler = Downsampler.create();
+    assertThat(
+        downsampler.minMaxIndices(SERIES.xs(), SERIES.ys(), 10, 4_002, 500, 8),
+        equalTo(downsampler.indices(SERIES.xs(), SERIES.ys(), 10, 4_002, 500))
+    );
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> downsampler.minMaxIndices(SERIES.xs(), SERIES.ys(), 0, SERIES.size(), 500, 1)
+    );
+  }
+
+  @Test
+  public void vector_scan_finds_the_same_extremes_as_the_scalar_scan() {
+    Random random = new Random(13);
+    double[] ys = new double[4_000];
+    for (int i = 0; i < ys.length; i++) {
+      // Few distinct values produce many ties, and some NaN values must be skipped
+      ys[i] = random.nextInt(50) == 0 ? Double.NaN : random.nextInt(8);
+    }
+    ys[100] = Double.NaN;
+
+    for (int length = VectorMinMaxKernel.MIN_LENGTH; length < 300; length++) {
+      for (int from : new int[]{random.nextInt(ys.length - length), 100}) {
+        int[] vector = new int[2];
+        int[] scalar = new int[2];
+        VectorMinMaxKernel.extremes(ys, from, from + length, vector, 0);
+        MinMaxPreselection.scalarExtremes(ys, from, from + length, scalar, 0);
+        assertThat(vector, equalTo(scalar));
+      }
+    }
+  }
+}
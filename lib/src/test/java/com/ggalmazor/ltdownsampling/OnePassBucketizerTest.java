@@ -2,7 +2,11 @@ package com.ggalmazor.ltdownsampling;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -194,4 +198,117 @@ public class OnePassBucketizerTest {
         OnePassBucketizer.bucketize(input, input.size(), 1, BucketizationStrategy.FIXED)
     );
   }
+
+  // ---- Index boundaries ----
+
+  @Test
+  public void dynamic_boundaries_match_bucket_sizes() {
+    // 7 middle points / 3 buckets starting at offset 2: sizes 3, 2, 2
+    double[] xs = new double[11];
+
+    int[] bounds = OnePassBucketizer.boundaries(xs, 2, 9, 3, BucketizationStrategy.DYNAMIC);
+
+    assertThat(bounds, equalTo(new int[]{3, 6, 8, 10}));
+  }
+
+  @Test
+  public void exact_dynamic_boundaries_spread_the_remainder_like_the_reference() {
+    // 8 middle points / 3 buckets: every bucket starts at floor(k * 8 / 3) + 1
+    List<DoublePoint> input = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      input.add(DoublePoint.of(i, i));
+    }
+
+    List<Bucket<DoublePoint>> buckets =
+        OnePassBucketizer.bucketize(input, input.size(), 3, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT);
+    int[] bounds = OnePassBucketizer.boundaries(
+        new double[12], 2, 10, 3, BucketizationStrategy.DYNAMIC, SelectionMode.EXACT, TaskRunner.SEQUENTIAL);
+
+    assertThat(buckets, hasSize(5));
+    assertThat(buckets.get(1).points(), hasSize(2));
+    assertThat(buckets.get(2).points(), hasSize(3));
+    assertThat(buckets.get(3).points(), hasSize(3));
+    assertThat(bounds, equalTo(new int[]{3, 5, 8, 11}));
+  }
+
+  @Test
+  public void fixed_boundaries_skip_empty_windows() {
+    // Same series as fixed_output_size_is_desiredBuckets_plus_2_minus_empty_windows
+    double[] xs = {0, 1, 3, 7, 11, 12};
+
+    int[] bounds = OnePassBucketizer.boundaries(xs, 0, xs.length, 6, BucketizationStrategy.FIXED);
+
+    assertThat(bounds, equalTo(new int[]{1, 2, 3, 4, 5}));
+  }
+
+  @Test
+  public void fixed_boundaries_are_the_same_when_searched_or_scanned_in_parallel() {
+    double[] xs = unevenSeries(OnePassBucketizer.PARALLEL_SCAN * 2 + 123);
+    int length = xs.length - 5;
+
+    try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+      TaskRunner parallel = TaskRunner.of(executor, 4);
+      // From searched windows (few buckets) to scanned windows, including more buckets than points
+      for (int buckets : new int[]{1, 7, 100, 4_000, 50_000, 200_000, length - 2, length + 10}) {
+        int[] expected = scannedBoundaries(xs, 5, length, buckets);
+
+        assertThat(OnePassBucketizer.boundaries(xs, 5, length, buckets, BucketizationStrategy.FIXED), equalTo(expected));
+        assertThat(
+          OnePassBucketizer.boundaries(xs, 5, length, buckets, BucketizationStrategy.FIXED, parallel),
+          equalTo(expected)
+        );
+      }
+    }
+  }
+
+  @Test
+  public void fixed_buckets_are_views_over_the_boundaries() {
+    double[] xs = unevenSeries(10_000);
+    List<DoublePoint> input = new ArrayList<>(xs.length);
+    for (double x : xs) {
+      input.add(DoublePoint.of(x, 0));
+    }
+
+    List<Bucket<DoublePoint>> buckets = OnePassBucketizer.bucketize(input, input.size(), 300, BucketizationStrategy.FIXED);
+    int[] bounds = OnePassBucketizer.boundaries(xs, 0, xs.length, 300, BucketizationStrategy.FIXED);
+
+    assertThat(buckets, hasSize(bounds.length + 1));
+    for (int bucket = 0; bucket < bounds.length - 1; bucket++) {
+      Bucket<DoublePoint> middle = buckets.get(bucket + 1);
+      assertThat(middle.getOffset(), equalTo(bounds[bucket]));
+      assertThat(middle.getFirst(), equalTo(input.get(bounds[bucket])));
+      assertThat(middle.getLast(), equalTo(input.get(bounds[bucket + 1] - 1)));
+    }
+  }
+
+  private static double[] unevenSeries(int size) {
+    Random random = new Random(42);
+    double[] xs = new double[size];
+    double x = 0;
+    for (int i = 0; i < size; i++) {
+      // Occasional large gaps leave some windows empty
+      x += random.nextInt(50) == 0 ? 500 : random.nextDouble();
+      xs[i] = x;
+    }
+    return xs;
+  }
+
+  /**
+   * Reference fixed-span boundaries: a new bucket starts wherever the window changes.
+   */
+  private static int[] scannedBoundaries(double[] xs, int offset, int length, int buckets) {
+    int last = offset + length - 1;
+    double width = (xs[last] - xs[offset]) / buckets;
+    List<Integer> bounds = new ArrayList<>();
+    int current = -1;
+    for (int i = offset + 1; i < last; i++) {
+      int window = Math.min((int) ((xs[i] - xs[offset]) / width), buckets - 1);
+      if (window != current) {
+        bounds.add(i);
+        current = window;
+      }
+    }
+    bounds.add(last);
+    return bounds.stream().mapToInt(Integer::intValue).toArray();
+  }
 }
@@ -0,0 +1,111 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RollingDownsamplerTest {
+  private static final double SPAN = 1_000;
+  private static final int BUCKETS = 50;
+
+  @Test
+  public void snapshots_match_downsampling_the_window_over_the_grid() {
+    RollingDownsampler live = RollingDownsampler.create(SPAN, BUCKETS);
+    List<double[]> series = new ArrayList<>();
+    Random random = new Random(42);
+    double x = 12_345;
+    for (int tick = 0; tick < 2_000; tick++) {
+      for (int i = random.nextInt(20); i >= 0; i--) {
+        // Occasional gaps leave some cells empty
+        x += random.nextInt(100) == 0 ? 150 : random.nextDouble();
+        double y = Math.sin(x * 0.01) * 10 + random.nextGaussian();
+        series.add(new double[]{x, y});
+        live.accept(x, y);
+      }
+
+      DoubleColumns expected = downsampleWindow(series, x);
+      assertThat(live.snapshot(), equalTo(expected));
+      assertThat(expected.size(), lessThanOrEqualTo(BUCKETS + 2));
+    }
+  }
+
+  @Test
+  public void appending_recomputes_only_the_buckets_at_the_tail() {
+    RollingDownsampler live = RollingDownsampler.create(SPAN, BUCKETS);
+    for (int i = 0; i < 100_000; i++) {
+      live.accept(i * 0.01, Math.sin(i * 0.001));
+    }
+    live.snapshot();
+
+    long before = live.selections();
+    live.accept(1_000.005, 1);
+    live.snapshot();
+
+    // The tail bucket and its left neighbour, plus the head bucket that lost a point and its right
+    // neighbour, whose left anchor moved
+    assertThat(live.selections() - before, lessThanOrEqualTo(4L));
+    assertThat(live.size(), equalTo(100_000));
+  }
+
+  @Test
+  public void short_windows_are_returned_whole() {
+    RollingDownsampler live = RollingDownsampler.create(SPAN, BUCKETS);
+    assertThat(live.snapshot(), equalTo(new DoubleColumns(new double[0], new double[0])));
+
+    live.accept(1, 2);
+    live.accept(2, 3);
+    assertThat(live.snapshot(), equalTo(new DoubleColumns(new double[]{1, 2}, new double[]{2, 3})));
+
+    live.accept(5_000, 4);
+    assertThat(live.snapshot(), equalTo(new DoubleColumns(new double[]{5_000}, new double[]{4})));
+  }
+
+  @Test
+  public void invalid_arguments_are_rejected() {
+    RollingDownsampler live = RollingDownsampler.create(SPAN, BUCKETS);
+    live.accept(10, 1);
+
+    assertThrows(IllegalArgumentException.class, () -> live.accept(9, 1));
+    assertThrows(IllegalArgumentException.class, () -> RollingDownsampler.create(0, BUCKETS));
+    assertThrows(IllegalArgumentException.class, () -> RollingDownsampler.create(SPAN, 1));
+    assertThrows(
+        IllegalStateException.class,
+        () -> Downsampler.create().withSelectionMode(SelectionMode.EXACT).newRollingDownsampler(SPAN, BUCKETS)
+    );
+  }
+
+  /**
+   * Reference result: the window as arrays, split into grid cells and run through the kernel.
+   */
+  private static DoubleColumns downsampleWindow(List<double[]> series, double latest) {
+    List<double[]> window = series.stream().filter(point -> point[0] >= latest - SPAN).toList();
+    double[] xs = window.stream().mapToDouble(point -> point[0]).toArray();
+    double[] ys = window.stream().mapToDouble(point -> point[1]).toArray();
+    if (xs.length <= 2) {
+      return new DoubleColumns(xs, ys);
+    }
+
+    double width = SPAN / (BUCKETS - 1);
+    List<Integer> bounds = new ArrayList<>();
+    long cell = Long.MIN_VALUE;
+    for (int i = 1; i < xs.length - 1; i++) {
+      long current = (long) Math.floor(xs[i] / width);
+      if (current != cell) {
+        bounds.add(i);
+        cell = current;
+      }
+    }
+    bounds.add(xs.length - 1);
+
+    int[] selected = TriangleKernel.select(
+        xs, ys, 0, xs.length - 1, bounds.stream().mapToInt(Integer::intValue).toArray(), TaskRunner.SEQUENTIAL);
+    return DoubleColumns.gather(xs, ys, selected);
+  }
+}
@@ -0,0 +1,135 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SegmentSeriesTest {
+
+  @Test
+  public void segments_select_the_same_points_as_arrays() {
+    DoubleColumns columns = TestSeries.randomWalk(50_000, 7, 1_000, 500);
+    try (Arena arena = Arena.ofConfined()) {
+      for (SegmentSeries series : layouts(columns, arena)) {
+        for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+          for (SelectionMode mode : SelectionMode.values()) {
+            Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+
+            assertThat(
+                downsampler.indices(series, 500),
+                equalTo(expectedIndices(columns, 500, strategy, mode))
+            );
+            assertThat(
+                downsampler.sorted(series, 500),
+                equalTo(LTThreeBuckets.sorted(columns.xs(), columns.ys(), 0, columns.size(), 500, strategy, mode))
+            );
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shared_segments_are_downsampled_in_parallel() {
+    DoubleColumns columns = TestSeries.randomWalk(300_000, 7, 1_000, 500);
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try (Arena arena = Arena.ofShared()) {
+      Downsampler downsampler = Downsampler.create()
+          .withExecutor(pool)
+          .withParallelismPolicy(ParallelismPolicy.parallel());
+
+      for (SegmentSeries series : layouts(columns, arena)) {
+        for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+          // Two buckets of more than 100k points each also split the candidates of every bucket
+          for (int buckets : new int[]{2, 1_000}) {
+            assertThat(
+                downsampler.withStrategy(strategy).indices(series, buckets),
+                equalTo(expectedIndices(columns, buckets, strategy, SelectionMode.INDEPENDENT))
+            );
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void mapped_files_are_downsampled_in_place(@TempDir Path directory) throws IOException {
+    DoubleColumns columns = TestSeries.randomWalk(20_000, 7, 1_000, 500);
+    Path file = directory.resolve("series.bin");
+    ByteBuffer buffer = ByteBuffer.allocate(columns.size() * 16).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < columns.size(); i++) {
+      buffer.putDouble(columns.xs()[i]).putDouble(columns.ys()[i]);
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      channel.write(buffer.flip());
+    }
+
+    try (FileChannel channel = FileChannel.open(file); Arena arena = Arena.ofShared()) {
+      MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+
+      assertThat(
+          Downsampler.create().sorted(SegmentSeries.interleaved(segment), 200),
+          equalTo(LTThreeBuckets.sorted(columns.xs(), columns.ys(), 0, columns.size(), 200))
+      );
+    }
+  }
+
+  @Test
+  public void segments_that_do_not_hold_whole_points_are_rejected() {
+    try (Arena arena = Arena.ofConfined()) {
+      assertThrows(IllegalArgumentException.class, () -> SegmentSeries.interleaved(arena.allocate(24)));
+      assertThrows(IllegalArgumentException.class, () -> SegmentSeries.columnar(arena.allocate(40)));
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> SegmentSeries.columnar(arena.allocate(16), arena.allocate(24))
+      );
+      assertThrows(
+          IllegalArgumentException.class,
+          () -> Downsampler.create().indices(SegmentSeries.interleaved(arena.allocate(160)), 9)
+      );
+    }
+  }
+
+  private static long[] expectedIndices(
+      DoubleColumns columns, int desiredBuckets, BucketizationStrategy strategy, SelectionMode mode) {
+    int[] indices = LTThreeBuckets.indices(columns.xs(), columns.ys(), 0, columns.size(), desiredBuckets, strategy, mode);
+    return Arrays.stream(indices).asLongStream().toArray();
+  }
+
+  private static SegmentSeries[] layouts(DoubleColumns columns, Arena arena) {
+    int size = columns.size();
+    MemorySegment interleaved = arena.allocate(size * 16L);
+    MemorySegment columnar = arena.allocate(size * 16L);
+    MemorySegment xs = arena.allocate(size * 8L);
+    MemorySegment ys = arena.allocate(size * 8L);
+    for (int i = 0; i < size; i++) {
+      interleaved.set(SegmentSeries.COORDINATE, i * 16L, columns.xs()[i]);
+      interleaved.set(SegmentSeries.COORDINATE, i * 16L + 8, columns.ys()[i]);
+      columnar.set(SegmentSeries.COORDINATE, i * 8L, columns.xs()[i]);
+      columnar.set(SegmentSeries.COORDINATE, (size + i) * 8L, columns.ys()[i]);
+      xs.set(SegmentSeries.COORDINATE, i * 8L, columns.xs()[i]);
+      ys.set(SegmentSeries.COORDINATE, i * 8L, columns.ys()[i]);
+    }
+    return new SegmentSeries[]{
+      SegmentSeries.interleaved(interleaved),
+      SegmentSeries.columnar(columnar),
+      SegmentSeries.columnar(xs, ys)
+    };
+  }
+}
@@ -0,0 +1,81 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SeriesBufferTest {
+
+  @Test
+  public void snapshots_select_the_same_points_as_arrays() {
+    DoubleColumns columns = TestSeries.randomWalk(70_000, 11, 1_000, 500);
+    SeriesBuffer buffer = SeriesBuffer.create();
+    for (int i = 0; i < columns.size(); i++) {
+      buffer.append(columns.xs()[i], columns.ys()[i]);
+    }
+    SeriesBuffer.Snapshot snapshot = buffer.snapshot();
+
+    assertThat(snapshot.size(), equalTo(70_000L));
+    for (BucketizationStrategy strategy : BucketizationStrategy.values()) {
+      for (SelectionMode mode : SelectionMode.values()) {
+        Downsampler downsampler = Downsampler.create().withStrategy(strategy).withSelectionMode(mode);
+
+        assertThat(
+            downsampler.sorted(snapshot, 700),
+            equalTo(LTThreeBuckets.sorted(columns.xs(), columns.ys(), 0, columns.size(), 700, strategy, mode))
+        );
+      }
+    }
+  }
+
+  @Test
+  public void snapshots_are_consistent_while_points_are_appended() throws Exception {
+    DoubleColumns columns = TestSeries.randomWalk(500_000, 11, 1_000, 500);
+    SeriesBuffer buffer = SeriesBuffer.create();
+    CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+      for (int i = 0; i < columns.size(); i++) {
+        buffer.append(columns.xs()[i], columns.ys()[i]);
+      }
+    });
+
+    List<Long> sizes = new ArrayList<>();
+    while (!writer.isDone() || sizes.isEmpty()) {
+      SeriesBuffer.Snapshot snapshot = buffer.snapshot();
+      if (snapshot.size() < 102) {
+        continue;
+      }
+      int size = (int) snapshot.size();
+      assertThat(
+          Downsampler.create().sorted(snapshot, 100),
+          equalTo(LTThreeBuckets.sorted(columns.xs(), columns.ys(), 0, size, 100))
+      );
+      sizes.add(snapshot.size());
+    }
+    writer.get(10, TimeUnit.SECONDS);
+
+    assertThat(buffer.size(), equalTo(500_000L));
+    assertThat(sizes.size(), greaterThan(0));
+  }
+
+  @Test
+  public void decreasing_x_values_and_positions_beyond_the_snapshot_are_rejected() {
+    SeriesBuffer buffer = SeriesBuffer.create();
+    buffer.append(1, 1);
+    buffer.append(2, 1);
+    SeriesBuffer.Snapshot snapshot = buffer.snapshot();
+    buffer.append(3, 1);
+
+    assertThrows(IllegalArgumentException.class, () -> buffer.append(2.5, 1));
+    assertThat(snapshot.size(), equalTo(2L));
+    assertThat(snapshot.x(1), equalTo(2.0));
+    assertThrows(IndexOutOfBoundsException.class, () -> snapshot.x(2));
+  }
+}
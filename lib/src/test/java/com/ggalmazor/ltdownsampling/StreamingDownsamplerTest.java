@@ -0,0 +1,85 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamingDownsamplerTest {
+
+  @Test
+  public void short_streams_are_kept_whole() {
+    double[] xs = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+    double[] ys = {3, 1, 4, 1, 5, 9, 2, 6, 5, 3};
+    StreamingDownsampler stream = Downsampler.create().newStreamingDownsampler(16);
+    for (int i = 0; i < xs.length; i++) {
+      stream.accept(xs[i], ys[i]);
+    }
+
+    assertThat(stream.count(), equalTo(10L));
+    assertThat(stream.snapshot(), equalTo(new DoubleColumns(xs, ys)));
+    assertThat(stream.snapshot(3), equalTo(LTThreeBuckets.sorted(xs, ys, 0, xs.length, 3)));
+    assertThat(stream.snapshot(20), equalTo(new DoubleColumns(xs, ys)));
+  }
+
+  @Test
+  public void memory_stays_bounded_and_extremes_are_kept() {
+    StreamingDownsampler stream = Downsampler.create().newStreamingDownsampler(100);
+    Random random = new Random(42);
+    double lowest = Double.POSITIVE_INFINITY;
+    double highest = Double.NEGATIVE_INFINITY;
+    double firstY = 0;
+    double lastY = 0;
+    for (int i = 0; i < 1_000_003; i++) {
+      lastY = Math.sin(i * 0.0001) * 10 + random.nextGaussian();
+      lowest = Math.min(lowest, lastY);
+      highest = Math.max(highest, lastY);
+      firstY = i == 0 ? lastY : firstY;
+      stream.accept(i, lastY);
+
+      assertThat(stream.bucketCount(), lessThanOrEqualTo(100));
+    }
+
+    DoubleColumns snapshot = stream.snapshot();
+    assertThat(snapshot.size(), lessThanOrEqualTo(400));
+    assertThat(snapshot.get(0), equalTo(DoublePoint.of(0, firstY)));
+    assertThat(snapshot.get(snapshot.size() - 1), equalTo(DoublePoint.of(1_000_002, lastY)));
+    assertThat(Arrays.stream(snapshot.ys()).min().orElseThrow(), equalTo(lowest));
+    assertThat(Arrays.stream(snapshot.ys()).max().orElseThrow(), equalTo(highest));
+    for (int i = 1; i < snapshot.size(); i++) {
+      assertThat(snapshot.xs()[i - 1] < snapshot.xs()[i], equalTo(true));
+    }
+
+    assertThat(stream.snapshot(50).size(), equalTo(52));
+  }
+
+  @Test
+  public void odd_bucket_limits_keep_filling_the_most_recent_bucket() {
+    StreamingDownsampler stream = Downsampler.create().newStreamingDownsampler(3);
+    for (int i = 0; i < 7; i++) {
+      stream.accept(i, i % 2 == 0 ? -i : i);
+    }
+
+    // After two merges: a full bucket of 4 points, and the bucket of 2 points moved as it was,
+    // which keeps filling up to 4 points. The point at x=1 is neither first, last nor extreme
+    assertThat(stream.bucketCount(), equalTo(2));
+    assertThat(stream.snapshot(), equalTo(new DoubleColumns(
+      new double[]{0, 2, 3, 4, 5, 6},
+      new double[]{0, -2, 3, -4, 5, -6}
+    )));
+  }
+
+  @Test
+  public void decreasing_x_values_are_rejected() {
+    StreamingDownsampler stream = Downsampler.create().newStreamingDownsampler(10);
+    stream.accept(1, 1);
+
+    assertThrows(IllegalArgumentException.class, () -> stream.accept(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> Downsampler.create().newStreamingDownsampler(0));
+  }
+}
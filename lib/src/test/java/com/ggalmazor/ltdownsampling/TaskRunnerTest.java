@@ -0,0 +1,48 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TaskRunnerTest {
+
+  @Test
+  public void every_task_runs_exactly_once() {
+    try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+      for (TaskRunner runner : new TaskRunner[]{TaskRunner.SEQUENTIAL, TaskRunner.commonPool(), TaskRunner.of(executor, 4)}) {
+        AtomicIntegerArray runs = new AtomicIntegerArray(1000);
+        runner.forEach(runs.length(), runs::incrementAndGet);
+
+        for (int i = 0; i < runs.length(); i++) {
+          assertThat(runs.get(i), equalTo(1));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void task_failures_are_rethrown_to_the_caller() {
+    try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+      IllegalStateException failure = assertThrows(IllegalStateException.class, () ->
+        TaskRunner.of(executor, 4).forEach(100, i -> {
+          if (i == 42) {
+            throw new IllegalStateException("task 42");
+          }
+        })
+      );
+
+      assertThat(failure.getMessage(), equalTo("task 42"));
+    }
+  }
+
+  @Test
+  public void a_parallelism_of_one_runs_sequentially() {
+    assertThat(TaskRunner.of(Runnable::run, 1), equalTo(TaskRunner.SEQUENTIAL));
+  }
+}
@@ -0,0 +1,33 @@
+package com.ggalmazor.ltdownsampling;
+
+import java.util.Random;
+
+/**
+ * Random-walk series shared by the tests.
+ */
+public final class TestSeries {
+
+  private TestSeries() {}
+
+  /**
+   * Returns a random walk of {@code size} points built from the provided {@code seed}.
+   *
+   * <p>Every x value is a random fraction of 1 after the previous one, except for one in
+   * {@code gapRate} on average, which is {@code gapSize} after it and leaves some fixed-span
+   * windows empty. Every y value adds a standard normal step to the previous one.
+   */
+  public static DoubleColumns randomWalk(int size, long seed, int gapRate, double gapSize) {
+    Random random = new Random(seed);
+    double[] xs = new double[size];
+    double[] ys = new double[size];
+    double x = 0;
+    double y = 0;
+    for (int i = 0; i < size; i++) {
+      x += random.nextInt(gapRate) == 0 ? gapSize : random.nextDouble();
+      y += random.nextGaussian();
+      xs[i] = x;
+      ys[i] = y;
+    }
+    return new DoubleColumns(xs, ys);
+  }
+}
@@ -0,0 +1,68 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TriangleKernelTest {
+  private static final int SIZE = 3 * TriangleKernel.PARALLEL_CANDIDATES + 7;
+
+  private final double[] xs = new double[SIZE];
+  private final double[] ys = new double[SIZE];
+
+  public TriangleKernelTest() {
+    Random random = new Random(42);
+    for (int i = 0; i < SIZE; i++) {
+      xs[i] = i;
+      ys[i] = Math.sin(i * 0.0001) * 10 + random.nextGaussian();
+    }
+  }
+
+  @Test
+  public void split_search_matches_sequential_search() {
+    int to = 2 * TriangleKernel.PARALLEL_CANDIDATES + 123;
+
+    assertThat(
+      TriangleKernel.splitMaxAreaIndex(xs, ys, 5, to, 0, 0, SIZE, 0, TaskRunner.commonPool()),
+      equalTo(TriangleKernel.scalarMaxAreaIndex(xs, ys, 5, to, 0, 0, SIZE, 0))
+    );
+  }
+
+  @Test
+  public void split_search_resolves_ties_across_pieces_in_favour_of_the_lowest_index() {
+    double[] flat = new double[TriangleKernel.PARALLEL_CANDIDATES];
+    double[] positions = new double[flat.length];
+    for (int i = 0; i < flat.length; i++) {
+      positions[i] = i;
+      flat[i] = i % TriangleKernel.SPLIT_SIZE == 17 ? 1 : 0;
+    }
+
+    assertThat(
+      TriangleKernel.splitMaxAreaIndex(positions, flat, 0, flat.length, 0, 0, flat.length, 0, TaskRunner.commonPool()),
+      equalTo(17)
+    );
+  }
+
+  @Test
+  public void few_huge_buckets_select_the_same_points_as_the_generic_path() {
+    List<Point> points = new ArrayList<>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      points.add(new ObjectPoint(xs[i], ys[i]));
+    }
+
+    for (SelectionMode mode : SelectionMode.values()) {
+      int[] expected = LTThreeBuckets.indices(points, 3, BucketizationStrategy.DYNAMIC, mode);
+
+      assertThat(LTThreeBuckets.indices(xs, ys, 0, SIZE, 3, BucketizationStrategy.DYNAMIC, mode), equalTo(expected));
+    }
+  }
+
+  // Not a DoublePoint, so that LTThreeBuckets follows the generic Bucket / Triangle path
+  private record ObjectPoint(double x, double y) implements Point {
+  }
+}
@@ -0,0 +1,70 @@
+package com.ggalmazor.ltdownsampling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class VectorTriangleKernelTest {
+
+  @Test
+  public void vector_kernel_is_used_when_the_module_is_present() {
+    // The test task runs with --add-modules jdk.incubator.vector
+    assertThat(TriangleKernel.VECTORIZED, equalTo(true));
+  }
+
+  @Test
+  public void vector_kernel_selects_the_same_points_as_the_scalar_kernel() {
+    Random random = new Random(42);
+    double[] xs = new double[10_000];
+    double[] ys = new double[10_000];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i;
+      ys[i] = Math.sin(i * 0.01) * 10 + random.nextGaussian();
+    }
+
+    for (int length = 1; length < 200; length++) {
+      int from = random.nextInt(xs.length - length);
+      assertSameSelection(xs, ys, from, from + length, xs[0], ys[0], xs[xs.length - 1], ys[ys.length - 1]);
+    }
+  }
+
+  @Test
+  public void vector_kernel_resolves_ties_in_favour_of_the_lowest_index() {
+    // Every candidate forms the same triangle, so the first one must win
+    double[] xs = new double[100];
+    double[] ys = new double[100];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i;
+      ys[i] = i % 2 == 0 ? 5 : -5;
+    }
+
+    assertSameSelection(xs, ys, 3, 100, 0, 0, 100, 0);
+    assertThat(VectorTriangleKernel.maxAreaIndex(xs, ys, 3, 100, 0, 0, 100, 0), equalTo(3));
+  }
+
+  @Test
+  public void vector_kernel_skips_nan_candidates() {
+    double[] xs = new double[64];
+    double[] ys = new double[64];
+    for (int i = 0; i < xs.length; i++) {
+      xs[i] = i;
+      ys[i] = i == 40 ? 1000 : Double.NaN;
+    }
+
+    assertThat(VectorTriangleKernel.maxAreaIndex(xs, ys, 0, 64, -1, 0, 65, 0), equalTo(40));
+
+    ys[40] = Double.NaN;
+    assertThat(VectorTriangleKernel.maxAreaIndex(xs, ys, 0, 64, -1, 0, 65, 0), equalTo(-1));
+  }
+
+  private static void assertSameSelection(
+      double[] xs, double[] ys, int from, int to, double lx, double ly, double rx, double ry) {
+    assertThat(
+      VectorTriangleKernel.maxAreaIndex(xs, ys, from, to, lx, ly, rx, ry),
+      equalTo(TriangleKernel.scalarMaxAreaIndex(xs, ys, from, to, lx, ly, rx, ry))
+    );
+  }
+}